@@ -0,0 +1,126 @@
+import java.io.*;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmark : latence d'une compilation, JVM froide contre démon
+ *
+ * Sur de petits scripts générés (ProgramGenerator), mesure le temps de
+ * bout en bout de chaque compilation :
+ *   - à froid   : un processus "java Compiler --stream --quiet" par script ;
+ *   - client    : un processus "java Compiler --client" par script, qui
+ *                 transmet la requête au démon ;
+ *   - socket    : requêtes COMPILE envoyées directement sur la socket du
+ *                 démon (une connexion gardée ouverte), sans aucune JVM à lancer.
+ * Le démon tourne dans son propre processus, comme en production.
+ *
+ * Lancement :
+ *   javac -d out src/*.java benchmarks/DaemonBenchmark.java
+ *   java -cp out DaemonBenchmark
+ */
+public class DaemonBenchmark {
+
+    private static final int SCRIPTS = 40;
+    private static final int LIGNES = 60;
+    private static final int PROCESSUS = 10;   // Lancements de JVM mesurés (à froid, client)
+    private static final int TOURS_SOCKET = 50;
+
+    public static void main(String[] args) throws Exception {
+        Path dossier = Files.createTempDirectory("daemon-benchmark");
+        Path socket = dossier.resolve("compilateur.sock");
+        List<Path> scripts = new ArrayList<>();
+        for (int i = 0; i < SCRIPTS; i++) {
+            Path script = dossier.resolve("script" + i + ".py");
+            Files.writeString(script, new ProgramGenerator(i, ProgramGenerator.Forme.MELANGE).generer(LIGNES));
+            scripts.add(script);
+        }
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        long[] froid = new long[PROCESSUS];
+        for (int i = 0; i < PROCESSUS; i++) {
+            froid[i] = processus(java, "-cp", classpath, "Compiler", "--stream", "--quiet", scripts.get(i).toString());
+        }
+
+        Process demon = new ProcessBuilder(java, "-cp", classpath, "Compiler", "--daemon", "--socket=" + socket)
+                .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            attendre(socket);
+
+            long[] client = new long[PROCESSUS];
+            for (int i = 0; i < PROCESSUS; i++) {
+                client[i] = processus(java, "-cp", classpath, "Compiler", "--client", "--socket=" + socket,
+                        scripts.get(i).toString());
+            }
+
+            long[] direct = new long[SCRIPTS * TOURS_SOCKET];
+            long[] demonMicros = new long[direct.length];
+            try (SocketChannel canal = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+                 BufferedReader entree = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8));
+                 Writer sortie = new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8)) {
+                for (int i = 0; i < direct.length; i++) {
+                    long debut = System.nanoTime();
+                    sortie.write("COMPILE " + scripts.get(i % SCRIPTS) + "\n");
+                    sortie.flush();
+                    String reponse = entree.readLine();
+                    direct[i] = System.nanoTime() - debut;
+                    if (reponse == null || !reponse.contains("\"succes\":true")) {
+                        throw new IllegalStateException("Réponse inattendue : " + reponse);
+                    }
+                    int m = reponse.indexOf("\"micros\":") + "\"micros\":".length();
+                    demonMicros[i] = Long.parseLong(reponse.substring(m, reponse.indexOf(',', m))) * 1_000;
+                }
+            }
+
+            System.out.println("Scripts de " + LIGNES + " lignes (ProgramGenerator), temps de bout en bout :");
+            afficher("JVM à froid (--stream)", froid);
+            afficher("client + démon (--client)", client);
+            afficher("socket + démon (COMPILE)", direct);
+            afficher("  dont compilation (démon)", demonMicros);
+
+            processus(java, "-cp", classpath, "Compiler", "--client", "--socket=" + socket, "--stop");
+            demon.waitFor();
+        } finally {
+            demon.destroy();
+            for (Path script : scripts) {
+                Files.deleteIfExists(script);
+            }
+            Files.deleteIfExists(socket);
+            Files.deleteIfExists(dossier);
+        }
+    }
+
+    /**
+     * Lance une commande et retourne sa durée (ns)
+     */
+    private static long processus(String... commande) throws IOException, InterruptedException {
+        long debut = System.nanoTime();
+        Process p = new ProcessBuilder(commande).redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        p.waitFor();
+        return System.nanoTime() - debut;
+    }
+
+    private static void attendre(Path socket) throws InterruptedException {
+        for (int i = 0; i < 600; i++) {
+            try {
+                SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("Le démon ne répond pas sur " + socket);
+    }
+
+    private static void afficher(String nom, long[] durees) {
+        long[] tri = durees.clone();
+        Arrays.sort(tri);
+        System.out.printf("  %-28s médiane %9.1f µs   p90 %9.1f µs   max %9.1f µs%n", nom,
+                tri[tri.length / 2] / 1e3, tri[tri.length * 9 / 10] / 1e3, tri[tri.length - 1] / 1e3);
+    }
+}
@@ -0,0 +1,122 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Benchmark : démarrage à froid, temps jusqu'au premier résultat
+ *
+ * Lance "--stream --summary" sur un petit et un gros script générés
+ * (ProgramGenerator), un processus par mesure, et relève :
+ *   - premier résultat : du lancement au premier octet écrit par le
+ *                        compilateur (en --summary, le résultat final) ;
+ *   - fin              : du lancement à la fin du processus.
+ * Configurations, mesurées à tour de rôle :
+ *   - java -jar        : CDS du JDK seulement (classes du JDK) ;
+ *   - -Xshare:off      : aucune archive, pour référence ;
+ *   - AppCDS           : archive switchcase-python.jsa de mvn package ;
+ *   - bin/switchcase   : le lanceur (AppCDS, C1 seul, GC série).
+ *
+ * Lancement (après mvn package) :
+ *   javac -d out src/*.java benchmarks/StartupBenchmark.java
+ *   java -cp out StartupBenchmark [compiler/target/switchcase-python.jar]
+ */
+public class StartupBenchmark {
+
+    private static final int MESURES = 15;
+    private static final int[] LIGNES = {60, 20_000};
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Paths.get(args.length > 0 ? args[0] : "compiler/target/switchcase-python.jar").toAbsolutePath();
+        Path archive = Paths.get(jar.toString().replaceFirst("\\.jar$", ".jsa"));
+        Path lanceur = jar.getParent().resolve("../../bin/switchcase").normalize();
+        if (!Files.isRegularFile(jar)) {
+            System.out.println("Jar introuvable : " + jar + " (lancer mvn package)");
+            return;
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("java -jar", List.of(java, "-jar", jar.toString()));
+        configurations.put("java -Xshare:off -jar", List.of(java, "-Xshare:off", "-jar", jar.toString()));
+        if (Files.isRegularFile(archive)) {
+            configurations.put("java AppCDS -jar", List.of(java, "-XX:SharedArchiveFile=" + archive,
+                    "-Xlog:cds=off,cds+dynamic=off", "-jar", jar.toString()));
+        } else {
+            System.out.println("Archive introuvable : " + archive + " (AppCDS non mesuré)");
+        }
+        if (Files.isRegularFile(lanceur)) {
+            configurations.put("bin/switchcase", List.of("sh", lanceur.toString()));
+        }
+
+        Path dossier = Files.createTempDirectory("startup-benchmark");
+        try {
+            for (int lignes : LIGNES) {
+                Path script = dossier.resolve("script" + lignes + ".py");
+                Files.writeString(script, new ProgramGenerator(lignes, ProgramGenerator.Forme.MELANGE).generer(lignes));
+
+                Map<String, long[][]> mesures = new LinkedHashMap<>();
+                for (String nom : configurations.keySet()) {
+                    mesures.put(nom, new long[2][MESURES]);
+                }
+                for (int i = 0; i < MESURES; i++) {
+                    for (Map.Entry<String, List<String>> configuration : configurations.entrySet()) {
+                        List<String> commande = new ArrayList<>(configuration.getValue());
+                        commande.addAll(List.of("--stream", "--summary", script.toString()));
+                        long[][] m = mesures.get(configuration.getKey());
+                        long[] duree = processus(commande, java);
+                        m[0][i] = duree[0];
+                        m[1][i] = duree[1];
+                    }
+                }
+
+                System.out.println("Script de " + lignes + " lignes, --stream --summary :");
+                for (Map.Entry<String, long[][]> m : mesures.entrySet()) {
+                    afficher(m.getKey(), m.getValue()[0], m.getValue()[1]);
+                }
+            }
+        } finally {
+            for (int lignes : LIGNES) {
+                Files.deleteIfExists(dossier.resolve("script" + lignes + ".py"));
+            }
+            Files.deleteIfExists(dossier);
+        }
+    }
+
+    /**
+     * Lance la commande ; retourne {premier octet en sortie, fin} en ns
+     */
+    private static long[] processus(List<String> commande, String java) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(commande).redirectErrorStream(true);
+        pb.environment().put("JAVA", java);
+        long debut = System.nanoTime();
+        Process p = pb.start();
+        long premier = -1;
+        try (InputStream sortie = p.getInputStream()) {
+            if (sortie.read() >= 0) {
+                premier = System.nanoTime() - debut;
+            }
+            sortie.transferTo(OutputStream.nullOutputStream());
+        }
+        int code = p.waitFor();
+        long fin = System.nanoTime() - debut;
+        if (code != 0) {
+            throw new IllegalStateException("Code de sortie " + code + " : " + commande);
+        }
+        return new long[] {premier < 0 ? fin : premier, fin};
+    }
+
+    private static void afficher(String nom, long[] premier, long[] fin) {
+        System.out.printf("  %-24s premier résultat : médiane %6.1f ms  p90 %6.1f ms   fin : médiane %6.1f ms%n",
+                nom, mediane(premier), quantile(premier, 9), mediane(fin));
+    }
+
+    private static double mediane(long[] durees) {
+        return quantile(durees, 5);
+    }
+
+    private static double quantile(long[] durees, int dixiemes) {
+        long[] tri = durees.clone();
+        Arrays.sort(tri);
+        return tri[Math.min(tri.length - 1, tri.length * dixiemes / 10)] / 1e6;
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chaîne complète du compilateur sur un fichier écrit sur disque, comme
+ * BatchCompiler : lecture (SourceLoader), lexer puis parser parallèles
+ * (ParallelLexer, ParallelParser), sur les trois tailles
+ *
+ * backend : génération du bytecode (JvmBackend) d'un programme déjà
+ * analysé, mesurée à part. Ses programmes ont la forme COMPILABLE (le
+ * JvmBackend refuse les if, les attributs et les appels des autres formes),
+ * en PETIT et MOYEN seulement : un programme GRAND dépasse la table des
+ * constantes d'une seule classe.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ChaineBenchmark {
+
+    @Benchmark
+    public boolean compiler(Fichier fichier) {
+        Object source = Compilateur.charger(fichier.chemin, StandardCharsets.UTF_8);
+        Object tokens = Compilateur.tokenizeParallele(Compilateur.texte(source));
+        return Compilateur.parseParallele(tokens);
+    }
+
+    @Benchmark
+    public byte[] backend(Backend programme) {
+        return Compilateur.compilerJvm(programme.unite, "Benchmark");
+    }
+
+    /**
+     * Programme généré, écrit dans un fichier temporaire
+     */
+    @State(Scope.Benchmark)
+    public static class Fichier {
+
+        @Param({"PETIT", "MOYEN", "GRAND"})
+        public Programmes taille;
+
+        @Param({"MELANGE"})
+        public String forme;
+
+        Path chemin;
+
+        @Setup
+        public void preparer() throws IOException {
+            chemin = Files.createTempFile("chaine-benchmark", ".py");
+            Files.writeString(chemin, taille.source(forme), StandardCharsets.UTF_8);
+            Object parser = Compilateur.parser(Compilateur.tokenize(Compilateur.texte(
+                    Compilateur.charger(chemin, StandardCharsets.UTF_8))));
+            Compilateur.parse(parser);
+            if (!Compilateur.erreursParser(parser).isEmpty()) {
+                throw new IllegalStateException("Programme de benchmark incorrect : " + Compilateur.erreursParser(parser));
+            }
+        }
+
+        @TearDown
+        public void nettoyer() throws IOException {
+            Files.deleteIfExists(chemin);
+        }
+    }
+
+    /**
+     * Programme analysé une fois, que le JvmBackend compile sans erreur
+     */
+    @State(Scope.Benchmark)
+    public static class Backend {
+
+        @Param({"PETIT", "MOYEN"})
+        public Programmes taille;
+
+        Object unite;
+
+        @Setup
+        public void preparer() {
+            unite = Compilateur.analyser(taille.source("COMPILABLE"));
+            if (!Compilateur.erreurs(unite).isEmpty()) {
+                throw new IllegalStateException("Programme de benchmark incorrect : " + Compilateur.erreurs(unite));
+            }
+            Compilateur.verifierJvm(unite, "Benchmark");
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+/**
+ * Accès aux classes du compilateur depuis les benchmarks
+ *
+ * Le compilateur est dans le paquet par défaut, que du code Java d'un paquet
+ * nommé ne peut pas importer, et JMH n'accepte pas de benchmark dans le paquet
+ * par défaut. Les appels passent donc par des MethodHandle static final, que
+ * le JIT traite comme des appels directs (aucun coût de réflexion mesuré).
+ */
+final class Compilateur {
+
+    private static final MethodHandle NOUVEAU_LEXER;
+    private static final MethodHandle TOKENIZE;
+    private static final MethodHandle NOUVEAU_LEXER_PARALLELE;
+    private static final MethodHandle TOKENIZE_PARALLELE;
+    private static final MethodHandle NOUVEAU_PARSER;
+    private static final MethodHandle PARSE;
+    private static final MethodHandle ERREURS_PARSER;
+    private static final MethodHandle NOUVEAU_PARSER_PARALLELE;
+    private static final MethodHandle PARSE_PARALLELE;
+    private static final MethodHandle ANALYSER;
+    private static final MethodHandle ERREURS_UNITE;
+    private static final MethodHandle AST;
+    private static final MethodHandle TOKENS;
+    private static final MethodHandle RACINE;
+    private static final MethodHandle NOUVEAU_BACKEND;
+    private static final MethodHandle COMPILE;
+    private static final MethodHandle ERREURS_BACKEND;
+    private static final MethodHandle MOT_CLE;
+    private static final MethodHandle NOUVEAU_COMPILATEUR_VM;
+    private static final MethodHandle COMPILE_VM;
+    private static final MethodHandle ERREURS_COMPILATEUR_VM;
+    private static final MethodHandle NOUVELLE_VM;
+    private static final MethodHandle EXECUTER_VM;
+    private static final MethodHandle VALEUR_VM;
+    private static final MethodHandle INSTRUCTIONS_VM;
+    private static final MethodHandle CHARGER_CLASSE;
+    private static final MethodHandle EXECUTER_CLASSE;
+    private static final MethodHandle EGAL;
+    private static final MethodHandle CHARGER;
+    private static final MethodHandle TEXTE;
+    private static final MethodHandle NOUVEAU_GENERATEUR;
+    private static final MethodHandle GENERER;
+    private static final Class<? extends Enum> FORME;
+    private static final Class<? extends Enum> TYPE_TOKEN;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> lexer = Class.forName("Lexer");
+            Class<?> lexerParallele = Class.forName("ParallelLexer");
+            Class<?> tokenBuffer = Class.forName("TokenBuffer");
+            Class<?> parser = Class.forName("Parser");
+            Class<?> parserParallele = Class.forName("ParallelParser");
+            Class<?> unite = Class.forName("CompilationUnit");
+            Class<?> ast = Class.forName("Ast");
+            Class<?> backend = Class.forName("JvmBackend");
+            Class<?> compilateurVm = Class.forName("VmCompiler");
+            Class<?> programmeVm = Class.forName("VmProgram");
+            Class<?> vm = Class.forName("RegisterVm");
+            Class<?> runtime = Class.forName("ScriptRuntime");
+            Class<?> chargeur = Class.forName("SourceLoader");
+            Class<?> source = Class.forName("SourceLoader$Source");
+            Class<?> generateur = Class.forName("ProgramGenerator");
+            FORME = Class.forName("ProgramGenerator$Forme").asSubclass(Enum.class);
+            TYPE_TOKEN = Class.forName("Token$TokenType").asSubclass(Enum.class);
+
+            NOUVEAU_LEXER = lookup.findConstructor(lexer, MethodType.methodType(void.class, CharSequence.class))
+                    .asType(MethodType.methodType(Object.class, CharSequence.class));
+            TOKENIZE = objet(lookup.findVirtual(lexer, "tokenize", MethodType.methodType(tokenBuffer)));
+            NOUVEAU_LEXER_PARALLELE = lookup.findConstructor(lexerParallele,
+                            MethodType.methodType(void.class, CharSequence.class))
+                    .asType(MethodType.methodType(Object.class, CharSequence.class));
+            TOKENIZE_PARALLELE = objet(lookup.findVirtual(lexerParallele, "tokenize", MethodType.methodType(tokenBuffer)));
+            NOUVEAU_PARSER = lookup.findConstructor(parser, MethodType.methodType(void.class, tokenBuffer))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            PARSE = objet(lookup.findVirtual(parser, "parse", MethodType.methodType(boolean.class)));
+            ERREURS_PARSER = objet(lookup.findVirtual(parser, "getErrors", MethodType.methodType(java.util.List.class)));
+            NOUVEAU_PARSER_PARALLELE = lookup.findConstructor(parserParallele,
+                            MethodType.methodType(void.class, tokenBuffer))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            PARSE_PARALLELE = objet(lookup.findVirtual(parserParallele, "parse", MethodType.methodType(boolean.class)));
+            ANALYSER = lookup.findStatic(unite, "analyser", MethodType.methodType(unite, CharSequence.class))
+                    .asType(MethodType.methodType(Object.class, CharSequence.class));
+            ERREURS_UNITE = objet(lookup.findVirtual(unite, "getErrors", MethodType.methodType(java.util.List.class)));
+            AST = objet(lookup.findVirtual(unite, "getAst", MethodType.methodType(ast)));
+            TOKENS = objet(lookup.findVirtual(unite, "getTokens", MethodType.methodType(tokenBuffer)));
+            RACINE = objet(lookup.findVirtual(unite, "getRoot", MethodType.methodType(int.class)));
+            NOUVEAU_BACKEND = lookup.findConstructor(backend,
+                            MethodType.methodType(void.class, ast, tokenBuffer, String.class, String.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class, String.class, String.class));
+            COMPILE = objet(lookup.findVirtual(backend, "compile", MethodType.methodType(byte[].class, int.class)));
+            ERREURS_BACKEND = objet(lookup.findVirtual(backend, "getErrors", MethodType.methodType(java.util.List.class)));
+            MOT_CLE = lookup.findStatic(Class.forName("Keywords"), "lookup",
+                            MethodType.methodType(TYPE_TOKEN, CharSequence.class, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, CharSequence.class, int.class, int.class));
+            NOUVEAU_COMPILATEUR_VM = lookup.findConstructor(compilateurVm,
+                            MethodType.methodType(void.class, ast, tokenBuffer))
+                    .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+            COMPILE_VM = objet(lookup.findVirtual(compilateurVm, "compile", MethodType.methodType(programmeVm, int.class)));
+            ERREURS_COMPILATEUR_VM = objet(lookup.findVirtual(compilateurVm, "getErrors",
+                    MethodType.methodType(java.util.List.class)));
+            NOUVELLE_VM = lookup.findConstructor(vm, MethodType.methodType(void.class, programmeVm))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            EXECUTER_VM = objet(lookup.findVirtual(vm, "executer", MethodType.methodType(void.class)));
+            VALEUR_VM = objet(lookup.findVirtual(vm, "valeur", MethodType.methodType(Object.class, String.class)));
+            INSTRUCTIONS_VM = objet(lookup.findVirtual(vm, "getInstructions", MethodType.methodType(long.class)));
+            CHARGER_CLASSE = lookup.findStatic(backend, "charger",
+                    MethodType.methodType(Class.class, String.class, byte[].class));
+            EXECUTER_CLASSE = lookup.findStatic(backend, "executer", MethodType.methodType(void.class, Class.class));
+            EGAL = lookup.findStatic(runtime, "egal", MethodType.methodType(boolean.class, Object.class, Object.class));
+            CHARGER = lookup.findStatic(chargeur, "charger", MethodType.methodType(source, Path.class, Charset.class))
+                    .asType(MethodType.methodType(Object.class, Path.class, Charset.class));
+            TEXTE = objet(lookup.findVirtual(source, "texte", MethodType.methodType(CharSequence.class)));
+            NOUVEAU_GENERATEUR = lookup.findConstructor(generateur, MethodType.methodType(void.class, long.class, FORME))
+                    .asType(MethodType.methodType(Object.class, long.class, Object.class));
+            GENERER = objet(lookup.findVirtual(generateur, "generer", MethodType.methodType(String.class, long.class)));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Compilateur() {
+    }
+
+    /**
+     * Receveur et valeur de retour en Object (types du paquet par défaut)
+     */
+    private static MethodHandle objet(MethodHandle methode) {
+        MethodType type = methode.type().changeParameterType(0, Object.class);
+        if (!methode.type().returnType().isPrimitive()) {
+            type = type.changeReturnType(Object.class);
+        }
+        return methode.asType(type);
+    }
+
+    /**
+     * new Lexer(source).tokenize() : un TokenBuffer
+     */
+    static Object tokenize(CharSequence source) {
+        try {
+            Object lexer = (Object) NOUVEAU_LEXER.invokeExact(source);
+            return (Object) TOKENIZE.invokeExact(lexer);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * new ParallelLexer(source).tokenize() : le même TokenBuffer, lexé par morceaux
+     */
+    static Object tokenizeParallele(CharSequence source) {
+        try {
+            Object lexer = (Object) NOUVEAU_LEXER_PARALLELE.invokeExact(source);
+            return (Object) TOKENIZE_PARALLELE.invokeExact(lexer);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * new Parser(tokens) : le parser, avant parse()
+     */
+    static Object parser(Object tokens) {
+        try {
+            return (Object) NOUVEAU_PARSER.invokeExact(tokens);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    static boolean parse(Object parser) {
+        try {
+            return (boolean) PARSE.invokeExact(parser);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * new ParallelParser(tokens).parse() : les instructions de premier niveau en parallèle
+     */
+    static boolean parseParallele(Object tokens) {
+        try {
+            Object parser = (Object) NOUVEAU_PARSER_PARALLELE.invokeExact(tokens);
+            return (boolean) PARSE_PARALLELE.invokeExact(parser);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    static java.util.List<?> erreursParser(Object parser) {
+        try {
+            return (java.util.List<?>) (Object) ERREURS_PARSER.invokeExact(parser);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * CompilationUnit.analyser(source) : lexer + parser avec construction de l'arbre
+     */
+    static Object analyser(CharSequence source) {
+        try {
+            return (Object) ANALYSER.invokeExact(source);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    static java.util.List<?> erreurs(Object unite) {
+        try {
+            return (java.util.List<?>) (Object) ERREURS_UNITE.invokeExact(unite);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * Bytecode JVM (JvmBackend) d'un programme analysé
+     */
+    static byte[] compilerJvm(Object unite, String nomClasse) {
+        try {
+            Object ast = (Object) AST.invokeExact(unite);
+            Object tokens = (Object) TOKENS.invokeExact(unite);
+            int racine = (int) RACINE.invokeExact(unite);
+            Object backend = (Object) NOUVEAU_BACKEND.invokeExact(ast, tokens, nomClasse, (String) null);
+            return (byte[]) (Object) COMPILE.invokeExact(backend, racine);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * Compile une fois avec le JvmBackend ; IllegalStateException si le
+     * backend signale des erreurs (le benchmark ne mesurerait qu'un échec)
+     */
+    static void verifierJvm(Object unite, String nomClasse) {
+        java.util.List<?> erreurs;
+        byte[] classe;
+        try {
+            Object ast = (Object) AST.invokeExact(unite);
+            Object tokens = (Object) TOKENS.invokeExact(unite);
+            int racine = (int) RACINE.invokeExact(unite);
+            Object backend = (Object) NOUVEAU_BACKEND.invokeExact(ast, tokens, nomClasse, (String) null);
+            classe = (byte[]) (Object) COMPILE.invokeExact(backend, racine);
+            erreurs = (java.util.List<?>) (Object) ERREURS_BACKEND.invokeExact(backend);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+        if (classe == null || !erreurs.isEmpty()) {
+            throw new IllegalStateException("Programme non compilable par le JvmBackend : " + erreurs.size()
+                    + " erreur(s)" + (erreurs.isEmpty() ? "" : ", dont " + erreurs.get(0)));
+        }
+    }
+
+    /**
+     * Keywords.lookup : le Token.TokenType du mot source[debut, debut + longueur)
+     */
+    static Object motCle(CharSequence source, int debut, int longueur) {
+        try {
+            return (Object) MOT_CLE.invokeExact(source, debut, longueur);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * Token.TokenType.valueOf(nom)
+     */
+    @SuppressWarnings("unchecked")
+    static Object typeToken(String nom) {
+        return Enum.valueOf(TYPE_TOKEN, nom);
+    }
+
+    /**
+     * RegisterVm prête à exécuter le programme analysé (VmCompiler) ;
+     * IllegalStateException si le VmCompiler signale des erreurs
+     */
+    static Object machineVirtuelle(Object unite) {
+        try {
+            Object ast = (Object) AST.invokeExact(unite);
+            Object tokens = (Object) TOKENS.invokeExact(unite);
+            int racine = (int) RACINE.invokeExact(unite);
+            Object compilateur = (Object) NOUVEAU_COMPILATEUR_VM.invokeExact(ast, tokens);
+            Object programme = (Object) COMPILE_VM.invokeExact(compilateur, racine);
+            java.util.List<?> erreurs = (java.util.List<?>) (Object) ERREURS_COMPILATEUR_VM.invokeExact(compilateur);
+            if (programme == null || !erreurs.isEmpty()) {
+                throw new IllegalStateException("Programme non compilable par le VmCompiler : " + erreurs);
+            }
+            return (Object) NOUVELLE_VM.invokeExact(programme);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    static void executerVm(Object vm) {
+        try {
+            EXECUTER_VM.invokeExact(vm);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * Valeur d'une variable après executerVm (null si non affectée)
+     */
+    static Object valeurVm(Object vm, String variable) {
+        try {
+            return (Object) VALEUR_VM.invokeExact(vm, variable);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * Instructions exécutées par le dernier executerVm
+     */
+    static long instructionsVm(Object vm) {
+        try {
+            return (long) INSTRUCTIONS_VM.invokeExact(vm);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * JvmBackend.charger : la classe du bytecode, chargée dans la JVM
+     */
+    static Class<?> chargerClasse(String nomClasse, byte[] octets) {
+        try {
+            return (Class<?>) CHARGER_CLASSE.invokeExact(nomClasse, octets);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * JvmBackend.executer : main() de la classe chargée
+     */
+    static void executerClasse(Class<?> classe) {
+        try {
+            EXECUTER_CLASSE.invokeExact(classe);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * ScriptRuntime.egal : égalité des valeurs du langage (1 == 1.0)
+     */
+    static boolean egal(Object a, Object b) {
+        try {
+            return (boolean) EGAL.invokeExact(a, b);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * SourceLoader.charger(fichier, charset) : le fichier dans un seul CharBuffer
+     */
+    static Object charger(Path fichier, Charset charset) {
+        try {
+            return (Object) CHARGER.invokeExact(fichier, charset);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    static CharSequence texte(Object source) {
+        try {
+            return (CharSequence) (Object) TEXTE.invokeExact(source);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    /**
+     * new ProgramGenerator(graine, forme).generer(lignes)
+     */
+    @SuppressWarnings("unchecked")
+    static String generer(long graine, String forme, long lignes) {
+        try {
+            Object generateur = (Object) NOUVEAU_GENERATEUR.invokeExact(graine, (Object) Enum.valueOf(FORME, forme));
+            return (String) (Object) GENERER.invokeExact(generateur, lignes);
+        } catch (Throwable t) {
+            throw propager(t);
+        }
+    }
+
+    private static RuntimeException propager(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,116 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconnaissance des mots-clés, en ns par identifiant
+ *
+ * Compare Keywords.lookup (switch longueur / premier caractère, sans String)
+ * avec l'ancienne méthode du Lexer (substring + HashMap.getOrDefault) sur un
+ * texte riche en identifiants. La table de l'ancienne méthode n'existe plus
+ * que dans ce benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(KeywordBenchmark.IDENTIFIANTS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordBenchmark {
+
+    static final int IDENTIFIANTS = 200_000;
+
+    private static final String[] MOTS = {
+            "switch", "case", "default", "break", "x", "nom", "age", "total",
+            "compteur", "True", "False", "and", "or", "not", "valeur_1", "i",
+            "resultat", "BENOUADFEL", "Yacine", "print", "elif", "else", "if",
+            "index", "continue", "liste_des_elements_tres_longue", "range", "in"
+    };
+
+    private Map<String, Object> table;
+    private Object identifiant;
+    private String source;
+    private int[] debuts;
+    private int[] longueurs;
+
+    @Setup
+    public void preparer() {
+        table = ancienneTable();
+        identifiant = Compilateur.typeToken("IDENTIFIER");
+
+        // Texte source et positions des identifiants
+        Random random = new Random(42);
+        StringBuilder texte = new StringBuilder();
+        debuts = new int[IDENTIFIANTS];
+        longueurs = new int[IDENTIFIANTS];
+        for (int i = 0; i < IDENTIFIANTS; i++) {
+            String mot = MOTS[random.nextInt(MOTS.length)];
+            debuts[i] = texte.length();
+            longueurs[i] = mot.length();
+            texte.append(mot).append(' ');
+        }
+        source = texte.toString();
+
+        // Les deux méthodes doivent donner le même résultat
+        for (int i = 0; i < IDENTIFIANTS; i++) {
+            if (parTable(debuts[i], longueurs[i]) != Compilateur.motCle(source, debuts[i], longueurs[i])) {
+                throw new IllegalStateException("Résultat différent pour "
+                        + source.substring(debuts[i], debuts[i] + longueurs[i]));
+            }
+        }
+    }
+
+    @Benchmark
+    public int hashMap() {
+        int mots = 0;
+        for (int i = 0; i < IDENTIFIANTS; i++) {
+            if (parTable(debuts[i], longueurs[i]) != identifiant) {
+                mots++;
+            }
+        }
+        return mots;
+    }
+
+    @Benchmark
+    public int lookup() {
+        int mots = 0;
+        for (int i = 0; i < IDENTIFIANTS; i++) {
+            if (Compilateur.motCle(source, debuts[i], longueurs[i]) != identifiant) {
+                mots++;
+            }
+        }
+        return mots;
+    }
+
+    // Ancienne méthode du Lexer
+    private Object parTable(int debut, int longueur) {
+        return table.getOrDefault(source.substring(debut, debut + longueur), identifiant);
+    }
+
+    /**
+     * L'ancienne table des mots-clés du Lexer : "switch" → TokenType.SWITCH
+     */
+    private static Map<String, Object> ancienneTable() {
+        String[][] mots = {
+                {"switch", "SWITCH"}, {"case", "CASE"}, {"default", "DEFAULT"}, {"break", "BREAK"},
+                {"if", "IF"}, {"elif", "ELIF"}, {"else", "ELSE"}, {"while", "WHILE"}, {"for", "FOR"},
+                {"in", "IN"}, {"range", "RANGE"},
+                {"def", "DEF"}, {"class", "CLASS"}, {"return", "RETURN"}, {"continue", "CONTINUE"},
+                {"pass", "PASS"},
+                {"and", "AND"}, {"or", "OR"}, {"not", "NOT"},
+                {"True", "BOOLEAN"}, {"False", "BOOLEAN"},
+                {"BENOUADFEL", "BENOUADFEL"}, {"Yacine", "Yacine"}
+        };
+        Map<String, Object> table = new HashMap<>();
+        for (String[] mot : mots) {
+            table.put(mot[0], Compilateur.typeToken(mot[1]));
+        }
+        return table;
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Point d'entrée de benchmarks.jar : les options habituelles de JMH
+ * (filtre, -p taille=..., -f, -wi, ...), avec en plus le profiler gc,
+ * qui donne le débit d'allocation (gc.alloc.rate.norm : octets par opération)
+ *
+ *   java -jar benchmarks/jmh/target/benchmarks.jar
+ *   java -jar benchmarks/jmh/target/benchmarks.jar Parser -p taille=MOYEN
+ */
+public final class Lanceur {
+
+    private Lanceur() {
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        CommandLineOptions ligne;
+        try {
+            ligne = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            System.err.println("Erreur : " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        if (ligne.shouldHelp()) {
+            ligne.showHelp();
+            return;
+        }
+        if (ligne.shouldList()) {
+            new Runner(ligne).list();
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(ligne).addProfiler(GCProfiler.class).build()).run();
+    }
+}
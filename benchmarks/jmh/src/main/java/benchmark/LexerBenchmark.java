@@ -0,0 +1,43 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexer.tokenize : du texte source au TokenBuffer
+ *
+ * tokenizeParallele : le même travail par ParallelLexer (un seul morceau,
+ * donc le Lexer, en dessous de 2 Mi caractères ; GRAND en fait plusieurs)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LexerBenchmark {
+
+    @Param({"PETIT", "MOYEN", "GRAND"})
+    public Programmes taille;
+
+    @Param({"MELANGE"})
+    public String forme;
+
+    private String source;
+
+    @Setup
+    public void preparer() {
+        source = taille.source(forme);
+    }
+
+    @Benchmark
+    public Object tokenize() {
+        return Compilateur.tokenize(source);
+    }
+
+    @Benchmark
+    public Object tokenizeParallele() {
+        return Compilateur.tokenizeParallele(source);
+    }
+}
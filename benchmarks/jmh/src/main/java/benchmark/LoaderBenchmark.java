@@ -0,0 +1,71 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'un fichier source écrit sur disque
+ *
+ *   - readLine : ancienne méthode de Compiler.lireFichier, une String par
+ *     ligne ré-ajoutée avec "\n" dans un StringBuilder, puis toString() ;
+ *   - sourceLoader : SourceLoader.charger, FileChannel d'un bloc (mmap
+ *     au-delà du seuil) décodé directement dans un seul CharBuffer.
+ * Le débit en Mo/s se déduit de la taille affichée par @Setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LoaderBenchmark {
+
+    @Param({"PETIT", "MOYEN", "GRAND"})
+    public Programmes taille;
+
+    @Param({"MELANGE"})
+    public String forme;
+
+    private Path fichier;
+
+    @Setup
+    public void preparer() throws IOException {
+        fichier = Files.createTempFile("loader-benchmark", ".py");
+        Files.writeString(fichier, taille.source(forme), StandardCharsets.UTF_8);
+
+        // Même texte (fichier généré avec des \n et un \n final)
+        if (!readLine().equals(Compilateur.texte(sourceLoader()).toString())) {
+            throw new IllegalStateException("Textes différents pour " + fichier);
+        }
+        System.out.printf("%n%s : %,d octets%n", fichier.getFileName(), Files.size(fichier));
+    }
+
+    @TearDown
+    public void nettoyer() throws IOException {
+        Files.deleteIfExists(fichier);
+    }
+
+    @Benchmark
+    public String readLine() throws IOException {
+        StringBuilder contenu = new StringBuilder();
+        try (BufferedReader reader = new BufferedReader(new FileReader(fichier.toFile(), StandardCharsets.UTF_8))) {
+            String ligne;
+            while ((ligne = reader.readLine()) != null) {
+                contenu.append(ligne).append("\n");
+            }
+        }
+        return contenu.toString();
+    }
+
+    @Benchmark
+    public Object sourceLoader() {
+        return Compilateur.charger(fichier, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parser.parse sur des tokens déjà produits (le Lexer n'est pas mesuré)
+ *
+ * parseParallele : ParallelParser, instructions de premier niveau réparties
+ * sur les cœurs (GRAND seulement : en dessous, un seul Parser) ;
+ * -p forme=GRAND_SWITCH pour des milliers de switch
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    @Param({"PETIT", "MOYEN", "GRAND"})
+    public Programmes taille;
+
+    @Param({"MELANGE"})
+    public String forme;
+
+    private Object tokens;
+
+    @Setup
+    public void preparer() {
+        tokens = Compilateur.tokenize(taille.source(forme));
+        Object parser = Compilateur.parser(tokens);
+        if (!Compilateur.parse(parser)) {
+            throw new IllegalStateException("Programme de benchmark incorrect : " + Compilateur.erreursParser(parser));
+        }
+    }
+
+    @Benchmark
+    public boolean parse() {
+        // Le TokenBuffer n'est que lu : chaque Parser a son propre curseur
+        return Compilateur.parse(Compilateur.parser(tokens));
+    }
+
+    @Benchmark
+    public boolean parseParallele() {
+        return Compilateur.parseParallele(tokens);
+    }
+}
@@ -0,0 +1,28 @@
+package benchmark;
+
+/**
+ * Tailles des programmes des benchmarks : petit, moyen et très grand
+ *
+ * Les programmes viennent de ProgramGenerator (graine fixe) : deux
+ * exécutions mesurent exactement le même texte. La forme (MELANGE par
+ * défaut, GRAND_SWITCH, IMBRIQUE, CHAINES, EXPRESSIONS, COMPILABLE) se
+ * choisit avec le paramètre forme des benchmarks (-p forme=GRAND_SWITCH).
+ */
+public enum Programmes {
+
+    PETIT(150),
+    MOYEN(15_000),
+    GRAND(1_500_000);
+
+    static final long GRAINE = 42;
+
+    private final long lignes;
+
+    Programmes(long lignes) {
+        this.lignes = lignes;
+    }
+
+    public String source(String forme) {
+        return Compilateur.generer(GRAINE, forme, lignes);
+    }
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exécution d'un programme par la RegisterVm, et du même programme
+ * compilé en bytecode JVM (JvmBackend) pour comparaison
+ *
+ * Le langage n'a pas de boucle : le programme est une longue suite de
+ * blocs de trois switch (entiers denses, entiers épars, chaînes). Le
+ * nombre d'instructions VM d'un passage est affiché par @Setup, pour en
+ * déduire le débit en instructions par seconde.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class VmBenchmark {
+
+    @Param({"500"})
+    public int blocs;
+
+    private Object vm;
+    private Class<?> classe;
+
+    @Setup
+    public void preparer() throws ReflectiveOperationException {
+        Object unite = Compilateur.analyser(programme(blocs));
+        if (!Compilateur.erreurs(unite).isEmpty()) {
+            throw new IllegalStateException("Programme de benchmark incorrect : " + Compilateur.erreurs(unite));
+        }
+        vm = Compilateur.machineVirtuelle(unite);
+        Compilateur.verifierJvm(unite, "BenchmarkProgramme");
+        classe = Compilateur.chargerClasse("BenchmarkProgramme", Compilateur.compilerJvm(unite, "BenchmarkProgramme"));
+
+        // Les deux moteurs doivent calculer le même total
+        Compilateur.executerVm(vm);
+        Compilateur.executerClasse(classe);
+        Object totalVm = Compilateur.valeurVm(vm, "total");
+        Object totalJvm = classe.getField("total").get(null);
+        if (!Compilateur.egal(totalVm, totalJvm)) {
+            throw new IllegalStateException("VM : " + totalVm + ", JVM : " + totalJvm);
+        }
+        System.out.printf("%n%d blocs : %,d instructions VM exécutées par passage (total = %s)%n",
+                blocs, Compilateur.instructionsVm(vm), totalVm);
+    }
+
+    @Benchmark
+    public Object registerVm() {
+        Compilateur.executerVm(vm);
+        return vm;
+    }
+
+    @Benchmark
+    public Object jvmBackend() {
+        Compilateur.executerClasse(classe);
+        return classe;
+    }
+
+    /**
+     * Programme de test : k suit une suite pseudo-aléatoire et chaque bloc
+     * passe par trois switch
+     */
+    private static String programme(int blocs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("k = 1\ntotal = 0\nnom = \"\"\n");
+
+        for (int b = 0; b < blocs; b++) {
+            sb.append("k = (k * 31 + ").append(b).append(") % 97\n");
+
+            // Entiers denses : table de sauts
+            sb.append("switch (k % 16) {\n");
+            for (int c = 0; c < 16; c++) {
+                sb.append("    case ").append(c).append(":\n");
+                sb.append("        total += ").append(c * 3 + 1).append("\n");
+                sb.append("        break\n");
+            }
+            sb.append("}\n");
+
+            // Entiers épars : recherche dichotomique
+            sb.append("switch (k * 1000) {\n");
+            for (int c = 0; c < 97; c += 7) {
+                sb.append("    case ").append(c * 1000).append(":\n");
+                sb.append("        total -= 1\n");
+                sb.append("        nom = \"").append(new String[]{"rouge", "vert", "bleu"}[c % 3]).append("\"\n");
+                sb.append("        break\n");
+            }
+            sb.append("    default:\n");
+            sb.append("        total++\n");
+            sb.append("}\n");
+
+            // Chaînes : table de hachage
+            sb.append("switch (nom) {\n");
+            sb.append("    case \"rouge\":\n        total += 2\n        break\n");
+            sb.append("    case \"vert\":\n        total = total * 1\n        break\n");
+            sb.append("    case \"bleu\":\n        total--\n");
+            sb.append("    default:\n        total += k > 50 and 1 or 2\n");
+            sb.append("}\n");
+        }
+        return sb.toString();
+    }
+}
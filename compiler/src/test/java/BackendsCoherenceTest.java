@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JvmBackend (--run) et RegisterVm (--vm) sur les mêmes programmes
+ *
+ * Les deux exécutions doivent afficher la même chose et s'arrêter sur la
+ * même erreur (message et ligne) : en particulier, dans x += e, la cible
+ * est lue avant e, comme en Python.
+ */
+class BackendsCoherenceTest {
+
+    private static final String[] PROGRAMMES = {
+            "x += 1 / 0\n",
+            "a = [1]\nx -= a[3]\n",
+            "y = 0\nx += 1 / y\n",
+            "x = \"a\"\nx -= 1 / 0\n",
+            "x = 1\nx += ++x\nprint(x)\n",
+            "print(z + 1 / 0)\n",
+            "print(z[1 / 0])\n",
+            "a = [1, 2]\nprint(a[-1 + q])\n",
+            "i = 3\ni += 2.5\ni -= -1\nprint(i, i < 7, 7 <= i, i == 6.5)\n",
+            "s = \"ab\"\ns += \"cd\"\nprint(s, len(s))\ns -= 1\n",
+    };
+
+    private static final int GENERES = 200;
+    private static final int LIGNES = 40;
+
+    @Test
+    void memesSortiesEtMemesErreurs() {
+        for (String source : PROGRAMMES) {
+            assertEquals(executerJvm(source), executerVm(source), source);
+        }
+    }
+
+    /**
+     * Programmes générés : la plupart s'arrêtent sur une variable non
+     * définie ou un type invalide, qui doit être le même des deux côtés
+     */
+    @Test
+    void programmesGeneres() {
+        for (int i = 0; i < GENERES; i++) {
+            String source = new ProgramGenerator(i, ProgramGenerator.Forme.COMPILABLE).generer(LIGNES);
+            assertEquals(executerJvm(source), executerVm(source), "programme généré " + i);
+        }
+    }
+
+    private static String executerJvm(String source) {
+        CompilationUnit unite = CompilationUnit.analyser(source);
+        assertEquals(List.of(), unite.getErrors());
+        JvmBackend backend = new JvmBackend(unite.getAst(), unite.getTokens(), "Coherence", null);
+        byte[] octets = backend.compile(unite.getRoot());
+        assertEquals(List.of(), backend.getErrors());
+        Class<?> programme = JvmBackend.charger("Coherence", octets);
+        return capturer(() -> {
+            try {
+                JvmBackend.executer(programme);
+                return "";
+            } catch (ScriptRuntime.ErreurExecution e) {
+                return "ligne " + JvmBackend.ligne(e, "Coherence") + ": " + e.getMessage();
+            }
+        });
+    }
+
+    private static String executerVm(String source) {
+        CompilationUnit unite = CompilationUnit.analyser(source);
+        assertEquals(List.of(), unite.getErrors());
+        VmCompiler compilateur = new VmCompiler(unite.getAst(), unite.getTokens());
+        VmProgram programme = compilateur.compile(unite.getRoot());
+        assertEquals(List.of(), compilateur.getErrors());
+        RegisterVm vm = new RegisterVm(programme);
+        return capturer(() -> {
+            try {
+                vm.executer();
+                return "";
+            } catch (ScriptRuntime.ErreurExecution e) {
+                return "ligne " + e.getLigne() + ": " + e.getMessage();
+            }
+        });
+    }
+
+    /**
+     * Sortie standard de l'exécution, suivie de l'erreur éventuelle
+     */
+    private static String capturer(java.util.function.Supplier<String> execution) {
+        PrintStream sortie = System.out;
+        ByteArrayOutputStream tampon = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(tampon, true, StandardCharsets.UTF_8));
+        String erreur;
+        try {
+            erreur = execution.get();
+        } finally {
+            System.setOut(sortie);
+        }
+        return tampon.toString(StandardCharsets.UTF_8) + erreur;
+    }
+}
@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IncrementalParser comparé à une analyse complète
+ *
+ * Des programmes générés et des suites de tokens au hasard (erreurs,
+ * instructions ignorées, accolades et chaînes non fermées) subissent des
+ * modifications au hasard ; après chacune, le texte et les erreurs doivent
+ * être exactement ceux d'un Lexer et d'un Parser sur tout le texte. Les
+ * suites de MOTS_REPRISE, courtes, mêlent surtout reprises après erreur et
+ * instructions ignorées, là où les coupes entre segments sont délicates.
+ */
+class IncrementalParserTest {
+
+    private static final int PROGRAMMES = 1_500;
+    private static final int MODIFICATIONS = 25;
+    private static final int LONGUEUR_MAX = 3_000;  // Au-delà, plus de copie d'un morceau du texte
+
+    private static final String[] MOTS = {
+            "switch", "(", ")", "{", "}", "case", "default", ":", "break", "+", "-", "*", "==", "and",
+            "not", "++", "=", "+=", "[", "]", ",", ".", "x", "y", "len", "1", "\"s\"", "\"", "True",
+            "if", "while", "for", "def", "class", "\n", "\n", "\n", "pass", "continue", "@", "#c", "  ",
+            "\nx = ", "\nif ", "\nwhile (", "\nswitch (x) {\ncase 1:\n", "\n}\n", "\ny\n", "\ndefault:\n"
+    };
+    private static final String[] MOTS_REPRISE = {
+            "if", "while", "switch", "(", ")", "{", "}", "\n", "\n", "x", "+", "@", "case", "1", ":",
+            "break", "=", "default", "\nif (", "\nx ", "\nwhile "
+    };
+
+    @Test
+    void reprisesCommeLeParser() {
+        String source = "+while{)}\nif(switch\n@";
+        assertEquals(analyser(source, Parser.LIMITE_ERREURS), new IncrementalParser(source).getErrors());
+    }
+
+    @Test
+    void modificationsAuHasard() {
+        ProgramGenerator.Forme[] formes = ProgramGenerator.Forme.values();
+        Random random = new Random(42);
+        for (int i = 0; i < PROGRAMMES; i++) {
+            String source;
+            if (i % 4 == 0) {
+                ProgramGenerator generateur = new ProgramGenerator(i, formes[i / 4 % formes.length]);
+                generateur.setCasParSwitch(1 + random.nextInt(6));
+                generateur.setProfondeur(1 + random.nextInt(3));
+                generateur.setLongueurChaines(30);
+                source = generateur.generer(3 + random.nextInt(15));
+            } else {
+                source = mots(random, 1 + random.nextInt(40));
+            }
+            int limite = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : Parser.LIMITE_ERREURS;
+
+            IncrementalParser parser = new IncrementalParser(source);
+            parser.setLimiteErreurs(limite);
+            StringBuilder historique = new StringBuilder("programme ").append(i).append(" : ").append(source);
+            for (int m = 0; m < MODIFICATIONS; m++) {
+                assertEquals(source, parser.getSource(), historique.toString());
+                assertEquals(analyser(source, limite), parser.getErrors(), historique.toString());
+
+                int position = random.nextInt(source.length() + 1);
+                int supprimes = random.nextInt(3) == 0 ? Math.min(source.length() - position, random.nextInt(20)) : 0;
+                String insere = random.nextInt(3) == 0 ? "" : mots(random, 1 + random.nextInt(3));
+                if (random.nextInt(10) == 0 && !source.isEmpty() && source.length() < LONGUEUR_MAX) {
+                    int autre = random.nextInt(source.length());
+                    insere = source.substring(Math.min(position, autre), Math.max(position, autre));
+                }
+                historique.append("\n→ modifier(").append(position).append(", ").append(supprimes)
+                        .append(", ").append(insere).append(')');
+
+                parser.modifier(position, supprimes, insere);
+                source = source.substring(0, position) + insere + source.substring(position + supprimes);
+            }
+        }
+    }
+
+    /**
+     * Une frappe dans un gros fichier ne relit que l'instruction modifiée
+     */
+    @Test
+    void seulLeSegmentModifieEstRelu() {
+        String source = new ProgramGenerator(7, ProgramGenerator.Forme.MELANGE).generer(5_000);
+        IncrementalParser parser = new IncrementalParser(source);
+
+        int position = source.indexOf("\n", source.length() / 2) + 1;
+        parser.modifier(position, 0, "z = 1\n");
+        assertTrue(parser.getCaracteresRelus() < source.length() / 20, parser.getCaracteresRelus() + " caractères relus");
+        assertEquals(analyser(parser.getSource(), Parser.LIMITE_ERREURS), parser.getErrors());
+    }
+
+    private static String mots(Random random, int nombre) {
+        String[] mots = random.nextInt(4) == 0 ? MOTS : MOTS_REPRISE;
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < nombre; k++) {
+            sb.append(mots[random.nextInt(mots.length)]).append(random.nextInt(3) == 0 ? "" : " ");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Erreurs d'une analyse complète, comme CompilationUnit
+     */
+    private static List<String> analyser(String source, int limite) {
+        Lexer lexer = new Lexer(source);
+        Parser parser = new Parser(lexer.tokenize());
+        parser.setLimiteErreurs(limite);
+        parser.parse();
+        List<String> erreurs = new ArrayList<>(lexer.getErrors());
+        erreurs.addAll(parser.getErrors());
+        return erreurs;
+    }
+}
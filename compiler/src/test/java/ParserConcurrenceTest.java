@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lexer et Parser sur plusieurs threads à la fois
+ *
+ * Des milliers de programmes générés (certains tronqués, pour passer aussi
+ * par les erreurs) sont analysés en parallèle sur tous les coeurs, puis
+ * comparés à une analyse séquentielle : même résultat, mêmes erreurs et
+ * même arbre. Un état partagé entre instances (champ static) mélange les
+ * analyses et fait échouer la comparaison.
+ */
+class ParserConcurrenceTest {
+
+    private static final int PROGRAMMES = 4_000;
+    private static final int LIGNES = 60;
+    private static final int CAS_PAR_SWITCH = 40;  // Programmes courts : 4 000 arbres en mémoire
+    private static final int LONGUEUR_CHAINES = 200;
+    private static final int THREADS_MIN = 4;  // Entrelacement même sur une machine à un coeur
+
+    @Test
+    void analysesParallelesIdentiquesAuSequentiel() throws Exception {
+        List<String> sources = programmes();
+        List<String> attendus = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            attendus.add(analyser(source));
+        }
+
+        int threads = Math.max(THREADS_MIN, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch depart = new CountDownLatch(1);  // Toutes les tâches démarrent ensemble
+            List<Future<String>> resultats = new ArrayList<>(sources.size());
+            for (String source : sources) {
+                resultats.add(pool.submit(() -> {
+                    depart.await();
+                    return analyser(source);
+                }));
+            }
+            depart.countDown();
+
+            for (int i = 0; i < sources.size(); i++) {
+                assertEquals(attendus.get(i), resultats.get(i).get(1, TimeUnit.MINUTES),
+                        "programme " + i + " analysé en parallèle");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Programmes de toutes les formes, un sur cinq coupé au hasard (erreurs de syntaxe)
+     */
+    private static List<String> programmes() {
+        ProgramGenerator.Forme[] formes = ProgramGenerator.Forme.values();
+        Random random = new Random(42);
+        List<String> sources = new ArrayList<>(PROGRAMMES);
+        for (int i = 0; i < PROGRAMMES; i++) {
+            ProgramGenerator generateur = new ProgramGenerator(i, formes[i % formes.length]);
+            generateur.setCasParSwitch(CAS_PAR_SWITCH);
+            generateur.setLongueurChaines(LONGUEUR_CHAINES);
+            String source = generateur.generer(LIGNES);
+            if (i % 5 == 0) {
+                source = source.substring(0, random.nextInt(source.length()));
+            }
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    /**
+     * Résultat complet d'une analyse sous forme de texte : parse(), erreurs et arbre
+     */
+    private static String analyser(String source) {
+        Lexer lexer = new Lexer(source);
+        TokenBuffer tokens = lexer.tokenize();
+        Parser parser = new Parser(tokens);
+        parser.setBuildAst(true);
+        boolean correct = parser.parse();
+
+        StringBuilder sb = new StringBuilder().append(correct).append('\n');
+        for (String erreur : lexer.getErrors()) {
+            sb.append(erreur).append('\n');
+        }
+        for (String erreur : parser.getErrors()) {
+            sb.append(erreur).append('\n');
+        }
+        if (parser.getRoot() != Ast.AUCUN) {
+            sb.append(parser.getAst().dump(parser.getRoot(), tokens));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imbrication très profonde sur une petite pile
+ *
+ * Parenthèses, listes, appels, indices et switch imbriqués sur des dizaines
+ * de milliers de niveaux sont analysés sur un thread de PILE octets : le
+ * Parser ne dépend pas de la taille de la pile (aucune récursion).
+ */
+class ParserProfondeurTest {
+
+    private static final int NIVEAUX = 50_000;
+    private static final long PILE = 256 * 1024;
+
+    @Test
+    void expressionsImbriquees() throws Exception {
+        assertEquals(List.of(), analyser("x = " + "(".repeat(NIVEAUX) + "1" + ")".repeat(NIVEAUX) + "\n"));
+        assertEquals(List.of(), analyser("x = " + "[".repeat(NIVEAUX) + "1" + "]".repeat(NIVEAUX) + "\n"));
+        assertEquals(List.of(), analyser("x = " + "f(".repeat(NIVEAUX) + "1" + ")".repeat(NIVEAUX) + "\n"));
+        assertEquals(List.of(), analyser("x = a" + "[a".repeat(NIVEAUX) + "]".repeat(NIVEAUX) + "\n"));
+        assertEquals(List.of(), analyser("x = " + "-(not ".repeat(NIVEAUX) + "1" + ")".repeat(NIVEAUX) + "\n"));
+    }
+
+    @Test
+    void switchImbriques() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < NIVEAUX; i++) {
+            sb.append("switch (x) {\ncase ").append(i).append(":\n");
+        }
+        sb.append("x = 1\n").append("}\n".repeat(NIVEAUX));
+        assertEquals(List.of(), analyser(sb.toString()));
+    }
+
+    /**
+     * Les erreurs au fond de l'imbrication sont signalées normalement
+     */
+    @Test
+    void erreurAuFond() throws Exception {
+        List<String> erreurs = analyser("x = " + "(".repeat(NIVEAUX) + "1 +" + ")".repeat(NIVEAUX) + "\ny = 2\n");
+        assertEquals(1, erreurs.size(), erreurs.toString());
+        assertTrue(erreurs.get(0).contains("Expression invalide"), erreurs.toString());
+    }
+
+    private static List<String> analyser(String source) throws InterruptedException {
+        AtomicReference<Object> resultat = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                Parser parser = new Parser(new Lexer(source).tokenize());
+                parser.setBuildAst(true);
+                parser.parse();
+                resultat.set(parser.getErrors());
+            } catch (Throwable e) {
+                resultat.set(e);
+            }
+        }, "petite-pile", PILE);
+        thread.start();
+        thread.join();
+
+        if (resultat.get() instanceof Throwable) {
+            throw new AssertionError("Analyse interrompue", (Throwable) resultat.get());
+        }
+        @SuppressWarnings("unchecked")
+        List<String> erreurs = (List<String>) resultat.get();
+        return erreurs;
+    }
+}
@@ -0,0 +1,164 @@
+import java.util.*;
+
+/**
+ * Classe Ast - Arbre syntaxique compact
+ *
+ * Les noeuds ne sont pas des objets : ils sont rangés dans une « arène »
+ * de tableaux parallèles, un noeud = un indice n :
+ *   kinds[n]        : sorte de noeud (Kind)
+ *   firstChild[n]   : premier fils (AUCUN si feuille)
+ *   nextSibling[n]  : frère suivant (AUCUN si dernier)
+ *   tokens[n]       : indice du token correspondant dans le TokenBuffer
+ *
+ * La mémoire utilisée est prévisible (quelques int par noeud) et un
+ * parcours de l'arbre ne fait que lire des tableaux.
+ *
+ * Fils de chaque sorte de noeud :
+ *   PROGRAM  : instructions
+ *   SWITCH   : expression testée, puis CASE / DEFAULT (plan(n) : SwitchPlan)
+ *   CASE     : valeur, puis instructions (BREAK final éventuel)
+ *   DEFAULT  : instructions (BREAK final éventuel)
+ *   ASSIGN   : NAME, valeur               (token : =, += ou -=)
+ *   INCDEC   : NAME                       (token : ++ ou --)
+ *   EXPR     : expression calculée pour rien (appel de fonction, ...)
+ *   BINARY   : gauche, droite             (token : l'opérateur)
+ *   UNARY    : opérande                   (token : l'opérateur)
+ *   MEMBER   : objet                      (token : le nom après '.')
+ *   INDEX    : objet, indice
+ *   CALL     : fonction, arguments
+ *   LIST     : éléments
+ *   LITERAL, NAME, BREAK, CONTINUE, PASS, IGNORED : aucun
+ */
+public class Ast {
+
+    public enum Kind {
+        PROGRAM, SWITCH, CASE, DEFAULT,
+        ASSIGN, INCDEC, EXPR, BREAK, CONTINUE, PASS, IGNORED,
+        BINARY, UNARY, LITERAL, NAME, MEMBER, INDEX, CALL, LIST
+    }
+
+    public static final int AUCUN = -1;
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private byte[] kinds;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] lastChild;  // Pour ajouter un fils en fin de liste
+    private int[] tokens;
+    private int size;
+    private final Map<Integer, SwitchPlan> plans = new HashMap<>();  // noeud SWITCH → plan
+
+    public Ast() {
+        this(64);
+    }
+
+    public Ast(int capacite) {
+        int cap = Math.max(capacite, 16);
+        kinds = new byte[cap];
+        firstChild = new int[cap];
+        nextSibling = new int[cap];
+        lastChild = new int[cap];
+        tokens = new int[cap];
+        size = 0;
+    }
+
+    /**
+     * Crée un noeud sans fils et retourne son indice
+     */
+    public int add(Kind kind, int token) {
+        if (size == kinds.length) {
+            grow();
+        }
+        int n = size++;
+        kinds[n] = (byte) kind.ordinal();
+        firstChild[n] = AUCUN;
+        nextSibling[n] = AUCUN;
+        lastChild[n] = AUCUN;
+        tokens[n] = token;
+        return n;
+    }
+
+    /**
+     * Ajoute child à la fin des fils de parent (rien si l'un des deux est AUCUN)
+     */
+    public void addChild(int parent, int child) {
+        if (parent == AUCUN || child == AUCUN) {
+            return;
+        }
+        if (lastChild[parent] == AUCUN) {
+            firstChild[parent] = child;
+        } else {
+            nextSibling[lastChild[parent]] = child;
+        }
+        lastChild[parent] = child;
+    }
+
+    private void grow() {
+        int cap = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, cap);
+        firstChild = Arrays.copyOf(firstChild, cap);
+        nextSibling = Arrays.copyOf(nextSibling, cap);
+        lastChild = Arrays.copyOf(lastChild, cap);
+        tokens = Arrays.copyOf(tokens, cap);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Kind kind(int n) {
+        return KINDS[kinds[n]];
+    }
+
+    public int firstChild(int n) {
+        return firstChild[n];
+    }
+
+    public int nextSibling(int n) {
+        return nextSibling[n];
+    }
+
+    public int token(int n) {
+        return tokens[n];
+    }
+
+    public void setPlan(int n, SwitchPlan plan) {
+        plans.put(n, plan);
+    }
+
+    /**
+     * Valeurs des case et aiguillage du noeud SWITCH n (calculés par le Parser)
+     */
+    public SwitchPlan plan(int n) {
+        return plans.get(n);
+    }
+
+    public int childCount(int n) {
+        int count = 0;
+        for (int c = firstChild[n]; c != AUCUN; c = nextSibling[c]) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Affiche l'arbre à partir du noeud n (une ligne par noeud, indentée)
+     */
+    public String dump(int n, TokenBuffer source) {
+        StringBuilder sb = new StringBuilder();
+        dump(n, source, 0, sb);
+        return sb.toString();
+    }
+
+    private void dump(int n, TokenBuffer source, int profondeur, StringBuilder sb) {
+        sb.append("  ".repeat(profondeur)).append(kind(n));
+        if (tokens[n] != AUCUN && source != null) {
+            sb.append(" '").append(source.value(tokens[n])).append('\'');
+        }
+        sb.append('\n');
+        for (int c = firstChild[n]; c != AUCUN; c = nextSibling[c]) {
+            dump(c, source, profondeur + 1, sb);
+        }
+    }
+}
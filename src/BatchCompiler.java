@@ -0,0 +1,258 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+/**
+ * Classe BatchCompiler - Compilation en lot (sans menu)
+ *
+ * Parcourt un ou plusieurs dossiers, compile tous les fichiers .py en
+ * parallèle (un Lexer et un Parser par fichier, sur un ForkJoinPool de
+ * la taille de la machine) puis affiche un résumé compact. Un très gros
+ * fichier est en plus lexé par morceaux (ParallelLexer) et ses instructions
+ * de premier niveau analysées en parallèle (ParallelParser), sur le même pool.
+ *
+ * Usage : java Compiler --batch dossier1 [dossier2 | fichier.py ...]
+ *         (options d'affichage : --quiet, --summary, --verbose, --async ;
+ *         --max-errors=N : au plus N erreurs de syntaxe par fichier ;
+ *         --encoding=nom : jeu de caractères des fichiers, UTF-8 par défaut ;
+ *         --cache[=dossier] [--cache-size=Mo] : les fichiers inchangés ne
+ *         sont pas recompilés, voir CompileCache ;
+ *         --metrics : durée de chaque phase, histogrammes et événements
+ *         JFR, voir CompileMetrics)
+ *
+ * Code de sortie : 0 tout est correct, 1 au moins un fichier a des
+ * erreurs, 2 erreur d'utilisation ou de lecture.
+ */
+public class BatchCompiler {
+
+    public static final int SORTIE_OK = 0;
+    public static final int SORTIE_ERREURS = 1;
+    public static final int SORTIE_ECHEC = 2;
+
+    private static final String EXTENSION = ".py";
+
+    /**
+     * Résultat de la compilation d'un fichier
+     */
+    static class Resultat {
+        final Path fichier;
+        final List<String> erreurs;   // Erreurs lexicales puis syntaxiques
+        final int lexicales;          // Nombre d'erreurs lexicales (en tête de erreurs)
+        final String erreurLecture;   // null si le fichier a pu être lu
+
+        Resultat(Path fichier, List<String> erreurs, int lexicales, String erreurLecture) {
+            this.fichier = fichier;
+            this.erreurs = erreurs;
+            this.lexicales = lexicales;
+            this.erreurLecture = erreurLecture;
+        }
+
+        boolean reussi() {
+            return erreurLecture == null && erreurs.isEmpty();
+        }
+    }
+
+    /**
+     * Compile tous les fichiers trouvés sous les chemins donnés, en relisant
+     * dans le cache le résultat des fichiers inchangés et en mesurant chaque
+     * compilation (charset : des fichiers ; cache, metriques : null si aucun)
+     *
+     * @return le code de sortie du programme
+     */
+    public static int compilerLot(List<String> chemins, Reporter rapport, int limiteErreurs, Charset charset,
+                                  CompileCache cache, CompileMetrics metriques) {
+        if (chemins.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME, "Usage : java Compiler --batch dossier1 [dossier2 | fichier.py ...]");
+            return SORTIE_ECHEC;
+        }
+
+        List<Path> fichiers;
+        try {
+            fichiers = listerFichiers(chemins);
+        } catch (IOException | UncheckedIOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur de parcours: " + e.getMessage());
+            return SORTIE_ECHEC;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        long debut = System.nanoTime();
+
+        List<Resultat> resultats;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            resultats = pool.submit(() -> fichiers.parallelStream()
+                    .map(fichier -> compilerFichier(fichier, limiteErreurs, charset, cache, metriques))
+                    .collect(Collectors.toList())).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return SORTIE_ECHEC;
+        } catch (ExecutionException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur interne: " + e.getCause());
+            return SORTIE_ECHEC;
+        } finally {
+            pool.shutdown();
+        }
+
+        long duree = System.nanoTime() - debut;
+        if (cache != null) {
+            try {
+                cache.nettoyer();
+            } catch (IOException | UncheckedIOException e) {
+                rapport.println(Reporter.Niveau.NORMAL, "⚠️  Nettoyage du cache impossible: " + e.getMessage());
+            }
+        }
+        int sortie = afficherResume(resultats, duree, threads, cache, rapport);
+        if (metriques != null) {
+            metriques.afficher(rapport);
+            rapport.println(Reporter.Niveau.RESUME, "=".repeat(60));
+        }
+        return sortie;
+    }
+
+    /**
+     * Liste (triés) les fichiers .py sous chaque chemin
+     */
+    private static List<Path> listerFichiers(List<String> chemins) throws IOException {
+        List<Path> fichiers = new ArrayList<>();
+
+        for (String chemin : chemins) {
+            Path racine = Paths.get(chemin);
+            if (Files.isDirectory(racine)) {
+                try (Stream<Path> parcours = Files.walk(racine)) {
+                    parcours.filter(p -> Files.isRegularFile(p) && p.toString().endsWith(EXTENSION))
+                            .forEach(fichiers::add);
+                }
+            } else if (Files.isRegularFile(racine)) {
+                fichiers.add(racine);
+            } else {
+                throw new NoSuchFileException(chemin);
+            }
+        }
+
+        Collections.sort(fichiers);
+        return fichiers;
+    }
+
+    /**
+     * Lexe et parse un fichier, sans rien afficher ; relit le résultat dans
+     * le cache si le contenu du fichier y est déjà (et l'y ajoute sinon), et
+     * mesure chaque phase (cache, metriques : null si aucun)
+     */
+    static Resultat compilerFichier(Path fichier, int limiteErreurs, Charset charset, CompileCache cache,
+                                    CompileMetrics metriques) {
+        CompileMetrics.Mesure mesure = metriques == null ? null : metriques.demarrer(fichier);
+        ByteBuffer octets;
+        try {
+            octets = SourceLoader.lireOctets(fichier);
+        } catch (IOException e) {
+            return new Resultat(fichier, Collections.emptyList(), 0, e.toString());
+        }
+        long taille = octets.remaining();
+
+        String cle = null;
+        if (cache != null) {
+            cle = cache.cle(octets);
+            Resultat resultat = cache.lire(cle, fichier);
+            if (resultat != null) {
+                if (mesure != null) {
+                    mesure.lecture(taille);
+                    mesure.terminer(resultat.reussi(), true);
+                }
+                return resultat;
+            }
+        }
+
+        CharSequence code;
+        try {
+            code = SourceLoader.decoder(octets, charset);
+        } catch (IOException e) {
+            return new Resultat(fichier, Collections.emptyList(), 0, e.toString());
+        }
+        if (mesure != null) {
+            mesure.lecture(taille);
+        }
+        Resultat resultat = compilerSource(fichier, code, limiteErreurs, mesure);
+        if (cache != null) {
+            cache.ecrire(cle, resultat);
+        }
+        if (mesure != null) {
+            mesure.terminer(resultat.reussi(), false);
+        }
+        return resultat;
+    }
+
+    /**
+     * Lexe et parse un code déjà en mémoire (fichier : nom affiché)
+     */
+    static Resultat compilerSource(Path fichier, CharSequence code, int limiteErreurs) {
+        return compilerSource(fichier, code, limiteErreurs, null);
+    }
+
+    private static Resultat compilerSource(Path fichier, CharSequence code, int limiteErreurs,
+                                           CompileMetrics.Mesure mesure) {
+        ParallelLexer lexer = new ParallelLexer(code);  // Un gros fichier est lexé sur plusieurs cœurs
+        TokenBuffer tokens = lexer.tokenize();
+        if (mesure != null) {
+            mesure.lexage(tokens.size());
+        }
+
+        ParallelParser parser = new ParallelParser(tokens);  // Les instructions d'un gros fichier aussi
+        parser.setLimiteErreurs(limiteErreurs);
+        parser.parse();
+        if (mesure != null) {
+            mesure.analyse();
+        }
+
+        List<String> erreurs = new ArrayList<>(lexer.getErrors());
+        erreurs.addAll(parser.getErrors());
+        return new Resultat(fichier, erreurs, lexer.getErrors().size(), null);
+    }
+
+    /**
+     * Affiche les fichiers en erreur puis le résumé du lot
+     */
+    private static int afficherResume(List<Resultat> resultats, long duree, int threads, CompileCache cache,
+                                      Reporter rapport) {
+        int reussis = 0;
+        int echoues = 0;
+        int illisibles = 0;
+
+        for (Resultat resultat : resultats) {
+            if (resultat.reussi()) {
+                reussis++;
+            } else if (resultat.erreurLecture != null) {
+                illisibles++;
+                rapport.println(Reporter.Niveau.NORMAL, "❌ " + resultat.fichier + " : " + resultat.erreurLecture);
+            } else {
+                echoues++;
+                rapport.println(Reporter.Niveau.NORMAL, "✗ " + resultat.fichier + " (" + resultat.erreurs.size() + " erreur(s))");
+                for (String erreur : resultat.erreurs) {
+                    rapport.println(Reporter.Niveau.NORMAL, "    " + erreur);
+                }
+            }
+        }
+
+        rapport.println(Reporter.Niveau.RESUME, "=".repeat(60));
+        rapport.printf(Reporter.Niveau.RESUME, "  LOT: %d fichier(s) en %.2f s (%d threads)",
+                resultats.size(), duree / 1e9, threads);
+        rapport.println(Reporter.Niveau.RESUME, "  ✅ Réussis   : " + reussis);
+        rapport.println(Reporter.Niveau.RESUME, "  ❌ Échoués   : " + echoues);
+        if (illisibles > 0) {
+            rapport.println(Reporter.Niveau.RESUME, "  ⚠️  Illisibles : " + illisibles);
+        }
+        if (cache != null) {
+            rapport.println(Reporter.Niveau.RESUME, "  💾 En cache   : " + cache.trouves()
+                    + " (" + cache.ajouts() + " ajouté(s))");
+        }
+        rapport.println(Reporter.Niveau.RESUME, "=".repeat(60));
+
+        if (illisibles > 0) {
+            return SORTIE_ECHEC;
+        }
+        return echoues > 0 ? SORTIE_ERREURS : SORTIE_OK;
+    }
+}
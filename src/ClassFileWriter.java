@@ -0,0 +1,701 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * Classe ClassFileWriter - Écriture d'un fichier .class
+ *
+ * Juste ce qu'il faut au JvmBackend : table des constantes, champs
+ * statiques, méthodes statiques et leur bytecode (sauts, tableswitch,
+ * lookupswitch, numéros de ligne). Un saut trop long pour 16 bits devient
+ * un goto_w (voir Code.resoudre).
+ *
+ * Les classes sont produites au format Java 5 (version 49) : la JVM
+ * vérifie alors le bytecode par inférence de types et n'exige pas de
+ * StackMapTable, que ce générateur n'aurait pas à calculer.
+ */
+public class ClassFileWriter {
+
+    // Opcodes utilisés
+    public static final int ACONST_NULL = 0x01;
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC = 0x12;
+    public static final int LDC_W = 0x13;
+    public static final int LDC2_W = 0x14;
+    public static final int ALOAD = 0x19;
+    public static final int ASTORE = 0x3a;
+    public static final int AASTORE = 0x53;
+    public static final int POP = 0x57;
+    public static final int DUP = 0x59;
+    public static final int IFEQ = 0x99;
+    public static final int IFNE = 0x9a;
+    public static final int GOTO = 0xa7;
+    public static final int GOTO_W = 0xc8;
+    public static final int TABLESWITCH = 0xaa;
+    public static final int LOOKUPSWITCH = 0xab;
+    public static final int RETURN = 0xb1;
+    public static final int GETSTATIC = 0xb2;
+    public static final int PUTSTATIC = 0xb3;
+    public static final int INVOKEVIRTUAL = 0xb6;
+    public static final int INVOKESPECIAL = 0xb7;
+    public static final int INVOKESTATIC = 0xb8;
+    public static final int NEW = 0xbb;
+    public static final int ANEWARRAY = 0xbd;
+    public static final int CHECKCAST = 0xc0;
+    public static final int INSTANCEOF = 0xc1;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int VERSION = 49;
+
+    // Table des constantes
+    private final ByteArrayOutputStream constantes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(constantes);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int nombreConstantes = 1;
+
+    private final String nom;
+    private final String fichierSource;
+    private final ByteArrayOutputStream champs = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream methodes = new ByteArrayOutputStream();
+    private int nombreChamps;
+    private int nombreMethodes;
+
+    /**
+     * @param nom           nom interne de la classe (ex : "Programme")
+     * @param fichierSource nom du fichier source (affiché dans les traces), ou null
+     */
+    public ClassFileWriter(String nom, String fichierSource) {
+        this.nom = nom;
+        this.fichierSource = fichierSource;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    /**
+     * CONSTANTES (chaque constante n'est ajoutée qu'une fois)
+     */
+
+    public int utf8(String valeur) {
+        return constante("U" + valeur, 1, out -> out.writeUTF(valeur));
+    }
+
+    public int classe(String nomInterne) {
+        int n = utf8(nomInterne);
+        return constante("C" + nomInterne, 7, out -> out.writeShort(n));
+    }
+
+    public int chaine(String valeur) {
+        int n = utf8(valeur);
+        return constante("S" + valeur, 8, out -> out.writeShort(n));
+    }
+
+    public int longue(long valeur) {
+        int i = constante("J" + valeur, 5, out -> out.writeLong(valeur));
+        nombreConstantes++;  // Un long occupe deux entrées
+        return i;
+    }
+
+    public int reel(double valeur) {
+        int i = constante("D" + Double.doubleToRawLongBits(valeur), 6, out -> out.writeDouble(valeur));
+        nombreConstantes++;  // Un double occupe deux entrées
+        return i;
+    }
+
+    public int entier(int valeur) {
+        return constante("I" + valeur, 3, out -> out.writeInt(valeur));
+    }
+
+    private int nomEtType(String nom, String descripteur) {
+        int n = utf8(nom);
+        int d = utf8(descripteur);
+        return constante("N" + nom + ":" + descripteur, 12, out -> {
+            out.writeShort(n);
+            out.writeShort(d);
+        });
+    }
+
+    private int reference(int tag, String proprietaire, String nom, String descripteur) {
+        int c = classe(proprietaire);
+        int nt = nomEtType(nom, descripteur);
+        return constante("R" + tag + proprietaire + "." + nom + ":" + descripteur, tag, out -> {
+            out.writeShort(c);
+            out.writeShort(nt);
+        });
+    }
+
+    private interface Ecriture {
+        void ecrire(DataOutputStream out) throws IOException;
+    }
+
+    private int constante(String cle, int tag, Ecriture ecriture) {
+        Integer existant = indices.get(cle);
+        if (existant != null) {
+            return existant;
+        }
+        try {
+            pool.writeByte(tag);
+            ecriture.ecrire(pool);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int indice = nombreConstantes++;
+        if (indice > 0xFFFF) {
+            throw new IllegalStateException("table des constantes pleine");
+        }
+        indices.put(cle, indice);
+        return indice;
+    }
+
+    /**
+     * CHAMPS ET MÉTHODES
+     */
+
+    public void champ(int acces, String nom, String descripteur) {
+        DataOutputStream out = new DataOutputStream(champs);
+        try {
+            out.writeShort(acces);
+            out.writeShort(utf8(nom));
+            out.writeShort(utf8(descripteur));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nombreChamps++;
+    }
+
+    public Code code() {
+        return new Code();
+    }
+
+    public void methode(int acces, String nom, String descripteur, Code code) {
+        byte[] bytecode = code.resoudre();
+        if (bytecode.length > 0xFFFF) {
+            throw new IllegalStateException("méthode " + nom + " trop longue (" + bytecode.length + " octets)");
+        }
+        if (code.pileMax > 0xFFFF || code.localesMax > 0xFFFF) {
+            throw new IllegalStateException("méthode " + nom + " : " + code.pileMax + " valeurs sur la pile, "
+                    + code.localesMax + " variables locales (65535 au plus)");
+        }
+
+        DataOutputStream out = new DataOutputStream(methodes);
+        try {
+            out.writeShort(acces);
+            out.writeShort(utf8(nom));
+            out.writeShort(utf8(descripteur));
+            out.writeShort(1);
+
+            // Attribut Code (avec LineNumberTable)
+            int lignes = code.lignes.size() / 2;
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + bytecode.length + (lignes > 0 ? 8 + 4 * lignes : 0));
+            out.writeShort(code.pileMax);
+            out.writeShort(code.localesMax);
+            out.writeInt(bytecode.length);
+            out.write(bytecode);
+            out.writeShort(0);  // Pas de table d'exceptions
+            if (lignes > 0) {
+                out.writeShort(1);
+                out.writeShort(utf8("LineNumberTable"));
+                out.writeInt(2 + 4 * lignes);
+                out.writeShort(lignes);
+                for (int i = 0; i < code.lignes.size(); i++) {
+                    out.writeShort(code.lignes.get(i));
+                }
+            } else {
+                out.writeShort(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nombreMethodes++;
+    }
+
+    /**
+     * Le fichier .class complet
+     */
+    public byte[] toByteArray() {
+        int thisClass = classe(nom);
+        int superClass = classe("java/lang/Object");
+        int source = fichierSource != null ? utf8(fichierSource) : 0;
+        int sourceFile = fichierSource != null ? utf8("SourceFile") : 0;
+
+        ByteArrayOutputStream octets = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(octets);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(nombreConstantes);
+            constantes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);  // Pas d'interfaces
+            out.writeShort(nombreChamps);
+            champs.writeTo(out);
+            out.writeShort(nombreMethodes);
+            methodes.writeTo(out);
+            if (fichierSource != null) {
+                out.writeShort(1);
+                out.writeShort(sourceFile);
+                out.writeInt(2);
+                out.writeShort(source);
+            } else {
+                out.writeShort(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return octets.toByteArray();
+    }
+
+    /**
+     * Position dans le bytecode, cible d'un saut
+     */
+    public static final class Label {
+        private int position = -1;
+        private int pile = -1;  // Hauteur de pile à l'arrivée
+        private final List<int[]> renvois = new ArrayList<>();  // {instruction, emplacement, largeur}
+    }
+
+    /**
+     * Bytecode d'une méthode en cours d'écriture
+     *
+     * La hauteur de pile est suivie instruction par instruction pour
+     * calculer max_stack ; les sauts vers un label non encore placé sont
+     * complétés par resoudre().
+     */
+    public final class Code {
+        private byte[] octets = new byte[256];
+        private int taille;
+        private int pile;
+        private int pileMax;
+        private int localesMax;
+        private final List<Integer> lignes = new ArrayList<>();  // {pc, ligne}*
+        private final Set<Label> labels = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Code() {
+        }
+
+        public int size() {
+            return taille;
+        }
+
+        /**
+         * Réserve une variable locale et retourne son numéro
+         */
+        public int nouvelleLocale() {
+            return localesMax++;
+        }
+
+        public void locales(int nombre) {
+            localesMax = Math.max(localesMax, nombre);
+        }
+
+        /**
+         * Le code qui suit correspond à cette ligne du source
+         */
+        public void ligne(int ligne) {
+            int n = lignes.size();
+            if (n > 0 && lignes.get(n - 1) == ligne) {
+                return;
+            }
+            if (n > 0 && lignes.get(n - 2) == taille) {
+                lignes.set(n - 1, ligne);
+                return;
+            }
+            lignes.add(taille);
+            lignes.add(ligne);
+        }
+
+        public void op(int opcode, int deltaPile) {
+            octet(opcode);
+            pile(deltaPile);
+        }
+
+        public void constanteEntiere(int valeur) {
+            if (valeur >= -1 && valeur <= 5) {
+                op(ICONST_0 + valeur, 1);
+            } else if (valeur == (byte) valeur) {
+                octet(BIPUSH);
+                octet(valeur);
+                pile(1);
+            } else if (valeur == (short) valeur) {
+                octet(SIPUSH);
+                court(valeur);
+                pile(1);
+            } else {
+                ldc(entier(valeur));
+            }
+        }
+
+        public void ldc(int constante) {
+            if (constante <= 0xFF) {
+                octet(LDC);
+                octet(constante);
+            } else {
+                octet(LDC_W);
+                court(constante);
+            }
+            pile(1);
+        }
+
+        public void ldc2(int constante) {
+            octet(LDC2_W);
+            court(constante);
+            pile(2);
+        }
+
+        public void aload(int locale) {
+            octet(ALOAD);
+            octet(locale);
+            pile(1);
+        }
+
+        public void astore(int locale) {
+            octet(ASTORE);
+            octet(locale);
+            pile(-1);
+        }
+
+        public void type(int opcode, String classeInterne) {
+            octet(opcode);
+            court(classe(classeInterne));
+            pile(opcode == NEW ? 1 : 0);
+        }
+
+        public void champ(int opcode, String proprietaire, String nom, String descripteur) {
+            octet(opcode);
+            court(reference(9, proprietaire, nom, descripteur));
+            int taille = tailleType(descripteur.charAt(0));
+            pile(opcode == GETSTATIC ? taille : -taille);
+        }
+
+        public void appel(int opcode, String proprietaire, String nom, String descripteur) {
+            octet(opcode);
+            court(reference(10, proprietaire, nom, descripteur));
+            int fin = descripteur.indexOf(')');
+            pile(tailleType(descripteur.charAt(fin + 1)) - tailleArguments(descripteur)
+                    - (opcode == INVOKESTATIC ? 0 : 1));
+        }
+
+        /**
+         * Saut (goto, ifeq, ifne, ...) vers un label
+         */
+        public void saut(int opcode, Label cible) {
+            int debut = taille;
+            octet(opcode);
+            pile(opcode == GOTO ? 0 : -1);
+            renvoi(cible, debut, 2);
+            court(0);
+            if (opcode == GOTO) {
+                pile = 0;  // Code inaccessible jusqu'au prochain label
+            }
+        }
+
+        /**
+         * tableswitch : cibles[i] pour la clé bas + i
+         */
+        public void tableswitch(int bas, int haut, Label defaut, Label[] cibles) {
+            int debut = taille;
+            octet(TABLESWITCH);
+            pile(-1);
+            alignement();
+            renvoi(defaut, debut, 4);
+            entier4(0);
+            entier4(bas);
+            entier4(haut);
+            for (Label cible : cibles) {
+                renvoi(cible, debut, 4);
+                entier4(0);
+            }
+            pile = 0;
+        }
+
+        /**
+         * lookupswitch : cles triées par ordre croissant
+         */
+        public void lookupswitch(Label defaut, int[] cles, Label[] cibles) {
+            int debut = taille;
+            octet(LOOKUPSWITCH);
+            pile(-1);
+            alignement();
+            renvoi(defaut, debut, 4);
+            entier4(0);
+            entier4(cles.length);
+            for (int i = 0; i < cles.length; i++) {
+                entier4(cles[i]);
+                renvoi(cibles[i], debut, 4);
+                entier4(0);
+            }
+            pile = 0;
+        }
+
+        public void placer(Label label) {
+            if (label.position >= 0) {
+                throw new IllegalStateException("label déjà placé");
+            }
+            label.position = taille;
+            if (label.pile >= 0) {
+                pile = label.pile;
+            }
+        }
+
+        private void renvoi(Label cible, int instruction, int largeur) {
+            if (cible.pile < 0) {
+                cible.pile = pile;
+            }
+            cible.renvois.add(new int[]{instruction, taille, largeur});
+            labels.add(cible);
+        }
+
+        /**
+         * Complète les sauts et retourne le bytecode
+         */
+        private byte[] resoudre() {
+            boolean tropLong = false;
+            for (Label label : labels) {
+                if (label.position < 0) {
+                    throw new IllegalStateException("label jamais placé");
+                }
+                for (int[] renvoi : label.renvois) {
+                    int decalage = label.position - renvoi[0];
+                    tropLong |= renvoi[2] == 2 && decalage != (short) decalage;
+                }
+            }
+            if (tropLong) {
+                elargir();
+            }
+
+            for (Label label : labels) {
+                for (int[] renvoi : label.renvois) {
+                    int decalage = label.position - renvoi[0];
+                    if (renvoi[2] == 2) {
+                        if (decalage != (short) decalage) {
+                            throw new IllegalStateException("saut trop long (" + decalage + " octets)");
+                        }
+                        octets[renvoi[1]] = (byte) (decalage >> 8);
+                        octets[renvoi[1] + 1] = (byte) decalage;
+                    } else {
+                        for (int i = 0; i < 4; i++) {
+                            octets[renvoi[1] + i] = (byte) (decalage >> (24 - 8 * i));
+                        }
+                    }
+                }
+                label.renvois.clear();
+            }
+            labels.clear();
+            return Arrays.copyOf(octets, taille);
+        }
+
+        /**
+         * Remplace les sauts de plus de 32 Ko par des goto_w (offset sur 32
+         * bits) : goto devient goto_w, un saut conditionnel devient la
+         * condition inverse qui saute par-dessus un goto_w. Chaque saut
+         * élargi allonge le code et peut en éloigner d'autres : on élargit
+         * jusqu'à ce que tous les sauts courts tiennent, puis on recopie le
+         * bytecode en recalculant le bourrage des tableswitch/lookupswitch,
+         * les labels, les renvois et la table des lignes.
+         */
+        private void elargir() {
+            // Instructions à renvoi (sauts et switchs), dans l'ordre du code
+            int[] positions = new int[8];
+            int nombre = 0;
+            for (Label label : labels) {
+                for (int[] renvoi : label.renvois) {
+                    if (nombre == positions.length) {
+                        positions = Arrays.copyOf(positions, nombre * 2);
+                    }
+                    positions[nombre++] = renvoi[0];
+                }
+            }
+            positions = Arrays.stream(positions, 0, nombre).sorted().distinct().toArray();
+
+            boolean[] large = new boolean[taille];  // Par position de saut
+            int[] decalages = new int[positions.length];  // Allongement cumulé après chaque instruction
+            boolean change = true;
+            while (change) {
+                disposer(positions, large, decalages);
+                change = false;
+                for (Label label : labels) {
+                    for (int[] renvoi : label.renvois) {
+                        if (renvoi[2] == 2 && !large[renvoi[0]]) {
+                            int decalage = nouvelle(label.position, positions, decalages)
+                                    - nouvelle(renvoi[0], positions, decalages);
+                            if (decalage != (short) decalage) {
+                                large[renvoi[0]] = true;
+                                change = true;
+                            }
+                        }
+                    }
+                }
+            }
+
+            // Recopie, instruction élargie par instruction élargie
+            int allongement = positions.length == 0 ? 0 : decalages[positions.length - 1];
+            byte[] sortie = new byte[Math.max(256, taille + allongement)];
+            int lu = 0;
+            int ecrit = 0;
+            for (int position : positions) {
+                System.arraycopy(octets, lu, sortie, ecrit, position - lu);
+                ecrit += position - lu;
+                lu = position;
+                int opcode = octets[position] & 0xFF;
+                if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+                    sortie[ecrit++] = (byte) opcode;
+                    ecrit += bourrage(ecrit - 1);
+                    lu += 1 + bourrage(position);
+                } else if (large[position]) {
+                    if (opcode != GOTO) {
+                        sortie[ecrit++] = (byte) inverse(opcode);
+                        sortie[ecrit++] = 0;
+                        sortie[ecrit++] = 8;  // Après le goto_w
+                    }
+                    sortie[ecrit] = (byte) GOTO_W;
+                    ecrit += 5;
+                    lu += 3;
+                }
+            }
+            System.arraycopy(octets, lu, sortie, ecrit, taille - lu);
+
+            // Renvois, labels et lignes aux nouvelles positions
+            for (Label label : labels) {
+                for (int[] renvoi : label.renvois) {
+                    int instruction = nouvelle(renvoi[0], positions, decalages);
+                    if (renvoi[2] == 4) {
+                        renvoi[1] = instruction + (renvoi[1] - renvoi[0]) - bourrage(renvoi[0]) + bourrage(instruction);
+                    } else if (large[renvoi[0]]) {
+                        int gotoW = (sortie[instruction] & 0xFF) == GOTO_W ? instruction : instruction + 3;
+                        renvoi[1] = gotoW + 1;
+                        renvoi[2] = 4;
+                        renvoi[0] = gotoW;
+                        continue;
+                    } else {
+                        renvoi[1] = instruction + 1;
+                    }
+                    renvoi[0] = instruction;
+                }
+            }
+            for (Label label : labels) {
+                label.position = nouvelle(label.position, positions, decalages);
+            }
+            for (int i = 0; i < lignes.size(); i += 2) {
+                lignes.set(i, nouvelle(lignes.get(i), positions, decalages));
+            }
+            octets = sortie;
+            taille += allongement;
+        }
+
+        /**
+         * Allongement cumulé après chaque instruction à renvoi : +2 pour un
+         * goto élargi, +5 pour un saut conditionnel élargi, la différence de
+         * bourrage pour un switch déplacé
+         */
+        private void disposer(int[] positions, boolean[] large, int[] decalages) {
+            int decalage = 0;
+            for (int i = 0; i < positions.length; i++) {
+                int position = positions[i];
+                int opcode = octets[position] & 0xFF;
+                if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+                    decalage += bourrage(position + decalage) - bourrage(position);
+                } else if (large[position]) {
+                    decalage += opcode == GOTO ? 2 : 5;
+                }
+                decalages[i] = decalage;
+            }
+        }
+
+        /**
+         * Nouvelle position d'une instruction (ou d'un label) : décalée de
+         * l'allongement des instructions qui la précèdent
+         */
+        private int nouvelle(int position, int[] positions, int[] decalages) {
+            int i = Arrays.binarySearch(positions, position);
+            int avant = (i >= 0 ? i : -i - 1) - 1;  // Dernière instruction strictement avant
+            return avant < 0 ? position : position + decalages[avant];
+        }
+
+        /**
+         * Octets de bourrage après un tableswitch/lookupswitch à cette
+         * position (ses offsets sont alignés sur 4 octets)
+         */
+        private int bourrage(int position) {
+            return (4 - (position + 1) % 4) % 4;
+        }
+
+        /**
+         * Saut conditionnel de condition inverse (ifeq ↔ ifne, if_icmplt ↔ if_icmpge, ...)
+         */
+        private int inverse(int opcode) {
+            if (opcode >= IFEQ && opcode <= 0xa6) {
+                return ((opcode - IFEQ) ^ 1) + IFEQ;
+            }
+            if (opcode == 0xc6 || opcode == 0xc7) {
+                return opcode ^ 1;  // ifnull ↔ ifnonnull
+            }
+            throw new IllegalStateException("saut " + opcode + " sans forme large");
+        }
+
+        private void alignement() {
+            while (taille % 4 != 0) {
+                octet(0);
+            }
+        }
+
+        private void pile(int delta) {
+            pile += delta;
+            pileMax = Math.max(pileMax, pile);
+        }
+
+        private void octet(int valeur) {
+            if (taille == octets.length) {
+                octets = Arrays.copyOf(octets, taille * 2);
+            }
+            octets[taille++] = (byte) valeur;
+        }
+
+        private void court(int valeur) {
+            octet(valeur >> 8);
+            octet(valeur);
+        }
+
+        private void entier4(int valeur) {
+            court(valeur >> 16);
+            court(valeur);
+        }
+    }
+
+    private static int tailleType(char type) {
+        return type == 'V' ? 0 : (type == 'J' || type == 'D') ? 2 : 1;
+    }
+
+    private static int tailleArguments(String descripteur) {
+        int total = 0;
+        int i = 1;
+        while (descripteur.charAt(i) != ')') {
+            char c = descripteur.charAt(i);
+            if (c == 'L') {
+                i = descripteur.indexOf(';', i) + 1;
+                total++;
+            } else if (c == '[') {
+                while (descripteur.charAt(i) == '[') {
+                    i++;
+                }
+                i = descripteur.charAt(i) == 'L' ? descripteur.indexOf(';', i) + 1 : i + 1;
+                total++;
+            } else {
+                total += tailleType(c);
+                i++;
+            }
+        }
+        return total;
+    }
+}
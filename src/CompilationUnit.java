@@ -0,0 +1,63 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Classe CompilationUnit - Programme analysé (tokens + arbre syntaxique)
+ *
+ * Regroupe ce que produisent le Lexer et le Parser pour un code source,
+ * afin que les étapes suivantes (JvmBackend, VmCompiler) travaillent sur
+ * l'arbre sans relancer l'analyse.
+ */
+public class CompilationUnit {
+
+    private final TokenBuffer tokens;
+    private final Ast ast;
+    private final int root;
+    private final List<String> errors;  // Erreurs lexicales puis syntaxiques
+
+    private CompilationUnit(TokenBuffer tokens, Ast ast, int root, List<String> errors) {
+        this.tokens = tokens;
+        this.ast = ast;
+        this.root = root;
+        this.errors = errors;
+    }
+
+    /**
+     * Lexe et parse le code, en construisant l'arbre
+     */
+    public static CompilationUnit analyser(CharSequence source) {
+        Lexer lexer = new Lexer(source);
+        TokenBuffer tokens = lexer.tokenize();
+
+        Parser parser = new Parser(tokens);
+        parser.setBuildAst(true);
+        parser.parse();
+
+        List<String> errors = new ArrayList<>(lexer.getErrors());
+        errors.addAll(parser.getErrors());
+        return new CompilationUnit(tokens, parser.getAst(), parser.getRoot(), errors);
+    }
+
+    public static CompilationUnit lire(String fichier) throws IOException {
+        return analyser(Compiler.lireFichier(fichier));
+    }
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    public Ast getAst() {
+        return ast;
+    }
+
+    /**
+     * Indice du noeud PROGRAM dans getAst()
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
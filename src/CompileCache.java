@@ -0,0 +1,372 @@
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Classe CompileCache - Résultats de compilation gardés sur disque
+ *
+ * Un fichier dont le contenu n'a pas changé n'est pas recompilé : son
+ * résultat (erreurs lexicales puis syntaxiques ; aucune erreur = succès)
+ * est relu dans le dossier du cache. La clé est un hachage 128 bits
+ * (MurmurHash3) des octets du source, dont la graine résume tout ce qui
+ * change le résultat : les classes du compilateur lui-même, le jeu de
+ * caractères de lecture et la limite d'erreurs.
+ *
+ * Plusieurs processus peuvent partager le même dossier :
+ *   - une entrée est écrite dans un fichier temporaire puis renommée
+ *     (rename atomique) : un lecteur voit l'entrée entière ou rien ;
+ *   - une clé donne toujours le même contenu : deux écritures de la même
+ *     entrée en même temps sont sans conséquence ;
+ *   - une entrée illisible (tronquée, somme de contrôle fausse, supprimée
+ *     entre-temps) compte comme absente.
+ *
+ * La taille est bornée : après un lot qui a ajouté des entrées, les moins
+ * récemment utilisées (date de modification, remise à jour à chaque
+ * lecture) sont supprimées jusqu'à 90 % de la taille maximale.
+ *
+ * Usage : java Compiler --batch dossier --cache[=dossier] [--cache-size=Mo]
+ */
+public class CompileCache {
+
+    public static final long TAILLE_PAR_DEFAUT = 100L << 20;
+
+    private static final int MAGIQUE = 0x53574343;  // "SWCC"
+    private static final int FORMAT = 1;
+    private static final long TEMPORAIRE_ABANDONNE = 3_600_000;  // ms : reste d'un processus arrêté
+
+    private final Path dossier;
+    private final long tailleMax;
+    private final long graine;
+    private final AtomicInteger trouves = new AtomicInteger();
+    private final AtomicInteger ajouts = new AtomicInteger();
+
+    public CompileCache(Path dossier, long tailleMax, int limiteErreurs, Charset charset) throws IOException {
+        this.dossier = Files.createDirectories(dossier);
+        this.tailleMax = tailleMax;
+        this.graine = graine(limiteErreurs, charset);
+    }
+
+    /**
+     * $XDG_CACHE_HOME/switchcase-compiler, ou ~/.cache/switchcase-compiler
+     */
+    public static Path dossierParDefaut() {
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        Path base = xdg != null && !xdg.isEmpty()
+                ? Paths.get(xdg)
+                : Paths.get(System.getProperty("user.home"), ".cache");
+        return base.resolve("switchcase-compiler");
+    }
+
+    /**
+     * Clé du source (32 chiffres hexadécimaux) ; la position du tampon ne bouge pas
+     */
+    public String cle(ByteBuffer source) {
+        long[] h = murmur3(source, graine);
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[i] = Character.forDigit((int) (h[0] >>> (60 - 4 * i)) & 15, 16);
+            hex[16 + i] = Character.forDigit((int) (h[1] >>> (60 - 4 * i)) & 15, 16);
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Résultat gardé pour cette clé, null s'il n'y en a pas
+     */
+    public BatchCompiler.Resultat lire(String cle, Path fichier) {
+        Path entree = dossier.resolve(cle);
+        byte[] octets;
+        try {
+            octets = Files.readAllBytes(entree);
+        } catch (IOException e) {
+            return null;  // Absente (ou supprimée par un autre processus)
+        }
+
+        BatchCompiler.Resultat resultat = decoder(octets, fichier);
+        if (resultat == null) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entree, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Évincée entre-temps : le résultat lu reste bon
+        }
+        trouves.incrementAndGet();
+        return resultat;
+    }
+
+    /**
+     * Garde le résultat d'une compilation (sans effet si l'écriture échoue)
+     */
+    public void ecrire(String cle, BatchCompiler.Resultat resultat) {
+        if (resultat.erreurLecture != null) {
+            return;
+        }
+        Path temporaire = null;
+        try {
+            temporaire = Files.createTempFile(dossier, cle + ".", ".tmp");
+            Files.write(temporaire, encoder(resultat));
+            Files.move(temporaire, dossier.resolve(cle), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            ajouts.incrementAndGet();
+        } catch (IOException e) {
+            if (temporaire != null) {
+                try {
+                    Files.deleteIfExists(temporaire);
+                } catch (IOException ignoree) {
+                    // Sera supprimé par nettoyer() plus tard
+                }
+            }
+        }
+    }
+
+    public int trouves() {
+        return trouves.get();
+    }
+
+    public int ajouts() {
+        return ajouts.get();
+    }
+
+    /**
+     * Ramène le cache sous sa taille maximale si ce processus y a ajouté des
+     * entrées (supprime les moins récemment utilisées)
+     */
+    public void nettoyer() throws IOException {
+        if (ajouts.get() == 0) {
+            return;
+        }
+
+        List<Path> entrees = new ArrayList<>();
+        Map<Path, Long> tailles = new HashMap<>();
+        Map<Path, Long> dates = new HashMap<>();
+        long total = 0;
+        long maintenant = System.currentTimeMillis();
+
+        try (Stream<Path> contenu = Files.list(dossier)) {
+            for (Path p : (Iterable<Path>) contenu::iterator) {
+                String nom = p.getFileName().toString();
+                if (!estCle(nom.length() > 32 && nom.endsWith(".tmp") ? nom.substring(0, 32) : nom)) {
+                    continue;  // Pas une entrée du cache : jamais supprimé
+                }
+                try {
+                    long date = Files.getLastModifiedTime(p).toMillis();
+                    if (nom.endsWith(".tmp")) {
+                        if (maintenant - date > TEMPORAIRE_ABANDONNE) {
+                            Files.deleteIfExists(p);
+                        }
+                        continue;
+                    }
+                    long taille = Files.size(p);
+                    entrees.add(p);
+                    tailles.put(p, taille);
+                    dates.put(p, date);
+                    total += taille;
+                } catch (IOException e) {
+                    // Supprimée par un autre processus pendant le parcours
+                }
+            }
+        }
+
+        if (total <= tailleMax) {
+            return;
+        }
+        entrees.sort(Comparator.comparingLong(dates::get));
+        long cible = tailleMax / 10 * 9;
+        for (Path p : entrees) {
+            if (total <= cible) {
+                break;
+            }
+            Files.deleteIfExists(p);
+            total -= tailles.get(p);
+        }
+    }
+
+    private static boolean estCle(String nom) {
+        if (nom.length() != 32) {
+            return false;
+        }
+        for (int i = 0; i < nom.length(); i++) {
+            char c = nom.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Entrée : magique, format, nombre d'erreurs lexicales, erreurs (UTF-8),
+     * puis CRC32C de tout ce qui précède
+     */
+    private static byte[] encoder(BatchCompiler.Resultat resultat) throws IOException {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(64);
+        DataOutputStream sortie = new DataOutputStream(octets);
+        sortie.writeInt(MAGIQUE);
+        sortie.writeInt(FORMAT);
+        sortie.writeInt(resultat.lexicales);
+        sortie.writeInt(resultat.erreurs.size());
+        for (String erreur : resultat.erreurs) {
+            byte[] texte = erreur.getBytes(StandardCharsets.UTF_8);
+            sortie.writeInt(texte.length);
+            sortie.write(texte);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(octets.toByteArray());
+        sortie.writeInt((int) crc.getValue());
+        return octets.toByteArray();
+    }
+
+    private static BatchCompiler.Resultat decoder(byte[] octets, Path fichier) {
+        if (octets.length < 20) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(octets, 0, octets.length - 4);
+        ByteBuffer entree = ByteBuffer.wrap(octets);
+        if ((int) crc.getValue() != entree.getInt(octets.length - 4)
+                || entree.getInt() != MAGIQUE || entree.getInt() != FORMAT) {
+            return null;
+        }
+
+        int lexicales = entree.getInt();
+        int nombre = entree.getInt();
+        List<String> erreurs = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            int longueur = entree.getInt();
+            erreurs.add(new String(octets, entree.position(), longueur, StandardCharsets.UTF_8));
+            entree.position(entree.position() + longueur);
+        }
+        return new BatchCompiler.Resultat(fichier, erreurs, lexicales, null);
+    }
+
+    /**
+     * Graine de la clé : classes du compilateur, jeu de caractères, limite d'erreurs
+     */
+    private static long graine(int limiteErreurs, Charset charset) throws IOException {
+        ByteArrayOutputStream config = new ByteArrayOutputStream();
+        DataOutputStream sortie = new DataOutputStream(config);
+        sortie.writeInt(FORMAT);
+        sortie.writeUTF(charset.name());
+        sortie.writeInt(limiteErreurs);
+        long[] version = version();
+        sortie.writeLong(version[0]);
+        sortie.writeLong(version[1]);
+        return murmur3(ByteBuffer.wrap(config.toByteArray()), 0)[0];
+    }
+
+    /**
+     * Version du compilateur : hachage de son jar, ou de ses .class (triés)
+     * s'il tourne depuis un dossier. Toute modification du compilateur
+     * invalide donc le cache.
+     */
+    private static long[] version() throws IOException {
+        Path origine;
+        try {
+            origine = Paths.get(CompileCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException | SecurityException | NullPointerException e) {
+            throw new IOException("emplacement du compilateur inconnu", e);
+        }
+
+        if (!Files.isDirectory(origine)) {
+            return murmur3(ByteBuffer.wrap(Files.readAllBytes(origine)), 0);
+        }
+        ByteArrayOutputStream classes = new ByteArrayOutputStream(1 << 18);
+        List<Path> fichiers;
+        try (Stream<Path> parcours = Files.walk(origine)) {
+            fichiers = parcours.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+        }
+        for (Path p : fichiers) {
+            classes.write(origine.relativize(p).toString().getBytes(StandardCharsets.UTF_8));
+            classes.write(Files.readAllBytes(p));
+        }
+        return murmur3(ByteBuffer.wrap(classes.toByteArray()), 0);
+    }
+
+    /**
+     * MurmurHash3 x64 128 bits (Austin Appleby) de source[position, limite),
+     * graine sur 64 bits
+     */
+    static long[] murmur3(ByteBuffer source, long graine) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        ByteBuffer octets = source.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int debut = octets.position();
+        int longueur = octets.remaining();
+        long h1 = graine;
+        long h2 = graine;
+
+        int i = debut;
+        for (int fin = debut + (longueur & ~15); i < fin; i += 16) {
+            long k1 = octets.getLong(i);
+            long k2 = octets.getLong(i + 8);
+
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // Derniers octets (moins de 16)
+        long k1 = 0;
+        long k2 = 0;
+        int reste = longueur & 15;
+        for (int j = reste - 1; j >= 8; j--) {
+            k2 = (k2 << 8) | (octets.get(i + j) & 0xff);
+        }
+        for (int j = Math.min(reste, 8) - 1; j >= 0; j--) {
+            k1 = (k1 << 8) | (octets.get(i + j) & 0xff);
+        }
+        if (reste > 8) {
+            k2 *= c2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= c1;
+            h2 ^= k2;
+        }
+        if (reste > 0) {
+            k1 *= c1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= c2;
+            h1 ^= k1;
+        }
+
+        h1 ^= longueur;
+        h2 ^= longueur;
+        h1 += h2;
+        h2 += h1;
+        h1 = melanger(h1);
+        h2 = melanger(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    private static long melanger(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,454 @@
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe CompileDaemon - Compilateur résident sur une socket UNIX
+ *
+ * Chaque "java Compiler --stream" paie le démarrage de la JVM et un JIT
+ * froid avant d'analyser le moindre token ; pour des milliers de petits
+ * scripts, c'est l'essentiel du temps. Le démon (--daemon) reste lancé, le
+ * Lexer et le Parser déjà chauds (préchauffage sur un programme généré), et
+ * compile les requêtes reçues sur une socket UNIX : une connexion par thread,
+ * plusieurs connexions en même temps. Le client (--client) ne charge ni le
+ * Lexer ni le Parser : il transmet les requêtes et affiche les réponses.
+ *
+ * Protocole (texte UTF-8, une requête par ligne, plusieurs par connexion) :
+ *   COMPILE chemin   compile le fichier (chemin absolu : le démon a son propre dossier courant)
+ *   SOURCE n         compile les n octets qui suivent la ligne (code en ligne)
+ *   PING             vérifie que le démon répond
+ *   STOP             arrête le démon
+ * Réponse : une ligne JSON par requête, par exemple
+ *   {"fichier":"/tmp/a.py","succes":false,"lexicales":0,"syntaxiques":1,"micros":85,
+ *    "erreurs":["Erreur ligne 2, colonne 5: ..."]}
+ *   {"fichier":"/tmp/b.py","succes":false,"lecture":"java.nio.file.NoSuchFileException: /tmp/b.py"}
+ * ("micros" : lecture et compilation dans le démon, sans le transport)
+ *
+ * Usage : java Compiler --daemon [--socket=chemin] [--max-errors=N] [--encoding=nom]
+ *         java Compiler --client [--socket=chemin] (fichier.py... | - | --ping | --stop)
+ * Socket par défaut : SOCKET_PAR_DEFAUT dans un dossier propre à
+ * l'utilisateur (droits 700) du dossier temporaire. La socket elle-même est
+ * en 600 : les autres utilisateurs ne peuvent ni faire lire leurs fichiers
+ * au démon, ni l'arrêter. Un dossier ou une socket déjà là et appartenant
+ * à un autre utilisateur est refusé.
+ */
+public class CompileDaemon {
+
+    public static final String SOCKET_PAR_DEFAUT = "switchcase-compiler.sock";
+
+    private static final int TAILLE_MAX_SOURCE = 64 << 20;  // Au-delà, SOURCE est refusé
+    private static final int LIGNES_PRECHAUFFAGE = 20_000;
+    private static final int TOURS_PRECHAUFFAGE = 15;
+
+    private final Path socket;
+    private final int limiteErreurs;
+    private final Charset charset;  // Des fichiers COMPILE (SOURCE est toujours en UTF-8)
+    private ServerSocketChannel serveur;
+    private volatile boolean arrete;  // STOP reçu
+
+    public CompileDaemon(Path socket, int limiteErreurs, Charset charset) {
+        this.socket = socket;
+        this.limiteErreurs = limiteErreurs;
+        this.charset = charset;
+    }
+
+    public static Path socketParDefaut() {
+        return Paths.get(System.getProperty("java.io.tmpdir"), "switchcase-" + System.getProperty("user.name"),
+                SOCKET_PAR_DEFAUT);
+    }
+
+    /**
+     * Préchauffe le Lexer et le Parser, ouvre la socket puis sert les
+     * connexions jusqu'à une requête STOP
+     */
+    public void servir(Reporter rapport) throws IOException {
+        long debut = System.nanoTime();
+        String programme = new ProgramGenerator(1, ProgramGenerator.Forme.MELANGE).generer(LIGNES_PRECHAUFFAGE);
+        for (int i = 0; i < TOURS_PRECHAUFFAGE; i++) {
+            BatchCompiler.compilerSource(Paths.get("prechauffage"), programme, limiteErreurs);
+        }
+        long prechauffage = System.nanoTime() - debut;
+
+        if (socket.equals(socketParDefaut())) {
+            preparerDossier(socket.getParent());
+        }
+        if (Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) {
+            verifierProprietaire(socket);
+            if (repond(socket)) {
+                throw new IOException("un démon écoute déjà sur " + socket);
+            }
+            Files.delete(socket);  // Reste d'un démon arrêté brutalement
+        }
+
+        serveur = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serveur.bind(UnixDomainSocketAddress.of(socket));
+        restreindre(socket, "rw-------");
+        Thread nettoyage = new Thread(this::supprimerSocket);
+        Runtime.getRuntime().addShutdownHook(nettoyage);
+
+        rapport.printf(Reporter.Niveau.RESUME, "✅ Démon prêt sur %s (préchauffage %d ms)",
+                socket, prechauffage / 1_000_000);
+        rapport.flush();  // Le Reporter n'est utilisé que par ce thread
+
+        ExecutorService connexions = Executors.newCachedThreadPool(tache -> {
+            Thread thread = new Thread(tache, "CompileDaemon-connexion");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = serveur.accept();
+                } catch (ClosedChannelException e) {
+                    if (arrete) {
+                        break;  // STOP, pendant ou entre deux accept()
+                    }
+                    throw e;
+                }
+                connexions.execute(() -> connexion(client));
+            }
+        } finally {
+            connexions.shutdown();
+            supprimerSocket();
+            Runtime.getRuntime().removeShutdownHook(nettoyage);
+        }
+        rapport.println(Reporter.Niveau.RESUME, "👋 Démon arrêté");
+    }
+
+    public void arreter() {
+        arrete = true;
+        try {
+            serveur.close();
+        } catch (IOException e) {
+            // Déjà fermé
+        }
+    }
+
+    /**
+     * Crée le dossier de la socket par défaut (droits 700), ou vérifie
+     * qu'il est bien à nous et fermé aux autres
+     */
+    private static void preparerDossier(Path dossier) throws IOException {
+        if (!Files.exists(dossier, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(dossier.getParent());
+            try {
+                Files.createDirectory(dossier);
+            } catch (FileAlreadyExistsException e) {
+                // Créé entre-temps : vérifié ci-dessous
+            }
+            restreindre(dossier, "rwx------");
+        }
+        if (!Files.isDirectory(dossier, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException(dossier + " n'est pas un dossier");
+        }
+        verifierProprietaire(dossier);
+        PosixFileAttributeView vue = Files.getFileAttributeView(dossier, PosixFileAttributeView.class,
+                LinkOption.NOFOLLOW_LINKS);
+        if (vue != null) {
+            Set<PosixFilePermission> droits = vue.readAttributes().permissions();
+            droits.removeAll(PosixFilePermissions.fromString("rwx------"));
+            if (!droits.isEmpty()) {
+                throw new IOException(dossier + " est accessible aux autres utilisateurs (chmod 700 " + dossier + ")");
+            }
+        }
+    }
+
+    /**
+     * Refuse un dossier ou une socket d'un autre utilisateur (ce pourrait
+     * être un piège : sa socket recevrait nos requêtes)
+     */
+    private static void verifierProprietaire(Path chemin) throws IOException {
+        UserPrincipal proprietaire = Files.getOwner(chemin, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal moi = chemin.getFileSystem().getUserPrincipalLookupService()
+                .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!proprietaire.equals(moi)) {
+            throw new IOException(chemin + " appartient à " + proprietaire.getName() + ", pas à " + moi.getName());
+        }
+    }
+
+    /**
+     * Droits POSIX d'un chemin que l'on vient de créer (rien à faire sur un
+     * système de fichiers sans ; pas de NOFOLLOW_LINKS, qui ouvre le fichier
+     * et échoue sur une socket)
+     */
+    private static void restreindre(Path chemin, String droits) throws IOException {
+        PosixFileAttributeView vue = Files.getFileAttributeView(chemin, PosixFileAttributeView.class);
+        if (vue != null) {
+            vue.setPermissions(PosixFilePermissions.fromString(droits));
+        }
+    }
+
+    private void supprimerSocket() {
+        try {
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            // Rien à faire : le prochain démon la supprimera
+        }
+    }
+
+    /**
+     * Traite les requêtes d'une connexion, une à une, jusqu'à sa fermeture
+     */
+    private void connexion(SocketChannel canal) {
+        try (canal;
+             InputStream entree = new BufferedInputStream(Channels.newInputStream(canal));
+             Writer sortie = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(canal), StandardCharsets.UTF_8))) {
+            String requete;
+            while ((requete = lireLigne(entree)) != null) {
+                String reponse;
+                if (requete.startsWith("COMPILE ")) {
+                    String chemin = requete.substring("COMPILE ".length());
+                    long debut = System.nanoTime();
+                    Path fichier;
+                    CharSequence code;
+                    try {
+                        fichier = Paths.get(chemin);
+                        code = SourceLoader.charger(fichier, charset).texte();
+                    } catch (IOException | UncheckedIOException | InvalidPathException e) {
+                        reponse = "{\"fichier\":" + json(chemin) + ",\"succes\":false,\"lecture\":" + json(e.toString()) + "}";
+                        envoyer(sortie, reponse);
+                        continue;
+                    }
+                    reponse = resultat(BatchCompiler.compilerSource(fichier, code, limiteErreurs), debut);
+                } else if (requete.startsWith("SOURCE ")) {
+                    int taille;
+                    try {
+                        taille = Integer.parseInt(requete.substring("SOURCE ".length()).trim());
+                    } catch (NumberFormatException e) {
+                        taille = -1;
+                    }
+                    if (taille < 0 || taille > TAILLE_MAX_SOURCE) {
+                        envoyer(sortie, "{\"erreur\":" + json("taille invalide : " + requete) + "}");
+                        return;  // La suite du flux n'est plus lisible
+                    }
+                    byte[] octets = entree.readNBytes(taille);
+                    if (octets.length < taille) {
+                        return;
+                    }
+                    long debut = System.nanoTime();
+                    String code = new String(octets, StandardCharsets.UTF_8);
+                    reponse = resultat(BatchCompiler.compilerSource(Paths.get("<source>"), code, limiteErreurs), debut);
+                } else if (requete.equals("PING")) {
+                    reponse = "{\"pong\":true}";
+                } else if (requete.equals("STOP")) {
+                    envoyer(sortie, "{\"arret\":true}");
+                    arreter();
+                    return;
+                } else {
+                    reponse = "{\"erreur\":" + json("requête inconnue : " + requete) + "}";
+                }
+                envoyer(sortie, reponse);
+            }
+        } catch (IOException e) {
+            // Client parti au milieu d'une requête : rien à lui répondre
+        }
+    }
+
+    private static String resultat(BatchCompiler.Resultat resultat, long debut) {
+        long micros = (System.nanoTime() - debut) / 1_000;
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("{\"fichier\":").append(json(resultat.fichier.toString()))
+                .append(",\"succes\":").append(resultat.reussi())
+                .append(",\"lexicales\":").append(resultat.lexicales)
+                .append(",\"syntaxiques\":").append(resultat.erreurs.size() - resultat.lexicales)
+                .append(",\"micros\":").append(micros)
+                .append(",\"erreurs\":[");
+        for (int i = 0; i < resultat.erreurs.size(); i++) {
+            sb.append(i > 0 ? "," : "").append(json(resultat.erreurs.get(i)));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static void envoyer(Writer sortie, String reponse) throws IOException {
+        sortie.write(reponse);
+        sortie.write('\n');
+        sortie.flush();
+    }
+
+    /**
+     * Une ligne (UTF-8, sans le '\n'), null à la fin du flux
+     */
+    private static String lireLigne(InputStream entree) throws IOException {
+        ByteArrayOutputStream ligne = new ByteArrayOutputStream(128);
+        int c;
+        while ((c = entree.read()) != '\n') {
+            if (c < 0) {
+                return ligne.size() == 0 ? null : ligne.toString(StandardCharsets.UTF_8);
+            }
+            ligne.write(c);
+        }
+        return ligne.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Chaîne JSON (entre guillemets, caractères spéciaux échappés)
+     */
+    static String json(String texte) {
+        StringBuilder sb = new StringBuilder(texte.length() + 2).append('"');
+        for (int i = 0; i < texte.length(); i++) {
+            char c = texte.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c == '\n') {
+                sb.append("\\n");
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Valeur brute (telle qu'écrite : true, 12, "texte"...) d'un champ de
+     * premier niveau d'une réponse JSON, null s'il n'y est pas. Les chaînes
+     * et les tableaux sont sautés : un message d'erreur qui contient
+     * "succes":false ne compte pas.
+     */
+    static String champ(String reponse, String nom) {
+        String cle = json(nom);
+        int profondeur = 0;
+        for (int i = 0; i < reponse.length(); i++) {
+            char c = reponse.charAt(i);
+            if (c == '"') {
+                int debut = i;
+                for (i++; i < reponse.length() && reponse.charAt(i) != '"'; i++) {
+                    if (reponse.charAt(i) == '\\') {
+                        i++;
+                    }
+                }
+                if (profondeur == 1 && reponse.startsWith(cle, debut) && i == debut + cle.length() - 1
+                        && i + 1 < reponse.length() && reponse.charAt(i + 1) == ':') {
+                    int fin = i + 2;
+                    if (fin < reponse.length() && reponse.charAt(fin) == '"') {
+                        for (fin++; fin < reponse.length() && reponse.charAt(fin) != '"'; fin++) {
+                            if (reponse.charAt(fin) == '\\') {
+                                fin++;
+                            }
+                        }
+                        return reponse.substring(i + 2, Math.min(fin + 1, reponse.length()));
+                    }
+                    while (fin < reponse.length() && ",}]".indexOf(reponse.charAt(fin)) < 0) {
+                        fin++;
+                    }
+                    return reponse.substring(i + 2, fin);
+                }
+            } else if (c == '{' || c == '[') {
+                profondeur++;
+            } else if (c == '}' || c == ']') {
+                profondeur--;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Le démon répond-il sur cette socket ?
+     */
+    static boolean repond(Path socket) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socket)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Mode --daemon de la ligne de commande
+     *
+     * @return le code de sortie du programme
+     */
+    static int lancer(List<String> arguments, int limiteErreurs, Charset charset, Reporter rapport) {
+        Path socket = socketParDefaut();
+        for (String argument : arguments) {
+            if (argument.startsWith("--socket=")) {
+                socket = Paths.get(argument.substring("--socket=".length()));
+            } else {
+                rapport.println(Reporter.Niveau.RESUME,
+                        "Usage : java Compiler --daemon [--socket=chemin] [--max-errors=N] [--encoding=nom]");
+                return BatchCompiler.SORTIE_ECHEC;
+            }
+        }
+        try {
+            new CompileDaemon(socket, limiteErreurs, charset).servir(rapport);
+            return BatchCompiler.SORTIE_OK;
+        } catch (IOException | UnsupportedOperationException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Démon impossible à lancer : " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+    }
+
+    /**
+     * Mode --client : une requête par fichier ("-" : code lu sur l'entrée
+     * standard), réponses JSON recopiées sur la sortie standard
+     *
+     * @return 0 tout est correct, 1 au moins une erreur, 2 démon injoignable
+     */
+    static int client(List<String> arguments, Reporter rapport) {
+        Path socket = socketParDefaut();
+        List<String> requetes = new ArrayList<>();
+        byte[] entreeStandard = null;
+        try {
+            for (String argument : arguments) {
+                if (argument.startsWith("--socket=")) {
+                    socket = Paths.get(argument.substring("--socket=".length()));
+                } else if (argument.equals("--ping")) {
+                    requetes.add("PING");
+                } else if (argument.equals("--stop")) {
+                    requetes.add("STOP");
+                } else if (argument.equals("-")) {
+                    entreeStandard = System.in.readAllBytes();
+                    requetes.add("SOURCE " + entreeStandard.length);
+                } else {
+                    requetes.add("COMPILE " + Paths.get(argument).toAbsolutePath());
+                }
+            }
+        } catch (IOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur de lecture: " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+        if (requetes.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME,
+                    "Usage : java Compiler --client [--socket=chemin] (fichier.py... | - | --ping | --stop)");
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+
+        int code = BatchCompiler.SORTIE_OK;
+        try (SocketChannel canal = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+             InputStream entree = new BufferedInputStream(Channels.newInputStream(canal));
+             OutputStream sortie = new BufferedOutputStream(Channels.newOutputStream(canal))) {
+            for (String requete : requetes) {
+                sortie.write((requete + "\n").getBytes(StandardCharsets.UTF_8));
+                if (requete.startsWith("SOURCE ")) {
+                    sortie.write(entreeStandard);
+                }
+                sortie.flush();
+                String reponse = lireLigne(entree);
+                if (reponse == null) {
+                    rapport.println(Reporter.Niveau.RESUME, "❌ Le démon a fermé la connexion");
+                    return BatchCompiler.SORTIE_ECHEC;
+                }
+                System.out.write((reponse + "\n").getBytes(StandardCharsets.UTF_8));  // JSON en UTF-8, tel quel
+                System.out.flush();
+                if ("false".equals(champ(reponse, "succes")) || champ(reponse, "erreur") != null) {
+                    code = BatchCompiler.SORTIE_ERREURS;
+                }
+            }
+        } catch (IOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Démon injoignable sur " + socket
+                    + " (java Compiler --daemon) : " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+        return code;
+    }
+}
@@ -0,0 +1,339 @@
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.*;
+
+/**
+ * Classe CompileMetrics - Mesures par phase de chaque compilation
+ *
+ * Pour chaque fichier compilé, une Mesure relève la durée de la lecture,
+ * de l'analyse lexicale et de l'analyse syntaxique, le nombre d'octets et
+ * de tokens, et les octets alloués par le thread qui compile. Chaque mesure
+ * est :
+ *   - publiée en événements JDK Flight Recorder (switchcase.Compilation,
+ *     et switchcase.Phase pour chaque phase), visibles dans JMC ou
+ *     "jfr print --events switchcase.Compilation" ;
+ *   - ajoutée aux histogrammes de latence du lot, affichés à la fin par
+ *     afficher() (nombre, moyenne, p50, p90, p99, max par phase).
+ *
+ * Activé par --metrics (--batch) : sans cette option, aucune classe JFR ni
+ * de management n'est chargée (leur seul chargement coûte plus qu'une
+ * petite compilation). Pour enregistrer les événements :
+ *   java -XX:StartFlightRecording=filename=compil.jfr -jar ... --batch dossier --metrics
+ *
+ * Les histogrammes sont partagés entre les threads du lot ; une Mesure
+ * appartient au thread qui compile.
+ */
+public class CompileMetrics {
+
+    public enum Phase {
+        LECTURE("lecture"),
+        LEXAGE("lexage"),
+        ANALYSE("analyse");
+
+        final String nom;
+
+        Phase(String nom) {
+            this.nom = nom;
+        }
+    }
+
+    private final Histogramme[] phases = new Histogramme[Phase.values().length];
+    private final Histogramme total = new Histogramme();
+    private final LongAdder octets = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+    private final LongAdder alloues = new LongAdder();
+    private final com.sun.management.ThreadMXBean threads;  // null : allocation non mesurable
+
+    public CompileMetrics() {
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = new Histogramme();
+        }
+        com.sun.management.ThreadMXBean bean = null;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (!bean.isThreadAllocatedMemorySupported()) {
+                bean = null;
+            } else if (!bean.isThreadAllocatedMemoryEnabled()) {
+                bean.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+        this.threads = bean;
+    }
+
+    /**
+     * Commence la mesure d'une compilation (phase en cours : LECTURE)
+     */
+    public Mesure demarrer(Path fichier) {
+        return new Mesure(fichier.toString());
+    }
+
+    /**
+     * Une compilation en cours de mesure
+     */
+    public final class Mesure {
+        private final String fichier;
+        private final long debut;
+        private final long alloueDebut;
+        private final long[] durees = new long[Phase.values().length];
+        private final boolean[] faites = new boolean[Phase.values().length];
+        private long dernier;
+        private long octetsLus;
+        private int nombreTokens;
+        private final CompilationEvent evenement = new CompilationEvent();
+        private PhaseEvent phaseEnCours = new PhaseEvent();
+
+        private Mesure(String fichier) {
+            this.fichier = fichier;
+            this.alloueDebut = alloue();
+            evenement.begin();
+            phaseEnCours.begin();
+            this.debut = System.nanoTime();
+            this.dernier = debut;
+        }
+
+        /**
+         * Fin de la lecture (octets : taille du source)
+         */
+        public void lecture(long octets) {
+            octetsLus = octets;
+            fin(Phase.LECTURE);
+        }
+
+        /**
+         * Fin de l'analyse lexicale (tokens produits)
+         */
+        public void lexage(int tokens) {
+            nombreTokens = tokens;
+            fin(Phase.LEXAGE);
+        }
+
+        /**
+         * Fin de l'analyse syntaxique
+         */
+        public void analyse() {
+            fin(Phase.ANALYSE);
+        }
+
+        private void fin(Phase phase) {
+            long maintenant = System.nanoTime();
+            durees[phase.ordinal()] = maintenant - dernier;
+            faites[phase.ordinal()] = true;
+            dernier = maintenant;
+
+            phaseEnCours.end();
+            if (phaseEnCours.shouldCommit()) {
+                phaseEnCours.fichier = fichier;
+                phaseEnCours.phase = phase.nom;
+                phaseEnCours.commit();
+            }
+            phaseEnCours = new PhaseEvent();
+            phaseEnCours.begin();
+        }
+
+        /**
+         * Enregistre la compilation (histogrammes et événement JFR)
+         *
+         * @param enCache le résultat vient du cache : pas de lexage ni d'analyse
+         */
+        public void terminer(boolean succes, boolean enCache) {
+            long duree = System.nanoTime() - debut;
+            long alloue = alloueDebut < 0 ? -1 : alloue() - alloueDebut;
+
+            for (Phase phase : Phase.values()) {
+                if (faites[phase.ordinal()]) {
+                    phases[phase.ordinal()].ajouter(durees[phase.ordinal()]);
+                }
+            }
+            total.ajouter(duree);
+            octets.add(octetsLus);
+            tokens.add(nombreTokens);
+            if (alloue > 0) {
+                alloues.add(alloue);
+            }
+
+            evenement.end();
+            if (evenement.shouldCommit()) {
+                evenement.fichier = fichier;
+                evenement.succes = succes;
+                evenement.enCache = enCache;
+                evenement.octets = octetsLus;
+                evenement.tokens = nombreTokens;
+                evenement.lecture = durees[Phase.LECTURE.ordinal()];
+                evenement.lexage = durees[Phase.LEXAGE.ordinal()];
+                evenement.analyse = durees[Phase.ANALYSE.ordinal()];
+                long lexage = durees[Phase.LEXAGE.ordinal()];
+                evenement.tokensParSeconde = lexage > 0 ? nombreTokens * 1e9 / lexage : 0;
+                evenement.alloues = alloue;
+                evenement.commit();
+            }
+        }
+    }
+
+    private long alloue() {
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Affiche les histogrammes et les totaux du lot
+     */
+    public void afficher(Reporter rapport) {
+        if (!rapport.affiche(Reporter.Niveau.RESUME)) {
+            return;
+        }
+        rapport.println(Reporter.Niveau.RESUME, "  MÉTRIQUES (" + total.nombre() + " compilation(s))");
+        rapport.printf(Reporter.Niveau.RESUME, "  %-9s %7s %10s %10s %10s %10s %10s",
+                "phase", "nombre", "moyenne", "p50", "p90", "p99", "max");
+        for (Phase phase : Phase.values()) {
+            afficher(rapport, phase.nom, phases[phase.ordinal()]);
+        }
+        afficher(rapport, "total", total);
+
+        long lexage = phases[Phase.LEXAGE.ordinal()].somme();
+        rapport.printf(Reporter.Niveau.RESUME, "  %d octet(s), %d token(s), %.2f M tokens/s (lexage)",
+                octets.sum(), tokens.sum(), lexage > 0 ? tokens.sum() * 1e3 / lexage : 0.0);
+        if (threads != null) {
+            rapport.printf(Reporter.Niveau.RESUME, "  %.1f Mo alloué(s), %.0f octet(s) par token",
+                    alloues.sum() / 1e6, tokens.sum() > 0 ? (double) alloues.sum() / tokens.sum() : 0.0);
+        }
+    }
+
+    private static void afficher(Reporter rapport, String nom, Histogramme h) {
+        if (h.nombre() == 0) {
+            return;
+        }
+        rapport.printf(Reporter.Niveau.RESUME, "  %-9s %7d %10s %10s %10s %10s %10s", nom, h.nombre(),
+                duree(h.somme() / h.nombre()), duree(h.quantile(0.50)), duree(h.quantile(0.90)),
+                duree(h.quantile(0.99)), duree(h.max()));
+    }
+
+    private static String duree(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1f µs", nanos / 1e3);
+        }
+        return String.format("%.2f ms", nanos / 1e6);
+    }
+
+    /**
+     * Histogramme de durées (ns) à classes logarithmiques : 8 sous-classes
+     * par puissance de 2, soit 12,5 % d'erreur au plus sur un quantile.
+     * Sans verrou : plusieurs threads peuvent y ajouter en même temps.
+     */
+    static final class Histogramme {
+        private static final int SOUS_CLASSES = 8;
+
+        private final AtomicLongArray classes = new AtomicLongArray(64 * SOUS_CLASSES);
+        private final LongAdder nombre = new LongAdder();
+        private final LongAdder somme = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void ajouter(long nanos) {
+            long v = Math.max(nanos, 0);
+            classes.incrementAndGet(classe(v));
+            nombre.increment();
+            somme.add(v);
+            max.accumulate(v);
+        }
+
+        long nombre() {
+            return nombre.sum();
+        }
+
+        long somme() {
+            return somme.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        /**
+         * Borne haute de la classe qui contient le quantile q (0 < q <= 1)
+         */
+        long quantile(double q) {
+            long rang = (long) Math.ceil(q * nombre());
+            long vus = 0;
+            for (int i = 0; i < classes.length(); i++) {
+                vus += classes.get(i);
+                if (vus >= rang && vus > 0) {
+                    return Math.min(borneHaute(i), max());
+                }
+            }
+            return max();
+        }
+
+        private static int classe(long v) {
+            if (v < SOUS_CLASSES) {
+                return (int) v;
+            }
+            int puissance = 63 - Long.numberOfLeadingZeros(v);          // v dans [2^p, 2^(p+1))
+            int sous = (int) (v >>> (puissance - 3)) & (SOUS_CLASSES - 1);
+            return (puissance - 2) * SOUS_CLASSES + sous;
+        }
+
+        private static long borneHaute(int classe) {
+            if (classe < SOUS_CLASSES) {
+                return classe;
+            }
+            int puissance = classe / SOUS_CLASSES + 2;
+            long sous = classe % SOUS_CLASSES;
+            return ((SOUS_CLASSES + sous + 1) << (puissance - 3)) - 1;
+        }
+    }
+
+    @Name("switchcase.Compilation")
+    @Label("Compilation")
+    @Category("Switchcase")
+    @Description("Lecture, analyse lexicale et analyse syntaxique d'un fichier")
+    @StackTrace(false)
+    static class CompilationEvent extends Event {
+        @Label("Fichier")
+        String fichier;
+
+        @Label("Succès")
+        boolean succes;
+
+        @Label("Résultat du cache")
+        boolean enCache;
+
+        @Label("Octets")
+        @DataAmount
+        long octets;
+
+        @Label("Tokens")
+        long tokens;
+
+        @Label("Lecture")
+        @Timespan
+        long lecture;
+
+        @Label("Lexage")
+        @Timespan
+        long lexage;
+
+        @Label("Analyse")
+        @Timespan
+        long analyse;
+
+        @Label("Tokens par seconde (lexage)")
+        double tokensParSeconde;
+
+        @Label("Octets alloués")
+        @DataAmount
+        long alloues;
+    }
+
+    @Name("switchcase.Phase")
+    @Label("Phase de compilation")
+    @Category("Switchcase")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Fichier")
+        String fichier;
+
+        @Label("Phase")
+        String phase;
+    }
+}
@@ -1,4 +1,8 @@
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 /**
@@ -8,10 +12,37 @@ import java.util.*;
  * Il offre un menu interactif pour :
  * 1. Compiler un fichier
  * 2. Entrer du code directement
+ *
+ * Mode flux (sans menu) : java Compiler --stream fichier.py
+ *                         java Compiler --stream -     (entrée standard)
+ * Mode lot (sans menu)  : java Compiler --batch dossier1 [dossier2 ...]
+ * Exécution (bytecode)  : java Compiler --run fichier.py
+ *                         java Compiler --emit fichier.py [dossier]
+ * Exécution (VM)        : java Compiler --vm fichier.py
+ * Génération            : java Compiler --generate [--shape=...] [--lines=N] [--seed=N] [fichier.py]
+ * Démon (socket UNIX)   : java Compiler --daemon [--socket=chemin]
+ *                         java Compiler --client [--socket=chemin] fichier.py... | -
+ *
+ * Options d'affichage (tous les modes sans menu) :
+ *   --quiet    rien (seul le code de sortie compte)
+ *   --summary  résultat final uniquement
+ *   --verbose  tout, y compris les tokens (mode normal par défaut)
+ *   --async    écriture des messages dans un thread séparé
+ * Options d'analyse (--stream, --batch, --daemon) :
+ *   --max-errors=N  arrêt après N erreurs de syntaxe (100 par défaut)
+ *   --encoding=nom  jeu de caractères des fichiers (UTF-8 par défaut, voir SourceLoader)
+ * Options de cache et de mesure (--batch) :
+ *   --cache[=dossier]  fichiers inchangés non recompilés (CompileCache)
+ *   --cache-size=Mo    taille maximale du cache (100 Mo par défaut)
+ *   --metrics          durées par phase, histogrammes, événements JFR (CompileMetrics)
  */
 public class Compiler {
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(executerCommande(args));
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         afficherBanniere();
@@ -37,6 +68,128 @@ public class Compiler {
         }
     }
 
+    /**
+     * Modes sans menu (--stream, --batch, --run, --emit, --vm, --generate, --daemon, --client) et leurs options
+     *
+     * @return le code de sortie du programme
+     */
+    private static int executerCommande(String[] args) {
+        String mode = null;
+        Reporter.Niveau niveau = Reporter.Niveau.NORMAL;
+        boolean asynchrone = false;
+        boolean metriques = false;
+        int limiteErreurs = Parser.LIMITE_ERREURS;
+        Charset charset = SourceLoader.PAR_DEFAUT;
+        Path dossierCache = null;
+        long tailleCache = CompileCache.TAILLE_PAR_DEFAUT;
+        List<String> chemins = new ArrayList<>();
+
+        for (String arg : args) {
+            switch (arg) {
+                case "--stream":
+                case "--batch":
+                case "--run":
+                case "--emit":
+                case "--vm":
+                case "--generate":
+                case "--daemon":
+                case "--client":
+                    mode = arg;
+                    break;
+                case "--quiet":
+                    niveau = Reporter.Niveau.SILENCIEUX;
+                    break;
+                case "--summary":
+                    niveau = Reporter.Niveau.RESUME;
+                    break;
+                case "--verbose":
+                    niveau = Reporter.Niveau.DETAILLE;
+                    break;
+                case "--async":
+                    asynchrone = true;
+                    break;
+                case "--metrics":
+                    metriques = true;
+                    break;
+                case "--cache":
+                    dossierCache = CompileCache.dossierParDefaut();
+                    break;
+                default:
+                    if (arg.startsWith("--cache=")) {
+                        dossierCache = Paths.get(arg.substring("--cache=".length()));
+                        break;
+                    }
+                    if (arg.startsWith("--cache-size=")) {
+                        try {
+                            tailleCache = Long.parseLong(arg.substring("--cache-size=".length())) << 20;
+                        } catch (NumberFormatException e) {
+                            tailleCache = 0;  // Usage
+                        }
+                        break;
+                    }
+                    if (arg.startsWith("--encoding=")) {
+                        try {
+                            charset = Charset.forName(arg.substring("--encoding=".length()));
+                        } catch (IllegalArgumentException e) {
+                            charset = null;  // Usage
+                        }
+                        break;
+                    }
+                    if (arg.startsWith("--max-errors=")) {
+                        try {
+                            limiteErreurs = Integer.parseInt(arg.substring("--max-errors=".length()));
+                        } catch (NumberFormatException e) {
+                            limiteErreurs = 0;  // Usage
+                        }
+                        break;
+                    }
+                    chemins.add(arg);
+            }
+        }
+
+        if (mode == null || limiteErreurs < 1 || tailleCache < 1 || charset == null) {
+            System.out.println("Usage : java Compiler (--stream fichier.py | --batch dossier... | --run fichier.py"
+                    + " | --emit fichier.py [dossier] | --vm fichier.py | --generate [options] [fichier.py]"
+                    + " | --daemon | --client fichier.py...) "
+                    + "[--quiet | --summary | --verbose] [--async] [--max-errors=N] [--encoding=nom] [--cache[=dossier]] [--cache-size=Mo] [--metrics]");
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+
+        Reporter rapport = new Reporter(niveau, System.out, asynchrone);
+        try {
+            if (mode.equals("--stream")) {
+                return compilerFlux(chemins.isEmpty() ? "-" : chemins.get(0), rapport, limiteErreurs, charset) ? 0 : 1;
+            }
+            if (mode.equals("--run") || mode.equals("--emit")) {
+                return JvmBackend.lancer(chemins, mode.equals("--run"), rapport);
+            }
+            if (mode.equals("--vm")) {
+                return RegisterVm.lancer(chemins, rapport);
+            }
+            if (mode.equals("--generate")) {
+                return ProgramGenerator.lancer(chemins, rapport);
+            }
+            if (mode.equals("--daemon")) {
+                return CompileDaemon.lancer(chemins, limiteErreurs, charset, rapport);
+            }
+            if (mode.equals("--client")) {
+                return CompileDaemon.client(chemins, rapport);
+            }
+            CompileCache cache = null;
+            if (dossierCache != null) {
+                try {
+                    cache = new CompileCache(dossierCache, tailleCache, limiteErreurs, charset);
+                } catch (IOException | UncheckedIOException e) {
+                    rapport.println(Reporter.Niveau.NORMAL, "⚠️  Cache désactivé: " + e.getMessage());
+                }
+            }
+            return BatchCompiler.compilerLot(chemins, rapport, limiteErreurs, charset, cache,
+                    metriques ? new CompileMetrics() : null);
+        } finally {
+            rapport.close();
+        }
+    }
+
     /**
      * Affiche la bannière du programme
      */
@@ -77,10 +230,15 @@ public class Compiler {
         String nomFichier = scanner.nextLine().trim();
 
         try {
-            String code = lireFichier(nomFichier);
-            System.out.println("✓ Fichier lu avec succès (" + code.length() + " caractères)");
-            compiler(code, nomFichier);
-        } catch (IOException e) {
+            long debut = System.nanoTime();
+            SourceLoader.Source source = SourceLoader.charger(Paths.get(nomFichier), SourceLoader.PAR_DEFAUT);
+            CharSequence code = source.texte();
+            System.out.printf("✓ Fichier lu avec succès (%d octets, %d caractères en %.2f ms)%n",
+                    source.octets(), source.caracteres(), (System.nanoTime() - debut) / 1e6);
+            Reporter rapport = new Reporter(Reporter.Niveau.DETAILLE, System.out, false);
+            compiler(code, nomFichier, rapport);
+            rapport.flush();
+        } catch (IOException | InvalidPathException e) {
             System.out.println("❌ Erreur de lecture du fichier: " + e.getMessage());
             System.out.println("💡 Vérifiez que le fichier existe et le chemin est correct.");
         }
@@ -128,7 +286,9 @@ public class Compiler {
             return;
         }
 
-        compiler(code.toString(), "saisie directe");
+        Reporter rapport = new Reporter(Reporter.Niveau.DETAILLE, System.out, false);
+        compiler(code, "saisie directe", rapport);
+        rapport.flush();
     }
 
     /**
@@ -138,94 +298,152 @@ public class Compiler {
      * @param source Nom de la source (pour affichage)
      * @return true si compilation réussie, false sinon
      */
-    private static boolean compiler(String code, String source) {
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("  COMPILATION: " + source);
-        System.out.println("=".repeat(60));
+    private static boolean compiler(CharSequence code, String source, Reporter rapport) {
+        rapport.println(Reporter.Niveau.NORMAL, "\n" + "=".repeat(60));
+        rapport.println(Reporter.Niveau.NORMAL, "  COMPILATION: " + source);
+        rapport.println(Reporter.Niveau.NORMAL, "=".repeat(60));
 
         // ====================================
         // ÉTAPE 1: ANALYSE LEXICALE
         // ====================================
-        System.out.println("\n[ÉTAPE 1/2] 🔍 Analyse Lexicale (Tokenisation)...");
-        System.out.println("─".repeat(60));
+        rapport.println(Reporter.Niveau.NORMAL, "\n[ÉTAPE 1/2] 🔍 Analyse Lexicale (Tokenisation)...");
+        rapport.println(Reporter.Niveau.NORMAL, "─".repeat(60));
 
-        Lexer lexer = new Lexer(code);
-        List<Token> tokens = lexer.tokenize();
+        long debut = System.nanoTime();
+        ParallelLexer lexer = new ParallelLexer(code);
+        TokenBuffer tokens = lexer.tokenize();
+        long lexage = System.nanoTime() - debut;
 
         // Vérifier les erreurs lexicales
         List<String> erreursLexicales = lexer.getErrors();
 
         if (!erreursLexicales.isEmpty()) {
-            System.out.println("❌ Erreurs lexicales détectées:");
+            rapport.println(Reporter.Niveau.NORMAL, "❌ Erreurs lexicales détectées:");
             for (String erreur : erreursLexicales) {
-                System.out.println("  • " + erreur);
+                rapport.println(Reporter.Niveau.NORMAL, "  • " + erreur);
             }
         } else {
-            System.out.println("✓ Analyse lexicale réussie !");
+            rapport.println(Reporter.Niveau.NORMAL, "✓ Analyse lexicale réussie !");
+        }
+        if (rapport.affiche(Reporter.Niveau.NORMAL)) {
+            rapport.printf(Reporter.Niveau.NORMAL, "⏱  %d tokens en %.2f ms (%.2f M tokens/s)",
+                    tokens.size(), lexage / 1e6, tokens.size() * 1e3 / Math.max(lexage, 1));
         }
 
         // Afficher les tokens (sauf NEWLINE et EOF pour plus de clarté)
-        System.out.println("\n📋 Tokens reconnus:");
-        int count = 0;
-        for (Token token : tokens) {
-            if (token.getType() != Token.TokenType.EOF &&
-                    token.getType() != Token.TokenType.NEWLINE) {
-                System.out.printf("  %3d. %-20s : '%s'\n",
-                        ++count,
-                        token.getType(),
-                        token.getValue());
+        if (rapport.affiche(Reporter.Niveau.DETAILLE)) {
+            rapport.println(Reporter.Niveau.DETAILLE, "\n📋 Tokens reconnus:");
+            int count = 0;
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.type(i) != Token.TokenType.EOF &&
+                        tokens.type(i) != Token.TokenType.NEWLINE) {
+                    rapport.printf(Reporter.Niveau.DETAILLE, "  %3d. %-20s : '%s'",
+                            ++count,
+                            tokens.type(i),
+                            tokens.value(i));
+                }
             }
+            rapport.println(Reporter.Niveau.DETAILLE, "  Total: " + count + " tokens");
         }
-        System.out.println("  Total: " + count + " tokens");
 
         // ====================================
         // ÉTAPE 2: ANALYSE SYNTAXIQUE
         // ====================================
-        System.out.println("\n[ÉTAPE 2/2] 🔍 Analyse Syntaxique (Parsing)...");
-        System.out.println("─".repeat(60));
+        rapport.println(Reporter.Niveau.NORMAL, "\n[ÉTAPE 2/2] 🔍 Analyse Syntaxique (Parsing)...");
+        rapport.println(Reporter.Niveau.NORMAL, "─".repeat(60));
 
+        debut = System.nanoTime();
         Parser parser = new Parser(tokens);
+        parser.setReporter(rapport);
         boolean syntaxeCorrecte = parser.parse();
+        rapport.printf(Reporter.Niveau.NORMAL, "⏱  Analyse syntaxique en %.2f ms", (System.nanoTime() - debut) / 1e6);
 
-        // ====================================
-        // RÉSUMÉ FINAL
-        // ====================================
-        System.out.println("\n" + "=".repeat(60));
-        System.out.println("                    RÉSULTAT FINAL");
-        System.out.println("=".repeat(60));
+        return afficherResultat(erreursLexicales, parser, syntaxeCorrecte, rapport);
+    }
+
+    /**
+     * Compilation en mode flux : le Parser lit les tokens directement depuis
+     * le Lexer, qui lit le code par morceaux. Rien n'est gardé en mémoire
+     * (pas d'affichage des tokens), donc la taille du code n'est pas limitée.
+     *
+     * @param nomFichier Fichier à compiler, ou "-" pour l'entrée standard
+     * @return true si compilation réussie, false sinon
+     */
+    private static boolean compilerFlux(String nomFichier, Reporter rapport, int limiteErreurs, Charset charset) {
+        boolean entreeStandard = nomFichier.equals("-");
+        String source = entreeStandard ? "entrée standard" : nomFichier;
+
+        rapport.println(Reporter.Niveau.NORMAL, "\n" + "=".repeat(60));
+        rapport.println(Reporter.Niveau.NORMAL, "  COMPILATION (flux): " + source);
+        rapport.println(Reporter.Niveau.NORMAL, "=".repeat(60));
+
+        try (Reader reader = SourceLoader.lecteur(entreeStandard ? System.in : new FileInputStream(nomFichier), charset)) {
+
+            rapport.println(Reporter.Niveau.NORMAL, "\n[ÉTAPES 1+2] 🔍 Analyse Lexicale et Syntaxique...");
+            rapport.println(Reporter.Niveau.NORMAL, "─".repeat(60));
+
+            Lexer lexer = new Lexer(reader);
+            Parser parser = new Parser(lexer);
+            parser.setReporter(rapport);
+            parser.setLimiteErreurs(limiteErreurs);
+            boolean syntaxeCorrecte = parser.parse();
+
+            // Finir la lecture pour relever toutes les erreurs lexicales
+            while (lexer.nextToken() != Token.TokenType.EOF) {
+                // rien
+            }
+
+            List<String> erreursLexicales = lexer.getErrors();
+            if (!erreursLexicales.isEmpty()) {
+                rapport.println(Reporter.Niveau.NORMAL, "❌ Erreurs lexicales détectées:");
+                for (String erreur : erreursLexicales) {
+                    rapport.println(Reporter.Niveau.NORMAL, "  • " + erreur);
+                }
+            }
+
+            return afficherResultat(erreursLexicales, parser, syntaxeCorrecte, rapport);
+        } catch (IOException | UncheckedIOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur de lecture: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Affiche le résumé final de la compilation
+     */
+    private static boolean afficherResultat(List<String> erreursLexicales, Parser parser, boolean syntaxeCorrecte,
+                                            Reporter rapport) {
+        rapport.println(Reporter.Niveau.RESUME, "\n" + "=".repeat(60));
+        rapport.println(Reporter.Niveau.RESUME, "                    RÉSULTAT FINAL");
+        rapport.println(Reporter.Niveau.RESUME, "=".repeat(60));
 
         boolean compilationReussie = erreursLexicales.isEmpty() && syntaxeCorrecte;
 
         if (compilationReussie) {
-            System.out.println("\n  ✅✅✅ COMPILATION RÉUSSIE ✅✅✅");
-            System.out.println("\n  Le code est syntaxiquement correct !");
-            System.out.println("  Aucune erreur détectée.");
+            rapport.println(Reporter.Niveau.RESUME, "\n  ✅✅✅ COMPILATION RÉUSSIE ✅✅✅");
+            rapport.println(Reporter.Niveau.RESUME, "\n  Le code est syntaxiquement correct !");
+            rapport.println(Reporter.Niveau.RESUME, "  Aucune erreur détectée.");
         } else {
-            System.out.println("\n  ❌❌❌ COMPILATION ÉCHOUÉE ❌❌❌");
-            System.out.println("\n  Erreurs détectées:");
-            System.out.println("    • Erreurs lexicales: " + erreursLexicales.size());
-            System.out.println("    • Erreurs syntaxiques: " + parser.getErrors().size());
-            System.out.println("  Total: " + (erreursLexicales.size() + parser.getErrors().size()) + " erreur(s)");
+            rapport.println(Reporter.Niveau.RESUME, "\n  ❌❌❌ COMPILATION ÉCHOUÉE ❌❌❌");
+            rapport.println(Reporter.Niveau.RESUME, "\n  Erreurs détectées:");
+            rapport.println(Reporter.Niveau.RESUME, "    • Erreurs lexicales: " + erreursLexicales.size());
+            rapport.println(Reporter.Niveau.RESUME, "    • Erreurs syntaxiques: " + parser.getErrors().size());
+            rapport.println(Reporter.Niveau.RESUME, "  Total: " + (erreursLexicales.size() + parser.getErrors().size()) + " erreur(s)");
         }
 
-        System.out.println("\n" + "=".repeat(60));
+        rapport.println(Reporter.Niveau.RESUME, "\n" + "=".repeat(60));
 
         return compilationReussie;
     }
 
     /**
-     * Lit un fichier et retourne son contenu
+     * Lit un fichier (UTF-8) et retourne son contenu, voir SourceLoader
      */
-    private static String lireFichier(String nomFichier) throws IOException {
-        StringBuilder contenu = new StringBuilder();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(nomFichier))) {
-            String ligne;
-            while ((ligne = reader.readLine()) != null) {
-                contenu.append(ligne).append("\n");
-            }
+    static CharSequence lireFichier(String nomFichier) throws IOException {
+        try {
+            return SourceLoader.charger(Paths.get(nomFichier), SourceLoader.PAR_DEFAUT).texte();
+        } catch (InvalidPathException e) {
+            throw new IOException(e.getMessage(), e);
         }
-
-        return contenu.toString();
     }
 }
\ No newline at end of file
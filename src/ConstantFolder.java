@@ -0,0 +1,92 @@
+/**
+ * Classe ConstantFolder - Valeur des expressions constantes à la compilation
+ *
+ * Un littéral (INTEGER, FLOAT, STRING, BOOLEAN) est une constante, ainsi
+ * que +, -, *, /, % et le - unaire appliqués à des constantes. Le calcul
+ * passe par ScriptRuntime : une constante vaut exactement ce que vaudrait
+ * l'expression à l'exécution. Une opération qui échouerait à l'exécution
+ * (division par zéro, types incompatibles) n'est pas une constante.
+ */
+public final class ConstantFolder {
+
+    private ConstantFolder() {
+    }
+
+    /**
+     * Valeur d'un littéral (Long, Double, String ou Boolean), null si l'entier déborde
+     */
+    public static Object litteral(Token.TokenType type, String texte) {
+        switch (type) {
+            case INTEGER:
+                try {
+                    return Long.parseLong(chiffresAscii(texte));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            case FLOAT:
+                return Double.parseDouble(chiffresAscii(texte));
+            case BOOLEAN:
+                return texte.equals("True");
+            default:
+                return texte;  // STRING, BENOUADFEL, Yacine
+        }
+    }
+
+    /**
+     * gauche (op) droite, ou null si l'un des deux n'est pas une constante
+     * ou si l'opération n'est pas repliable
+     */
+    public static Object binaire(Token.TokenType operateur, Object gauche, Object droite) {
+        if (gauche == null || droite == null) {
+            return null;
+        }
+        try {
+            switch (operateur) {
+                case PLUS:
+                    return ScriptRuntime.ajouter(gauche, droite);
+                case MINUS:
+                    return ScriptRuntime.soustraire(gauche, droite);
+                case MULTIPLY:
+                    return ScriptRuntime.multiplier(gauche, droite);
+                case DIVIDE:
+                    return ScriptRuntime.diviser(gauche, droite);
+                case MODULO:
+                    return ScriptRuntime.modulo(gauche, droite);
+                default:
+                    return null;
+            }
+        } catch (ScriptRuntime.ErreurExecution e) {
+            return null;
+        }
+    }
+
+    /**
+     * -valeur, ou null si valeur n'est pas un nombre constant
+     */
+    public static Object negatif(Object valeur) {
+        if (valeur instanceof Long || valeur instanceof Double) {
+            return ScriptRuntime.negatif(valeur);
+        }
+        return null;
+    }
+
+    /**
+     * Les chiffres Unicode (٣, ...) acceptés par le Lexer, ramenés à 0-9
+     */
+    private static String chiffresAscii(String texte) {
+        int i = 0;
+        while (i < texte.length() && texte.charAt(i) < 128) {
+            i++;
+        }
+        if (i == texte.length()) {
+            return texte;  // Cas courant : déjà en ASCII
+        }
+        StringBuilder sb = new StringBuilder(texte.length());
+        for (int j = 0; j < texte.length(); ) {
+            int c = texte.codePointAt(j);
+            sb.append(c == '.' ? '.' : (char) ('0' + Character.digit(c, 10)));
+            j += Character.charCount(c);
+        }
+        return sb.toString();
+    }
+}
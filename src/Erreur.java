@@ -0,0 +1,100 @@
+import java.util.*;
+
+/**
+ * Classe Erreur - Une erreur lexicale ou syntaxique, avec sa position
+ *
+ * La ligne, la colonne et le message restent séparés ; le texte
+ * ("Erreur ligne 3, colonne 5: ...") n'est construit qu'à l'affichage
+ * (toString, messages). Un IncrementalParser peut ainsi décaler les lignes
+ * des erreurs d'un segment sans relire leur texte.
+ */
+public final class Erreur {
+
+    private final String genre;       // "Erreur" ou "Erreur lexicale"
+    private final int ligne;
+    private final int colonne;
+    private final String message;
+    private final String trouve;      // Texte du token en cause, null si aucun
+    private final String citation;    // Autre ligne citée : "déjà utilisé ligne", null si aucune
+    private final int ligneCitee;
+
+    private Erreur(String genre, int ligne, int colonne, String message, String trouve,
+                   String citation, int ligneCitee) {
+        this.genre = genre;
+        this.ligne = ligne;
+        this.colonne = colonne;
+        this.message = message;
+        this.trouve = trouve;
+        this.citation = citation;
+        this.ligneCitee = ligneCitee;
+    }
+
+    public static Erreur lexicale(int ligne, int colonne, String message) {
+        return new Erreur("Erreur lexicale", ligne, colonne, message, null, null, 0);
+    }
+
+    /**
+     * Erreur de syntaxe sur le token trouve (null : pas de "(trouvé ...)")
+     */
+    public static Erreur syntaxe(int ligne, int colonne, String message, String trouve) {
+        return new Erreur("Erreur", ligne, colonne, message, trouve, null, 0);
+    }
+
+    /**
+     * Erreur de syntaxe qui cite une autre ligne du code, par exemple
+     * "case 1 en double (déjà utilisé ligne 4)"
+     */
+    public static Erreur syntaxe(int ligne, int colonne, String message, String citation, int ligneCitee) {
+        return new Erreur("Erreur", ligne, colonne, message, null, citation, ligneCitee);
+    }
+
+    /**
+     * La même erreur, lignes + decalage (erreur d'un morceau du code)
+     */
+    public Erreur decaler(int decalage) {
+        if (decalage == 0) {
+            return this;
+        }
+        return new Erreur(genre, ligne + decalage, colonne, message, trouve, citation,
+                citation == null ? 0 : ligneCitee + decalage);
+    }
+
+    public int getLigne() {
+        return ligne;
+    }
+
+    public int getColonne() {
+        return colonne;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(genre.length() + message.length() + 32)
+                .append(genre).append(" ligne ").append(ligne).append(", colonne ").append(colonne)
+                .append(": ").append(message);
+        if (citation != null) {
+            sb.append(" (").append(citation).append(' ').append(ligneCitee).append(')');
+        }
+        if (trouve != null) {
+            sb.append(" (trouvé '").append(trouve).append("')");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Textes des erreurs, mis en forme à la lecture (la liste suit erreurs)
+     */
+    static List<String> messages(List<Erreur> erreurs) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int i) {
+                return erreurs.get(i).toString();
+            }
+
+            @Override
+            public int size() {
+                return erreurs.size();
+            }
+        };
+    }
+}
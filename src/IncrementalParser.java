@@ -0,0 +1,413 @@
+import java.util.*;
+
+/**
+ * Classe IncrementalParser - Analyse incrémentale après de petites modifications
+ *
+ * Pour un éditeur qui relance l'analyse à chaque frappe : le code est
+ * découpé en segments, un par instruction de premier niveau (un switch
+ * entier, une affectation, ...), chacun lexé et parsé séparément. Après
+ * modifier(position, longueurSupprimee, texteInsere), seuls les segments
+ * touchés sont relexés et reparsés ; les autres sont gardés tels quels.
+ *
+ * Les coupes sont celles du Parser lui-même : un segment se termine par la
+ * fin de ligne d'où le Parser passe, entre deux instructions de premier
+ * niveau, au début de la ligne suivante (Parser.parseJusqua, comme
+ * ParallelParser). La reprise après une erreur et les instructions ignorées
+ * (if, while, ...) coupent donc exactement comme une analyse complète. Les
+ * lignes vides sont rattachées au segment qui les suit.
+ *
+ * Si la modification ouvre une accolade ou une chaîne qui n'est pas
+ * refermée dans la zone, les segments suivants sont absorbés jusqu'à
+ * retomber sur une fin d'instruction.
+ *
+ * getErrors() donne les mêmes messages qu'une analyse complète du texte
+ * (erreurs lexicales puis syntaxiques, numéros de ligne compris) : chaque
+ * segment garde ses erreurs avec leur position (Erreur), décalées de ses
+ * lignes précédentes au moment de les mettre en forme.
+ */
+public class IncrementalParser {
+
+    /**
+     * Un segment analysé (numéros de ligne relatifs : le segment commence ligne 1)
+     */
+    private static final class Segment {
+        final String texte;
+        final int retours;                  // Nombre de NEWLINE
+        final int premiereLigne;            // Longueur jusqu'à la fin de la ligne du premier token hors NEWLINE
+        final boolean ignore;               // Contient if, while, ... : peut finir par une instruction ignorée
+        final List<Erreur> erreursLexicales;
+        final List<Erreur> erreursSyntaxe;
+
+        /**
+         * Les tokens debut..fin-1 de la zone, où le segment commence à la
+         * position et après ligne lignes
+         */
+        Segment(String texte, TokenBuffer tokens, int debut, int fin, int position, int ligne,
+                List<Erreur> erreursLexicales, List<Erreur> erreursSyntaxe) {
+            this.texte = texte;
+
+            int nombreRetours = 0;
+            boolean significatif = false;
+            int finLigne = texte.length();
+            boolean instructionIgnoree = false;
+            for (int t = debut; t < fin; t++) {
+                Token.TokenType type = tokens.type(t);
+                if (type == Token.TokenType.NEWLINE) {
+                    nombreRetours++;
+                    if (significatif && finLigne == texte.length()) {
+                        finLigne = tokens.start(t) + tokens.length(t) - position;
+                    }
+                } else {
+                    significatif = true;
+                }
+                instructionIgnoree |= estIgnoree(type);
+            }
+            this.retours = nombreRetours;
+            this.premiereLigne = finLigne;
+            this.ignore = instructionIgnoree;
+
+            this.erreursLexicales = decaler(erreursLexicales, ligne);
+            this.erreursSyntaxe = decaler(erreursSyntaxe, ligne);
+        }
+
+        private static List<Erreur> decaler(List<Erreur> erreurs, int lignes) {
+            List<Erreur> decalees = new ArrayList<>(erreurs.size());
+            for (Erreur erreur : erreurs) {
+                decalees.add(erreur.decaler(-lignes));
+            }
+            return decalees;
+        }
+    }
+
+    // Segments dans l'ordre du texte (tableaux parallèles)
+    private Segment[] segments = new Segment[16];
+    private int[] debuts = new int[16];   // Position du premier caractère
+    private int[] lignes = new int[16];   // Nombre de lignes avant le segment
+    private int nombre;
+    private int longueur;                 // Longueur totale du texte
+
+    // À partir du segment decales, debuts et lignes attendent encore le
+    // décalage des modifications : une modification ne corrige que les
+    // segments entre elle et la précédente
+    private int decales;
+    private int decalage;
+    private int decalageLignes;
+
+    private int relus;                    // Caractères analysés par la dernière modification
+    private int limiteErreurs = Parser.LIMITE_ERREURS;
+
+    public IncrementalParser(CharSequence source) {
+        String texte = source.toString();
+        remplacer(0, -1, decouper(texte, ""));
+        longueur = texte.length();
+        relus = texte.length();
+    }
+
+    /**
+     * Nombre d'erreurs de syntaxe après lequel une analyse complète se serait
+     * arrêtée (Parser.LIMITE_ERREURS par défaut) : getErrors() n'en donne pas plus
+     */
+    public void setLimiteErreurs(int limiteErreurs) {
+        this.limiteErreurs = Math.max(1, limiteErreurs);
+    }
+
+    /**
+     * Remplace longueurSupprimee caractères à partir de position par texteInsere,
+     * puis réanalyse les segments concernés
+     */
+    public void modifier(int position, int longueurSupprimee, CharSequence texteInsere) {
+        if (position < 0 || longueurSupprimee < 0 || position + longueurSupprimee > longueur) {
+            throw new IllegalArgumentException("Modification hors du texte : position " + position
+                    + ", " + longueurSupprimee + " caractère(s) supprimé(s), longueur " + longueur);
+        }
+
+        if (nombre == 0) {
+            String texte = texteInsere.toString();
+            remplacer(0, -1, decouper(texte, ""));
+            longueur = texte.length();
+            relus = texte.length();
+            return;
+        }
+
+        // Segments touchés : de celui qui contient position à celui qui contient la fin de la suppression
+        int premier = segment(position);
+        int dernier = segment(position + longueurSupprimee);
+        if (premier > 0 && segments[premier - 1].ignore
+                && position < debut(premier) + segments[premier].premiereLigne) {
+            premier--;  // Une instruction ignorée s'arrête ou non selon ce premier token
+        }
+
+        StringBuilder zone = new StringBuilder();
+        for (int s = premier; s <= dernier; s++) {
+            zone.append(segments[s].texte);
+        }
+        int relative = position - debut(premier);
+        zone.replace(relative, relative + longueurSupprimee, texteInsere.toString());
+
+        // Agrandir la zone tant qu'elle ne se termine pas sur une fin d'instruction
+        int absorbes = 1;
+        Segment[] nouveaux;
+        while (true) {
+            String suite = "";
+            if (dernier + 1 < nombre) {
+                Segment suivant = segments[dernier + 1];
+                suite = suivant.texte.substring(0, suivant.premiereLigne);
+            }
+            nouveaux = decouper(zone.toString(), suite);
+            if (nouveaux != null) {
+                break;
+            }
+            int fin = Math.min(nombre - 1, dernier + absorbes);
+            for (int s = dernier + 1; s <= fin; s++) {
+                zone.append(segments[s].texte);
+            }
+            dernier = fin;
+            absorbes *= 2;
+        }
+
+        longueur += texteInsere.length() - longueurSupprimee;
+        relus = zone.length();
+        remplacer(premier, dernier, nouveaux);
+    }
+
+    /**
+     * Remplace les segments premier..dernier (aucun si dernier < premier) par nouveaux
+     */
+    private void remplacer(int premier, int dernier, Segment[] nouveaux) {
+        decaler(dernier + 1);  // Positions exactes jusqu'à dernier
+
+        int anciens = dernier - premier + 1;
+        int debut = premier < nombre ? debuts[premier] : 0;
+        int ligne = premier < nombre ? lignes[premier] : 0;
+        int anciensCaracteres = 0;
+        int anciennesLignes = 0;
+        for (int s = premier; s <= dernier; s++) {
+            anciensCaracteres += segments[s].texte.length();
+            anciennesLignes += segments[s].retours;
+        }
+
+        // Décaler la suite des tableaux
+        int taille = nombre - anciens + nouveaux.length;
+        if (taille > segments.length) {
+            int capacite = Math.max(taille, segments.length * 2);
+            segments = Arrays.copyOf(segments, capacite);
+            debuts = Arrays.copyOf(debuts, capacite);
+            lignes = Arrays.copyOf(lignes, capacite);
+        }
+        int suite = dernier + 1;
+        if (anciens != nouveaux.length) {
+            System.arraycopy(segments, suite, segments, premier + nouveaux.length, nombre - suite);
+            System.arraycopy(debuts, suite, debuts, premier + nouveaux.length, nombre - suite);
+            System.arraycopy(lignes, suite, lignes, premier + nouveaux.length, nombre - suite);
+            for (int s = taille; s < nombre; s++) {
+                segments[s] = null;
+            }
+        }
+
+        // Nouveaux segments
+        int caracteres = 0;
+        int nouvellesLignes = 0;
+        for (int k = 0; k < nouveaux.length; k++) {
+            segments[premier + k] = nouveaux[k];
+            debuts[premier + k] = debut + caracteres;
+            lignes[premier + k] = ligne + nouvellesLignes;
+            caracteres += nouveaux[k].texte.length();
+            nouvellesLignes += nouveaux[k].retours;
+        }
+
+        // La suite attend le décalage
+        decales = premier + nouveaux.length;
+        decalage += caracteres - anciensCaracteres;
+        decalageLignes += nouvellesLignes - anciennesLignes;
+        nombre = taille;
+    }
+
+    /**
+     * Applique le décalage en attente jusqu'au segment s exclu (et pas au-delà)
+     */
+    private void decaler(int s) {
+        for (; decales < s; decales++) {
+            debuts[decales] += decalage;
+            lignes[decales] += decalageLignes;
+        }
+        while (decales > s) {
+            decales--;
+            debuts[decales] -= decalage;
+            lignes[decales] -= decalageLignes;
+        }
+    }
+
+    private int debut(int s) {
+        return s < decales ? debuts[s] : debuts[s] + decalage;
+    }
+
+    private int ligne(int s) {
+        return s < decales ? lignes[s] : lignes[s] + decalageLignes;
+    }
+
+    /**
+     * Segments de texte, ou null si la fin de texte n'est pas une fin
+     * d'instruction (l'instruction continue dans le segment suivant).
+     * suite : début du segment suivant, jusqu'à la fin de la ligne de son
+     * premier token ("" à la fin du code, où le dernier segment peut rester
+     * inachevé).
+     *
+     * Un Parser analyse texte + suite et s'arrête au premier début de ligne
+     * où il se trouve entre deux instructions de premier niveau ; le
+     * segment va jusqu'à la fin de la dernière ligne non vide avant ce
+     * début, et garde les erreurs de ce Parser. Un nouveau Parser reprend
+     * au début de ligne, et ainsi de suite.
+     */
+    private static Segment[] decouper(String texte, String suite) {
+        if (texte.isEmpty()) {
+            return new Segment[0];
+        }
+        Lexer lexer = new Lexer(suite.isEmpty() ? texte : texte + suite);
+        TokenBuffer tokens = lexer.tokenize();
+
+        // Débuts de ligne après une instruction, avec la coupe qui les précède
+        int[] reprises = new int[16];
+        int[] coupes = new int[16];
+        int nombreReprises = 0;
+        int coupe = -1;                // Fin de la première ligne après le dernier token significatif
+        boolean significatif = false;
+        for (int t = 0; t < tokens.size() && tokens.type(t) != Token.TokenType.EOF; t++) {
+            if (tokens.type(t) == Token.TokenType.NEWLINE) {
+                if (significatif) {
+                    coupe = tokens.start(t) + tokens.length(t);
+                    significatif = false;
+                }
+                continue;
+            }
+            if (coupe >= 0 && coupe <= texte.length() && tokens.type(t - 1) == Token.TokenType.NEWLINE) {
+                if (nombreReprises == reprises.length) {
+                    reprises = Arrays.copyOf(reprises, nombreReprises * 2);
+                    coupes = Arrays.copyOf(coupes, nombreReprises * 2);
+                }
+                reprises[nombreReprises] = t;
+                coupes[nombreReprises++] = coupe;
+            }
+            significatif = true;
+        }
+        reprises = Arrays.copyOf(reprises, nombreReprises);
+
+        List<Erreur> erreursLexicales = lexer.getErreurs();
+        int lexicales = 0;             // Erreurs lexicales déjà attribuées
+        List<Segment> segments = new ArrayList<>();
+        int debut = 0;                 // Premier caractère du segment en cours
+        int premierToken = 0;          // Son premier token
+        int analyse = 0;               // Token où commence son Parser
+        int ligne = 0;                 // Lignes avant lui
+        while (true) {
+            Parser parser = new Parser(tokens.cursor(analyse));
+            parser.setLimiteErreurs(Integer.MAX_VALUE);  // La limite s'applique au texte entier
+            int arret = parser.parseJusqua(reprises);
+
+            int fin;
+            if (arret >= 0) {
+                fin = coupes[Arrays.binarySearch(reprises, arret)];
+                if (tokens.start(arret) >= texte.length() && fin < texte.length()) {
+                    return null;  // Lignes vides en fin de texte : rattachées à la suite
+                }
+            } else if (suite.isEmpty()) {
+                fin = texte.length();
+            } else {
+                return null;      // Instruction inachevée
+            }
+
+            int finToken = premierToken;
+            int retours = 0;
+            while (tokens.type(finToken) != Token.TokenType.EOF && tokens.start(finToken) < fin) {
+                if (tokens.type(finToken) == Token.TokenType.NEWLINE) {
+                    retours++;
+                }
+                finToken++;
+            }
+            int finLexicales = lexicales;
+            while (finLexicales < erreursLexicales.size()
+                    && (fin == texte.length() && suite.isEmpty()
+                    || erreursLexicales.get(finLexicales).getLigne() <= ligne + retours)) {
+                finLexicales++;
+            }
+            segments.add(new Segment(texte.substring(debut, fin), tokens, premierToken, finToken, debut, ligne,
+                    erreursLexicales.subList(lexicales, finLexicales), parser.getErreurs()));
+
+            if (fin == texte.length()) {
+                return segments.toArray(new Segment[0]);
+            }
+            debut = fin;
+            premierToken = finToken;
+            analyse = arret;
+            ligne += retours;
+            lexicales = finLexicales;
+        }
+    }
+
+    private static boolean estIgnoree(Token.TokenType type) {
+        return type == Token.TokenType.IF || type == Token.TokenType.WHILE || type == Token.TokenType.FOR
+                || type == Token.TokenType.DEF || type == Token.TokenType.CLASS;
+    }
+
+    /**
+     * Indice du segment qui contient la position (le dernier pour la fin du texte)
+     */
+    private int segment(int position) {
+        int bas = 0;
+        int haut = nombre - 1;
+        while (bas < haut) {
+            int milieu = (bas + haut + 1) >>> 1;
+            if (debut(milieu) <= position) {
+                bas = milieu;
+            } else {
+                haut = milieu - 1;
+            }
+        }
+        return bas;
+    }
+
+    /**
+     * Erreurs lexicales puis syntaxiques, comme CompilationUnit : après
+     * chaque erreur de syntaxe l'analyse reprend à l'instruction suivante,
+     * jusqu'à setLimiteErreurs() erreurs de syntaxe
+     */
+    public List<String> getErrors() {
+        List<String> errors = new ArrayList<>();
+        for (int s = 0; s < nombre; s++) {
+            for (Erreur erreur : segments[s].erreursLexicales) {
+                errors.add(erreur.decaler(ligne(s)).toString());
+            }
+        }
+        int syntaxe = 0;
+        for (int s = 0; s < nombre && syntaxe < limiteErreurs; s++) {
+            for (Erreur erreur : segments[s].erreursSyntaxe) {
+                if (syntaxe++ == limiteErreurs) {
+                    break;
+                }
+                errors.add(erreur.decaler(ligne(s)).toString());
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Le texte courant (reconstruit à partir des segments)
+     */
+    public String getSource() {
+        StringBuilder sb = new StringBuilder(longueur);
+        for (int s = 0; s < nombre; s++) {
+            sb.append(segments[s].texte);
+        }
+        return sb.toString();
+    }
+
+    public int nombreSegments() {
+        return nombre;
+    }
+
+    /**
+     * Nombre de caractères relexés et reparsés par la dernière modification
+     */
+    public int getCaracteresRelus() {
+        return relus;
+    }
+}
@@ -0,0 +1,945 @@
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Classe JvmBackend - Génération de bytecode JVM
+ *
+ * Transforme l'arbre syntaxique (Ast) d'un programme en une classe Java :
+ *   - chaque variable devient un champ statique Object du même nom (les
+ *     variables sont repérées par le numéro de leur identifiant dans la
+ *     table des symboles) ;
+ *   - les nombres littéraux sont créés une seule fois (champs $k0, $k1, ...) ;
+ *   - les instructions de premier niveau sont réparties dans des méthodes
+ *     partie0(), partie1(), ... appelées dans l'ordre par main() ;
+ *   - les opérations appellent ScriptRuntime (intégré par le JIT).
+ *
+ * Le switch est compilé comme en Java, d'après le SwitchPlan du Parser
+ * (valeurs des case déjà calculées, 2 + 3 compris) :
+ *   - case entiers : tableswitch si les valeurs sont denses, lookupswitch
+ *     sinon (même règle de coût que javac) ;
+ *   - case chaînes : lookupswitch sur hashCode() puis equals() ;
+ *   - autres constantes (réels, booléens) : comparaisons successives.
+ * Si un case n'est pas une constante, tous les case sont comparés dans
+ * l'ordre avec ScriptRuntime.egal. Sans break, l'exécution continue dans
+ * le case suivant.
+ *
+ * Usage : java Compiler --run fichier.py            (compile et exécute)
+ *         java Compiler --emit fichier.py [dossier] (écrit Nom.class)
+ */
+public class JvmBackend {
+
+    private static final String RUNTIME = "ScriptRuntime";
+    private static final String OBJET = "Ljava/lang/Object;";
+    private static final String BINAIRE = "(" + OBJET + OBJET + ")" + OBJET;
+
+    // Taille à partir de laquelle on commence une nouvelle méthode partieN()
+    // (HotSpot ne compile pas les méthodes de plus de 8000 octets de bytecode)
+    private static final int TAILLE_PARTIE = 4 * 1024;
+
+    private final Ast ast;
+    private final TokenBuffer tokens;
+    private final ClassFileWriter classe;
+    private final List<String> errors = new ArrayList<>();
+
+    private final boolean[] variables;  // Numéro d'identifiant → champ à déclarer
+    private final int print;            // Numéros de print et len (SymbolTable.AUCUN s'ils n'apparaissent pas)
+    private final int len;
+    private final Map<Object, String> nombres = new LinkedHashMap<>();  // valeur → champ $kN
+    private final Deque<ClassFileWriter.Label> finsSwitch = new ArrayDeque<>();
+
+    // Pile de travail des expressions (voir expression)
+    private int[] noeuds = new int[32];
+    private int[] etapes = new int[32];
+    private int[] auxiliaires = new int[32];
+    private int travaux;
+    private final Deque<ClassFileWriter.Label> courtsCircuits = new ArrayDeque<>();  // Fins des and / or en cours
+
+    private ClassFileWriter.Code code;
+    private int parties;
+
+    public JvmBackend(Ast ast, TokenBuffer tokens, String nomClasse, String fichierSource) {
+        this.ast = ast;
+        this.tokens = tokens;
+        this.classe = new ClassFileWriter(nomClasse, fichierSource);
+        SymbolTable symboles = tokens.getSymbolTable();
+        this.variables = new boolean[symboles.size()];
+        this.print = symboles.find("print");
+        this.len = symboles.find("len");
+    }
+
+    /**
+     * Compile le programme (noeud PROGRAM)
+     *
+     * @return le fichier .class, ou null en cas d'erreur (voir getErrors)
+     */
+    public byte[] compile(int program) {
+        try {
+            code = classe.code();
+            for (int n = ast.firstChild(program); n != Ast.AUCUN; n = ast.nextSibling(n)) {
+                instruction(n);
+                if (code.size() >= TAILLE_PARTIE) {
+                    terminerPartie();
+                }
+            }
+            terminerPartie();
+
+            if (!errors.isEmpty()) {
+                return null;
+            }
+            declarerChamps();
+            main();
+            return classe.toByteArray();
+        } catch (IllegalStateException e) {
+            errors.add("Programme trop grand pour une classe Java : " + e.getMessage());
+            return null;
+        }
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * INSTRUCTIONS
+     */
+
+    private void instruction(int n) {
+        code.ligne(tokens.line(ast.token(n)));
+
+        switch (ast.kind(n)) {
+            case ASSIGN:
+                affectation(n);
+                break;
+            case INCDEC:
+                incrementer(ast.firstChild(n), tokens.type(ast.token(n)) == Token.TokenType.INCREMENT);
+                code.op(ClassFileWriter.POP, -1);
+                break;
+            case EXPR:
+                if (!appelAfficher(ast.firstChild(n))) {
+                    expression(ast.firstChild(n));
+                    code.op(ClassFileWriter.POP, -1);
+                }
+                break;
+            case SWITCH:
+                switchInstruction(n);
+                break;
+            case BREAK:
+                if (finsSwitch.isEmpty()) {
+                    error(n, "'break' en dehors d'un switch");
+                } else {
+                    code.saut(ClassFileWriter.GOTO, finsSwitch.peek());
+                }
+                break;
+            case CONTINUE:
+                error(n, "'continue' en dehors d'une boucle");
+                break;
+            case PASS:
+                break;
+            case IGNORED:
+                error(n, "instruction '" + tokens.value(ast.token(n)) + "' non compilée (seul switch/case est analysé)");
+                break;
+            default:
+                error(n, "instruction non compilable");
+        }
+    }
+
+    private void affectation(int n) {
+        int cible = ast.firstChild(n);
+        int valeur = ast.nextSibling(cible);
+        Token.TokenType operateur = tokens.type(ast.token(n));
+
+        if (operateur != Token.TokenType.ASSIGN) {
+            variable(cible);
+        }
+        expression(valeur);
+        if (operateur == Token.TokenType.PLUS_ASSIGN) {
+            runtime("ajouter", BINAIRE);
+        } else if (operateur == Token.TokenType.MINUS_ASSIGN) {
+            runtime("soustraire", BINAIRE);
+        }
+        code.champ(ClassFileWriter.PUTSTATIC, classe.getNom(), nomVariable(cible), OBJET);
+    }
+
+    /**
+     * x++ / x-- (ou ++x / --x) : laisse la nouvelle valeur sur la pile
+     */
+    private void incrementer(int cible, boolean plus) {
+        if (ast.kind(cible) != Ast.Kind.NAME) {
+            error(cible, "variable attendue pour '" + (plus ? "++" : "--") + "'");
+            code.op(ClassFileWriter.ACONST_NULL, 1);
+            return;
+        }
+        variable(cible);
+        nombre(1L);
+        runtime(plus ? "ajouter" : "soustraire", BINAIRE);
+        code.op(ClassFileWriter.DUP, 1);
+        code.champ(ClassFileWriter.PUTSTATIC, classe.getNom(), nomVariable(cible), OBJET);
+    }
+
+    /**
+     * SWITCH
+     */
+
+    /**
+     * Les switch imbriqués dans les case sont compilés avec une pile de
+     * switch ouverts, sans récursion : la profondeur d'imbrication n'est
+     * limitée que par le format de classe (variables locales, taille de méthode)
+     */
+    private void switchInstruction(int n) {
+        Deque<SwitchOuvert> ouverts = new ArrayDeque<>();
+        ouverts.push(ouvrirSwitch(n));
+        while (!ouverts.isEmpty()) {
+            SwitchOuvert sw = ouverts.peek();
+            int s = sw.suivante();
+            if (s == Ast.AUCUN) {
+                finsSwitch.pop();
+                code.placer(sw.fin);
+                ouverts.pop();
+            } else if (ast.kind(s) == Ast.Kind.SWITCH) {
+                code.ligne(tokens.line(ast.token(s)));
+                ouverts.push(ouvrirSwitch(s));
+            } else {
+                instruction(s);
+            }
+        }
+    }
+
+    /**
+     * Calcule la valeur testée et saute vers le bon case ; les corps restent
+     * à compiler (SwitchOuvert.suivante)
+     */
+    private SwitchOuvert ouvrirSwitch(int n) {
+        int sujet = ast.firstChild(n);
+        List<Integer> clauses = new ArrayList<>();
+        for (int c = ast.nextSibling(sujet); c != Ast.AUCUN; c = ast.nextSibling(c)) {
+            clauses.add(c);
+        }
+
+        // La valeur testée est rangée dans une variable locale (une par niveau d'imbrication)
+        int locale = finsSwitch.size();
+        code.locales(locale + 1);
+        expression(sujet);
+        code.astore(locale);
+
+        SwitchOuvert sw = new SwitchOuvert(clauses);
+        ClassFileWriter.Label defaut = sw.fin;
+        for (int i = 0; i < sw.corps.length; i++) {
+            if (ast.kind(clauses.get(i)) == Ast.Kind.DEFAULT) {
+                defaut = sw.corps[i];
+            }
+        }
+
+        aiguiller(n, clauses, sw.corps, defaut, locale);
+        finsSwitch.push(sw.fin);
+        return sw;
+    }
+
+    /**
+     * Switch dont les corps de case sont en cours de compilation : ils se
+     * suivent dans le bytecode (sans break on continue dans le suivant)
+     */
+    private final class SwitchOuvert {
+        final List<Integer> clauses;
+        final ClassFileWriter.Label[] corps;
+        final ClassFileWriter.Label fin = new ClassFileWriter.Label();
+        int clause = -1;              // Clause en cours
+        int instruction = Ast.AUCUN;  // Prochaine instruction de cette clause
+
+        SwitchOuvert(List<Integer> clauses) {
+            this.clauses = clauses;
+            this.corps = new ClassFileWriter.Label[clauses.size()];
+            for (int i = 0; i < corps.length; i++) {
+                corps[i] = new ClassFileWriter.Label();
+            }
+        }
+
+        /**
+         * Prochaine instruction à compiler (AUCUN après la dernière clause) ;
+         * place le label de chaque clause au début de son corps
+         */
+        int suivante() {
+            while (instruction == Ast.AUCUN) {
+                if (++clause == corps.length) {
+                    return Ast.AUCUN;
+                }
+                code.placer(corps[clause]);
+                int c = clauses.get(clause);
+                instruction = ast.firstChild(c);
+                if (ast.kind(c) == Ast.Kind.CASE && instruction != Ast.AUCUN) {
+                    instruction = ast.nextSibling(instruction);  // Sauter la valeur du case
+                }
+            }
+            int s = instruction;
+            instruction = ast.nextSibling(s);
+            return s;
+        }
+    }
+
+    /**
+     * Saute vers le corps du case dont la valeur est égale à la variable locale,
+     * selon l'aiguillage choisi par le Parser (SwitchPlan)
+     */
+    private void aiguiller(int n, List<Integer> clauses, ClassFileWriter.Label[] corps,
+                           ClassFileWriter.Label defaut, int locale) {
+        List<Integer> cases = new ArrayList<>();  // case numéro k → indice dans clauses
+        for (int i = 0; i < clauses.size(); i++) {
+            if (ast.kind(clauses.get(i)) == Ast.Kind.CASE) {
+                cases.add(i);
+            }
+        }
+
+        SwitchPlan plan = ast.plan(n);
+        if (!plan.estConstant()) {
+            for (int i : cases) {
+                comparer(ast.firstChild(clauses.get(i)), corps[i], locale);
+            }
+            code.saut(ClassFileWriter.GOTO, defaut);
+            return;
+        }
+
+        // Les entiers hors des int sont comparés un à un, comme les réels et booléens
+        Map<Integer, ClassFileWriter.Label> entiers = new TreeMap<>();
+        List<Integer> autres = new ArrayList<>();
+        long[] cles = plan.clesEntieres();
+        int[] casEntiers = plan.casEntiers();
+        for (int k = 0; k < cles.length; k++) {
+            if (cles[k] == (int) cles[k]) {
+                entiers.put((int) cles[k], corps[cases.get(casEntiers[k])]);
+            } else {
+                autres.add(casEntiers[k]);
+            }
+        }
+        for (int k : plan.autres()) {
+            autres.add(k);
+        }
+
+        if (!entiers.isEmpty()) {
+            ClassFileWriter.Label suite = new ClassFileWriter.Label();
+            code.aload(locale);
+            code.constanteEntiere(absent(entiers.keySet()));
+            runtime("cleEntiere", "(" + OBJET + "I)I");
+            switchEntier(entiers, suite);
+            code.placer(suite);
+        }
+
+        if (!plan.chaines().isEmpty()) {
+            Map<String, ClassFileWriter.Label> chaines = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> e : plan.chaines().entrySet()) {
+                chaines.put(e.getKey(), corps[cases.get(e.getValue())]);
+            }
+            ClassFileWriter.Label suite = new ClassFileWriter.Label();
+            code.aload(locale);
+            code.type(ClassFileWriter.INSTANCEOF, "java/lang/String");
+            code.saut(ClassFileWriter.IFEQ, suite);
+            code.aload(locale);
+            code.type(ClassFileWriter.CHECKCAST, "java/lang/String");
+            code.appel(ClassFileWriter.INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I");
+            switchChaine(chaines, suite, locale);
+            code.placer(suite);
+        }
+
+        for (int k : autres) {
+            int i = cases.get(k);
+            comparer(ast.firstChild(clauses.get(i)), corps[i], locale);
+        }
+        code.saut(ClassFileWriter.GOTO, defaut);
+    }
+
+    /**
+     * tableswitch ou lookupswitch, selon SwitchPlan.choisir (règle de coût de javac)
+     */
+    private void switchEntier(Map<Integer, ClassFileWriter.Label> cas, ClassFileWriter.Label defaut) {
+        int[] cles = new int[cas.size()];
+        ClassFileWriter.Label[] cibles = new ClassFileWriter.Label[cas.size()];
+        int i = 0;
+        for (Map.Entry<Integer, ClassFileWriter.Label> e : cas.entrySet()) {
+            cles[i] = e.getKey();
+            cibles[i] = e.getValue();
+            i++;
+        }
+
+        int bas = cles[0];
+        int haut = cles[cles.length - 1];
+        if (SwitchPlan.choisir(bas, haut, cles.length) == SwitchPlan.Strategie.TABLE) {
+            ClassFileWriter.Label[] table = new ClassFileWriter.Label[haut - bas + 1];
+            Arrays.fill(table, defaut);
+            for (int k = 0; k < cles.length; k++) {
+                table[cles[k] - bas] = cibles[k];
+            }
+            code.tableswitch(bas, haut, defaut, table);
+        } else {
+            code.lookupswitch(defaut, cles, cibles);
+        }
+    }
+
+    /**
+     * lookupswitch sur hashCode() puis equals() pour chaque chaîne de même hash
+     */
+    private void switchChaine(Map<String, ClassFileWriter.Label> cas, ClassFileWriter.Label defaut, int locale) {
+        Map<Integer, List<String>> parHash = new TreeMap<>();
+        for (String chaine : cas.keySet()) {
+            parHash.computeIfAbsent(chaine.hashCode(), h -> new ArrayList<>()).add(chaine);
+        }
+
+        int[] cles = new int[parHash.size()];
+        ClassFileWriter.Label[] groupes = new ClassFileWriter.Label[parHash.size()];
+        int i = 0;
+        for (int hash : parHash.keySet()) {
+            cles[i] = hash;
+            groupes[i] = new ClassFileWriter.Label();
+            i++;
+        }
+        code.lookupswitch(defaut, cles, groupes);
+
+        i = 0;
+        for (List<String> chaines : parHash.values()) {
+            code.placer(groupes[i++]);
+            for (String chaine : chaines) {
+                code.aload(locale);
+                code.type(ClassFileWriter.CHECKCAST, "java/lang/String");
+                code.ldc(classe.chaine(chaine));
+                code.appel(ClassFileWriter.INVOKEVIRTUAL, "java/lang/String", "equals", "(" + OBJET + ")Z");
+                code.saut(ClassFileWriter.IFNE, cas.get(chaine));
+            }
+            code.saut(ClassFileWriter.GOTO, defaut);
+        }
+    }
+
+    private void comparer(int valeur, ClassFileWriter.Label cible, int locale) {
+        code.aload(locale);
+        expression(valeur);
+        runtime("egal", "(" + OBJET + OBJET + ")Z");
+        code.saut(ClassFileWriter.IFNE, cible);
+    }
+
+    /**
+     * Un int qui n'est la valeur d'aucun case
+     */
+    private static int absent(Set<Integer> cles) {
+        int min = Collections.min(cles);
+        int max = Collections.max(cles);
+        if (min > Integer.MIN_VALUE) {
+            return min - 1;
+        }
+        if (max < Integer.MAX_VALUE) {
+            return max + 1;
+        }
+        int v = 0;
+        while (cles.contains(v)) {
+            v++;
+        }
+        return v;
+    }
+
+    /**
+     * EXPRESSIONS (chacune laisse un Object sur la pile)
+     *
+     * L'arbre est parcouru avec une pile de travail (noeud, étape, auxiliaire)
+     * et non par récursion, comme les opérateurs préfixes dans le Parser :
+     * 1 + 1 + ... sur des milliers de termes ou des milliers de parenthèses
+     * imbriquées ne dépendent pas de la taille de la pile du thread.
+     */
+
+    private static final int DEBUT = 0;  // Noeud à commencer
+    private static final int SUITE = 1;  // Gauche de and / or calculé, ou élément de liste (auxiliaire) calculé
+    private static final int FIN = 2;    // Opérandes calculés : reste l'opération
+
+    private void expression(int racine) {
+        int base = travaux;
+        empiler(racine, DEBUT, 0);
+        while (travaux > base) {
+            travaux--;
+            int n = noeuds[travaux];
+            if (etapes[travaux] == DEBUT) {
+                commencer(n);
+            } else if (etapes[travaux] == SUITE) {
+                continuer(n, auxiliaires[travaux]);
+            } else {
+                terminer(n);
+            }
+        }
+    }
+
+    /**
+     * Les feuilles sont compilées tout de suite ; pour les autres noeuds, la
+     * fin puis les opérandes sont empilés (le premier opérande en dernier)
+     */
+    private void commencer(int n) {
+        if (n == Ast.AUCUN) {
+            code.op(ClassFileWriter.ACONST_NULL, 1);
+            return;
+        }
+
+        switch (ast.kind(n)) {
+            case LITERAL:
+                Object valeur = litteral(n);
+                if (valeur == null) {
+                    error(n, "entier trop grand : " + tokens.value(ast.token(n)));
+                    code.op(ClassFileWriter.ACONST_NULL, 1);
+                } else {
+                    pousser(valeur);
+                }
+                break;
+            case NAME:
+                variable(n);
+                break;
+            case BINARY:
+                int gauche = ast.firstChild(n);
+                if (courtCircuit(n)) {
+                    empiler(n, SUITE, 0);
+                } else {
+                    empiler(n, FIN, 0);
+                    empiler(ast.nextSibling(gauche), DEBUT, 0);
+                }
+                empiler(gauche, DEBUT, 0);
+                break;
+            case UNARY:
+                unaire(n);
+                break;
+            case LIST:
+                code.type(ClassFileWriter.NEW, "java/util/ArrayList");
+                code.op(ClassFileWriter.DUP, 1);
+                code.appel(ClassFileWriter.INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V");
+                element(n, ast.firstChild(n));
+                break;
+            case INDEX:
+                empiler(n, FIN, 0);
+                empiler(ast.nextSibling(ast.firstChild(n)), DEBUT, 0);
+                empiler(ast.firstChild(n), DEBUT, 0);
+                break;
+            case CALL:
+                appel(n);
+                break;
+            case MEMBER:
+                error(n, "accès aux attributs non supporté");
+                code.op(ClassFileWriter.ACONST_NULL, 1);
+                break;
+            default:
+                error(n, "expression non compilable");
+                code.op(ClassFileWriter.ACONST_NULL, 1);
+        }
+    }
+
+    private void continuer(int n, int element) {
+        if (ast.kind(n) == Ast.Kind.LIST) {
+            code.appel(ClassFileWriter.INVOKEVIRTUAL, "java/util/ArrayList", "add", "(" + OBJET + ")Z");
+            code.op(ClassFileWriter.POP, -1);
+            element(n, ast.nextSibling(element));
+            return;
+        }
+
+        // Court-circuit : on garde l'opérande gauche s'il décide du résultat
+        ClassFileWriter.Label fin = new ClassFileWriter.Label();
+        code.op(ClassFileWriter.DUP, 1);
+        runtime("vrai", "(" + OBJET + ")Z");
+        code.saut(tokens.type(ast.token(n)) == Token.TokenType.AND ? ClassFileWriter.IFEQ : ClassFileWriter.IFNE, fin);
+        code.op(ClassFileWriter.POP, -1);
+        courtsCircuits.push(fin);
+        empiler(n, FIN, 0);
+        empiler(ast.nextSibling(ast.firstChild(n)), DEBUT, 0);
+    }
+
+    /**
+     * Ajout de l'élément e (s'il existe) à la liste n, qui est sur la pile
+     */
+    private void element(int n, int e) {
+        if (e != Ast.AUCUN) {
+            code.op(ClassFileWriter.DUP, 1);
+            empiler(n, SUITE, e);
+            empiler(e, DEBUT, 0);
+        }
+    }
+
+    private void terminer(int n) {
+        switch (ast.kind(n)) {
+            case BINARY:
+                if (courtCircuit(n)) {
+                    code.placer(courtsCircuits.pop());
+                } else {
+                    operation(n);
+                }
+                break;
+            case UNARY:
+                prefixes(n);
+                break;
+            case INDEX:
+                runtime("indice", BINAIRE);
+                break;
+            default:  // CALL : len(x)
+                runtime("longueur", "(" + OBJET + ")" + OBJET);
+        }
+    }
+
+    private boolean courtCircuit(int n) {
+        Token.TokenType operateur = tokens.type(ast.token(n));
+        return operateur == Token.TokenType.AND || operateur == Token.TokenType.OR;
+    }
+
+    private void operation(int n) {
+        switch (tokens.type(ast.token(n))) {
+            case PLUS:          runtime("ajouter", BINAIRE); break;
+            case MINUS:         runtime("soustraire", BINAIRE); break;
+            case MULTIPLY:      runtime("multiplier", BINAIRE); break;
+            case DIVIDE:        runtime("diviser", BINAIRE); break;
+            case MODULO:        runtime("modulo", BINAIRE); break;
+            case EQUAL:         runtime("egalite", BINAIRE); break;
+            case NOT_EQUAL:     runtime("difference", BINAIRE); break;
+            case LESS:          runtime("inferieur", BINAIRE); break;
+            case LESS_EQUAL:    runtime("inferieurEgal", BINAIRE); break;
+            case GREATER:       runtime("superieur", BINAIRE); break;
+            case GREATER_EQUAL: runtime("superieurEgal", BINAIRE); break;
+            default:
+                error(n, "opérateur '" + tokens.value(ast.token(n)) + "' non supporté");
+        }
+    }
+
+    private void empiler(int n, int etape, int auxiliaire) {
+        if (travaux == noeuds.length) {
+            noeuds = Arrays.copyOf(noeuds, travaux * 2);
+            etapes = Arrays.copyOf(etapes, travaux * 2);
+            auxiliaires = Arrays.copyOf(auxiliaires, travaux * 2);
+        }
+        noeuds[travaux] = n;
+        etapes[travaux] = etape;
+        auxiliaires[travaux] = auxiliaire;
+        travaux++;
+    }
+
+    /**
+     * Une suite d'opérateurs préfixes ("- not - x") : l'opérande la plus
+     * intérieure d'abord, puis les opérateurs de l'intérieur vers l'extérieur
+     * (prefixes, à la fin)
+     */
+    private void unaire(int n) {
+        int operande = operandePrefixes(n);
+        empiler(n, FIN, 0);
+        if (operande != Ast.AUCUN && ast.kind(operande) == Ast.Kind.UNARY) {
+            incrementer(ast.firstChild(operande), tokens.type(ast.token(operande)) == Token.TokenType.INCREMENT);
+        } else {
+            empiler(operande, DEBUT, 0);
+        }
+    }
+
+    private void prefixes(int n) {
+        int operande = operandePrefixes(n);
+        int nombre = 0;
+        for (int m = n; m != operande; m = ast.firstChild(m)) {
+            nombre++;
+        }
+        int[] operateurs = new int[nombre];
+        for (int i = 0, m = n; i < nombre; i++, m = ast.firstChild(m)) {
+            operateurs[i] = m;
+        }
+        for (int i = nombre - 1; i >= 0; i--) {
+            boolean non = tokens.type(ast.token(operateurs[i])) == Token.TokenType.NOT;
+            runtime(non ? "non" : "negatif", "(" + OBJET + ")" + OBJET);
+        }
+    }
+
+    /**
+     * Premier noeud sous la suite d'opérateurs préfixes n (une incrémentation
+     * ++x / --x termine la suite)
+     */
+    private int operandePrefixes(int n) {
+        int operande = n;
+        while (operande != Ast.AUCUN && ast.kind(operande) == Ast.Kind.UNARY && !incrementation(operande)) {
+            operande = ast.firstChild(operande);
+        }
+        return operande;
+    }
+
+    private boolean incrementation(int n) {
+        Token.TokenType operateur = tokens.type(ast.token(n));
+        return operateur == Token.TokenType.INCREMENT || operateur == Token.TokenType.DECREMENT;
+    }
+
+    /**
+     * Fonctions prédéfinies utilisables dans une expression : len(x)
+     */
+    private void appel(int n) {
+        int fonction = ast.firstChild(n);
+        int symbole = ast.kind(fonction) == Ast.Kind.NAME ? symbole(fonction) : SymbolTable.AUCUN;
+        int arguments = ast.childCount(n) - 1;
+
+        if (symbole == len && symbole != SymbolTable.AUCUN && arguments == 1) {
+            empiler(n, FIN, 0);
+            empiler(ast.nextSibling(fonction), DEBUT, 0);
+        } else if (symbole == print && symbole != SymbolTable.AUCUN) {
+            error(n, "print() ne retourne pas de valeur");
+            code.op(ClassFileWriter.ACONST_NULL, 1);
+        } else {
+            error(n, symbole == SymbolTable.AUCUN ? "appel non supporté"
+                    : "fonction '" + tokens.getSymbolTable().name(symbole) + "' inconnue (ou mauvais nombre d'arguments)");
+            code.op(ClassFileWriter.ACONST_NULL, 1);
+        }
+    }
+
+    /**
+     * print(a, b, ...) en instruction (ne laisse rien sur la pile)
+     */
+    private boolean appelAfficher(int n) {
+        if (ast.kind(n) != Ast.Kind.CALL) {
+            return false;
+        }
+        int fonction = ast.firstChild(n);
+        if (ast.kind(fonction) != Ast.Kind.NAME || print == SymbolTable.AUCUN || symbole(fonction) != print) {
+            return false;
+        }
+
+        code.constanteEntiere(ast.childCount(n) - 1);
+        code.type(ClassFileWriter.ANEWARRAY, "java/lang/Object");
+        int i = 0;
+        for (int a = ast.nextSibling(fonction); a != Ast.AUCUN; a = ast.nextSibling(a)) {
+            code.op(ClassFileWriter.DUP, 1);
+            code.constanteEntiere(i++);
+            expression(a);
+            code.op(ClassFileWriter.AASTORE, -3);
+        }
+        runtime("afficher", "([" + OBJET + ")V");
+        return true;
+    }
+
+    /**
+     * Valeur d'un littéral (Long, Double, String ou Boolean), null si l'entier déborde
+     */
+    private Object litteral(int n) {
+        int t = ast.token(n);
+        return ConstantFolder.litteral(tokens.type(t), tokens.value(t));
+    }
+
+    private void pousser(Object valeur) {
+        if (valeur instanceof String) {
+            code.ldc(classe.chaine((String) valeur));
+        } else if (valeur instanceof Boolean) {
+            code.champ(ClassFileWriter.GETSTATIC, "java/lang/Boolean", (Boolean) valeur ? "TRUE" : "FALSE",
+                    "Ljava/lang/Boolean;");
+        } else {
+            nombre(valeur);
+        }
+    }
+
+    /**
+     * Nombre littéral : lu dans un champ $kN créé une fois pour toutes
+     */
+    private void nombre(Object valeur) {
+        String champ = nombres.computeIfAbsent(valeur, v -> "$k" + nombres.size());
+        code.champ(ClassFileWriter.GETSTATIC, classe.getNom(), champ, OBJET);
+    }
+
+    private void variable(int n) {
+        String nom = nomVariable(n);
+        code.champ(ClassFileWriter.GETSTATIC, classe.getNom(), nom, OBJET);
+        code.ldc(classe.chaine(nom));
+        runtime("lire", "(" + OBJET + "Ljava/lang/String;)" + OBJET);
+    }
+
+    private String nomVariable(int n) {
+        int symbole = symbole(n);
+        variables[symbole] = true;
+        return tokens.getSymbolTable().name(symbole);
+    }
+
+    /**
+     * Numéro de l'identifiant d'un noeud NAME
+     */
+    private int symbole(int n) {
+        return tokens.symbol(ast.token(n));
+    }
+
+    private void runtime(String methode, String descripteur) {
+        code.appel(ClassFileWriter.INVOKESTATIC, RUNTIME, methode, descripteur);
+    }
+
+    /**
+     * MÉTHODES DE LA CLASSE
+     */
+
+    private void terminerPartie() {
+        if (code.size() == 0 && parties > 0) {
+            return;
+        }
+        code.op(ClassFileWriter.RETURN, 0);
+        if (errors.isEmpty()) {
+            classe.methode(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_STATIC,
+                    "partie" + parties, "()V", code);
+        }
+        parties++;
+        code = classe.code();
+    }
+
+    private void declarerChamps() {
+        SymbolTable symboles = tokens.getSymbolTable();
+        for (int symbole = 0; symbole < variables.length; symbole++) {
+            if (variables[symbole]) {
+                classe.champ(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC, symboles.name(symbole), OBJET);
+            }
+        }
+
+        // <clinit> : création des nombres littéraux
+        ClassFileWriter.Code init = classe.code();
+        for (Map.Entry<Object, String> e : nombres.entrySet()) {
+            classe.champ(ClassFileWriter.ACC_PRIVATE | ClassFileWriter.ACC_STATIC | ClassFileWriter.ACC_FINAL,
+                    e.getValue(), OBJET);
+            if (e.getKey() instanceof Long) {
+                init.ldc2(classe.longue((Long) e.getKey()));
+                init.appel(ClassFileWriter.INVOKESTATIC, "java/lang/Long", "valueOf", "(J)Ljava/lang/Long;");
+            } else {
+                init.ldc2(classe.reel((Double) e.getKey()));
+                init.appel(ClassFileWriter.INVOKESTATIC, "java/lang/Double", "valueOf", "(D)Ljava/lang/Double;");
+            }
+            init.champ(ClassFileWriter.PUTSTATIC, classe.getNom(), e.getValue(), OBJET);
+        }
+        init.op(ClassFileWriter.RETURN, 0);
+        classe.methode(ClassFileWriter.ACC_STATIC, "<clinit>", "()V", init);
+    }
+
+    private void main() {
+        ClassFileWriter.Code main = classe.code();
+        main.locales(1);
+        for (int i = 0; i < parties; i++) {
+            main.appel(ClassFileWriter.INVOKESTATIC, classe.getNom(), "partie" + i, "()V");
+        }
+        main.op(ClassFileWriter.RETURN, 0);
+        classe.methode(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_STATIC,
+                "main", "([Ljava/lang/String;)V", main);
+    }
+
+    private void error(int n, String message) {
+        int t = ast.token(n);
+        errors.add(String.format("Erreur ligne %d, colonne %d: %s", tokens.line(t), tokens.column(t), message));
+    }
+
+    /**
+     * CHARGEMENT ET EXÉCUTION
+     */
+
+    private static final class Chargeur extends ClassLoader {
+        Chargeur() {
+            super(JvmBackend.class.getClassLoader());
+        }
+
+        Class<?> definir(String nom, byte[] octets) {
+            return defineClass(nom, octets, 0, octets.length);
+        }
+    }
+
+    /**
+     * Charge une classe produite par compile() dans la JVM courante
+     */
+    public static Class<?> charger(String nomClasse, byte[] octets) {
+        return new Chargeur().definir(nomClasse, octets);
+    }
+
+    /**
+     * Exécute main() d'une classe chargée (les erreurs d'exécution sont relancées telles quelles)
+     */
+    public static void executer(Class<?> programme) {
+        try {
+            programme.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Nom de classe tiré du nom de fichier ("mon-script.py" → "mon_script")
+     */
+    static String nomDeClasse(String fichier) {
+        String nom = Paths.get(fichier).getFileName().toString();
+        int point = nom.lastIndexOf('.');
+        if (point > 0) {
+            nom = nom.substring(0, point);
+        }
+        StringBuilder sb = new StringBuilder();
+        nom.codePoints().forEach(c -> sb.appendCodePoint(Character.isJavaIdentifierPart(c) ? c : '_'));
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.codePointAt(0))) {
+            sb.insert(0, "Programme_");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Modes --run et --emit de la ligne de commande
+     *
+     * @return le code de sortie du programme
+     */
+    static int lancer(List<String> chemins, boolean executer, Reporter rapport) {
+        if (chemins.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME, "Usage : java Compiler (--run fichier.py | --emit fichier.py [dossier])");
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+        String fichier = chemins.get(0);
+
+        CompilationUnit unite;
+        try {
+            unite = CompilationUnit.lire(fichier);
+        } catch (IOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur de lecture du fichier: " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+
+        List<String> erreurs = new ArrayList<>(unite.getErrors());
+        String nomClasse = nomDeClasse(fichier);
+        byte[] octets = null;
+        if (erreurs.isEmpty()) {
+            JvmBackend backend = new JvmBackend(unite.getAst(), unite.getTokens(), nomClasse,
+                    Paths.get(fichier).getFileName().toString());
+            octets = backend.compile(unite.getRoot());
+            erreurs.addAll(backend.getErrors());
+        }
+
+        if (!erreurs.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ " + fichier + " : " + erreurs.size() + " erreur(s)");
+            for (String erreur : erreurs) {
+                rapport.println(Reporter.Niveau.NORMAL, "  • " + erreur);
+            }
+            return BatchCompiler.SORTIE_ERREURS;
+        }
+
+        if (!executer) {
+            Path dossier = Paths.get(chemins.size() > 1 ? chemins.get(1) : ".");
+            Path sortie = dossier.resolve(nomClasse + ".class");
+            try {
+                Files.createDirectories(dossier);
+                Files.write(sortie, octets);
+            } catch (IOException e) {
+                rapport.println(Reporter.Niveau.RESUME, "❌ Erreur d'écriture: " + e.getMessage());
+                return BatchCompiler.SORTIE_ECHEC;
+            }
+            rapport.println(Reporter.Niveau.RESUME, "✓ " + sortie + " (" + octets.length + " octets)");
+            return BatchCompiler.SORTIE_OK;
+        }
+
+        rapport.flush();  // Les messages avant la sortie du programme
+        try {
+            executer(charger(nomClasse, octets));
+            return BatchCompiler.SORTIE_OK;
+        } catch (ScriptRuntime.ErreurExecution e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur d'exécution ligne " + ligne(e, nomClasse) + ": " + e.getMessage());
+            return BatchCompiler.SORTIE_ERREURS;
+        }
+    }
+
+    /**
+     * Ligne du programme source où l'erreur s'est produite (0 si inconnue)
+     */
+    static int ligne(Throwable erreur, String nomClasse) {
+        for (StackTraceElement element : erreur.getStackTrace()) {
+            if (element.getClassName().equals(nomClasse)) {
+                return Math.max(element.getLineNumber(), 0);
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Classe Keywords - Reconnaissance des mots-clés
+ *
+ * lookup() travaille directement sur les caractères du code source, sans
+ * créer de String : un switch sur la longueur puis sur le premier
+ * caractère désigne au plus deux candidats, qu'on compare caractère par
+ * caractère.
+ */
+public final class Keywords {
+
+    private Keywords() {
+    }
+
+    /**
+     * Type du mot source[start, start + length) : le mot-clé reconnu,
+     * ou IDENTIFIER
+     */
+    public static Token.TokenType lookup(CharSequence source, int start, int length) {
+        char c = source.charAt(start);
+
+        switch (length) {
+            case 2:
+                if (c == 'i') {
+                    char c1 = source.charAt(start + 1);
+                    if (c1 == 'f') return Token.TokenType.IF;
+                    if (c1 == 'n') return Token.TokenType.IN;
+                } else if (c == 'o') {
+                    return match(source, start, "or", Token.TokenType.OR);
+                }
+                break;
+
+            case 3:
+                if (c == 'f') return match(source, start, "for", Token.TokenType.FOR);
+                if (c == 'd') return match(source, start, "def", Token.TokenType.DEF);
+                if (c == 'a') return match(source, start, "and", Token.TokenType.AND);
+                if (c == 'n') return match(source, start, "not", Token.TokenType.NOT);
+                break;
+
+            case 4:
+                if (c == 'c') return match(source, start, "case", Token.TokenType.CASE);
+                if (c == 'e') {
+                    return source.charAt(start + 2) == 'i'
+                            ? match(source, start, "elif", Token.TokenType.ELIF)
+                            : match(source, start, "else", Token.TokenType.ELSE);
+                }
+                if (c == 'p') return match(source, start, "pass", Token.TokenType.PASS);
+                if (c == 'T') return match(source, start, "True", Token.TokenType.BOOLEAN);
+                break;
+
+            case 5:
+                if (c == 'b') return match(source, start, "break", Token.TokenType.BREAK);
+                if (c == 'w') return match(source, start, "while", Token.TokenType.WHILE);
+                if (c == 'r') return match(source, start, "range", Token.TokenType.RANGE);
+                if (c == 'c') return match(source, start, "class", Token.TokenType.CLASS);
+                if (c == 'F') return match(source, start, "False", Token.TokenType.BOOLEAN);
+                break;
+
+            case 6:
+                if (c == 's') return match(source, start, "switch", Token.TokenType.SWITCH);
+                if (c == 'r') return match(source, start, "return", Token.TokenType.RETURN);
+                if (c == 'Y') return match(source, start, "Yacine", Token.TokenType.Yacine);
+                break;
+
+            case 7:
+                if (c == 'd') return match(source, start, "default", Token.TokenType.DEFAULT);
+                break;
+
+            case 8:
+                if (c == 'c') return match(source, start, "continue", Token.TokenType.CONTINUE);
+                break;
+
+            case 10:
+                if (c == 'B') return match(source, start, "BENOUADFEL", Token.TokenType.BENOUADFEL);
+                break;
+
+            default:
+                break;
+        }
+
+        return Token.TokenType.IDENTIFIER;
+    }
+
+    /**
+     * Compare le reste du mot (longueur et premier caractère déjà vérifiés)
+     */
+    private static Token.TokenType match(CharSequence source, int start, String mot, Token.TokenType type) {
+        for (int i = 1; i < mot.length(); i++) {
+            if (source.charAt(start + i) != mot.charAt(i)) {
+                return Token.TokenType.IDENTIFIER;
+            }
+        }
+        return type;
+    }
+}
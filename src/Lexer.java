@@ -1,3 +1,5 @@
+import java.io.*;
+import java.nio.CharBuffer;
 import java.util.*;
 
 /**
@@ -8,110 +10,263 @@ import java.util.*;
  * Exemple :
  * Input  : "x = 10"
  * Output : [Token(IDENTIFIER,"x"), Token(ASSIGN,"="), Token(INTEGER,"10")]
+ *
+ * Aucun texte n'est copié : chaque token est une tranche (début, longueur)
+ * du code source, qui peut être n'importe quel CharSequence.
+ *
+ * Un Lexer par programme : il n'y a aucun état partagé, donc plusieurs
+ * Lexer peuvent tourner en parallèle.
  */
-public class Lexer {
+public class Lexer implements TokenCursor {
 
-    private String input;      // Le code source à analyser
-    private int position;      // Position actuelle dans le code
-    private int line;          // Ligne actuelle
-    private int column;        // Colonne actuelle
-    private List<String> errors;  // Liste des erreurs trouvées
+    private static final int TAILLE_TAMPON = 8192;  // Taille du tampon en mode flux
 
-    // Table des mots-clés : "switch" → TokenType.SWITCH
-    private static final Map<String, Token.TokenType> KEYWORDS = new HashMap<>();
+    // Classes des caractères ASCII (table de 128 entrées, évite Character.isXxx)
+    private static final byte DEBUT_ID = 1;   // Lettre ou _ : début d'identifiant
+    private static final byte CHIFFRE = 2;    // 0-9
+    private static final byte SUITE_ID = DEBUT_ID | CHIFFRE;
+    private static final byte[] CLASSES = new byte[128];
 
     static {
-        // Mots-clés pour switch/case
-        KEYWORDS.put("switch", Token.TokenType.SWITCH);
-        KEYWORDS.put("case", Token.TokenType.CASE);
-        KEYWORDS.put("default", Token.TokenType.DEFAULT);
-        KEYWORDS.put("break", Token.TokenType.BREAK);
-
-        // Autres structures de contrôle
-        KEYWORDS.put("if", Token.TokenType.IF);
-        KEYWORDS.put("elif", Token.TokenType.ELIF);
-        KEYWORDS.put("else", Token.TokenType.ELSE);
-        KEYWORDS.put("while", Token.TokenType.WHILE);
-        KEYWORDS.put("for", Token.TokenType.FOR);
-        KEYWORDS.put("in", Token.TokenType.IN);
-        KEYWORDS.put("range", Token.TokenType.RANGE);
-
-        // Fonctions et classes
-        KEYWORDS.put("def", Token.TokenType.DEF);
-        KEYWORDS.put("class", Token.TokenType.CLASS);
-        KEYWORDS.put("return", Token.TokenType.RETURN);
-        KEYWORDS.put("continue", Token.TokenType.CONTINUE);
-        KEYWORDS.put("pass", Token.TokenType.PASS);
-
-        // Opérateurs logiques
-        KEYWORDS.put("and", Token.TokenType.AND);
-        KEYWORDS.put("or", Token.TokenType.OR);
-        KEYWORDS.put("not", Token.TokenType.NOT);
-
-        // Booléens
-        KEYWORDS.put("True", Token.TokenType.BOOLEAN);
-        KEYWORDS.put("False", Token.TokenType.BOOLEAN);
-
-
-        KEYWORDS.put("BENOUADFEL", Token.TokenType.BENOUADFEL);
-        KEYWORDS.put("Yacine", Token.TokenType.Yacine);
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = DEBUT_ID;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] = DEBUT_ID;
+        }
+        CLASSES['_'] = DEBUT_ID;
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = CHIFFRE;
+        }
     }
 
+    private CharSequence input;  // Le code source à analyser (String, CharBuffer, ...)
+    private int position;      // Position actuelle dans le code
+    private int line;          // Ligne actuelle
+    private int column;        // Colonne actuelle
+    private final List<Erreur> errors;  // Liste des erreurs trouvées
+    private final SymbolTable symbols;   // Identifiants rencontrés
+
+    // Mode flux : input est une fenêtre sur le texte lu depuis reader
+    private Reader reader;     // null si tout le code est déjà dans input
+    private char[] window;     // Tampon de lecture (rempli à la demande)
+    private int base;          // Position (dans le code) du premier caractère de input
+    private int limit;         // Position juste après le dernier caractère disponible
+    private int mark;          // Les caractères avant mark peuvent être oubliés
+
+    // Début du token en cours de lecture
+    private int tokenStart;
+    private int tokenLine;
+    private int tokenColumn;
+    private int tokenSymbol;  // Numéro de l'identifiant, ou SymbolTable.AUCUN
+
+    // Token courant pour peek()/nextToken() (null tant qu'on n'a rien lu)
+    private Token.TokenType current;
+    private int currentIndex;  // Numéro du token courant
+
     // Constructeur
-    public Lexer(String input) {
+    public Lexer(CharSequence input) {
+        this(input, new SymbolTable());
+    }
+
+    /**
+     * symbols : table des symboles à remplir (par exemple commune à plusieurs
+     * fichiers compilés par le même thread)
+     */
+    public Lexer(CharSequence input, SymbolTable symbols) {
         this.input = input;
+        this.symbols = symbols;
         this.position = 0;
         this.line = 1;
         this.column = 1;
         this.errors = new ArrayList<>();
+        this.base = 0;
+        this.limit = input.length();
+    }
+
+    /**
+     * Lexer qui commence au milieu du code : à la position debut, avec la
+     * ligne et la colonne qu'y aurait le lexer de tout le code (ParallelLexer)
+     */
+    Lexer(CharSequence input, SymbolTable symbols, int debut, int ligne, int colonne) {
+        this(input, symbols);
+        this.position = debut;
+        this.line = ligne;
+        this.column = colonne;
+    }
+
+    /**
+     * Constructeur en mode flux : le code est lu depuis reader au fur et à mesure,
+     * dans un tampon de taille fixe. La mémoire utilisée ne dépend pas de la
+     * taille du code (seul un token plus long que le tampon le fait grandir).
+     * Les tokens se lisent avec peek()/nextToken().
+     */
+    public Lexer(Reader reader) {
+        this(reader, TAILLE_TAMPON);
+    }
+
+    public Lexer(Reader reader, int tailleTampon) {
+        this.symbols = new SymbolTable();
+        this.window = new char[tailleTampon];
+        this.input = CharBuffer.wrap(window);
+        this.reader = reader;
+        this.position = 0;
+        this.line = 1;
+        this.column = 1;
+        this.errors = new ArrayList<>();
+        this.base = 0;
+        this.limit = 0;
     }
 
     /**
      * Méthode principale : transforme tout le code en tokens
      */
-    public List<Token> tokenize() {
-        List<Token> tokens = new ArrayList<>();
+    public TokenBuffer tokenize() {
+        if (window != null) {
+            throw new IllegalStateException("tokenize() n'est pas disponible en mode flux (utiliser nextToken())");
+        }
 
-        // Tant qu'il reste du code à lire
-        while (position < input.length()) {
-            Token token = nextToken();
-
-            if (token != null) {
-                // Si c'est une erreur, on l'enregistre
-                if (token.getType() == Token.TokenType.ERROR) {
-                    errors.add(String.format(
-                            "Erreur lexicale ligne %d, colonne %d: Caractère invalide '%s'",
-                            token.getLine(), token.getColumn(), token.getValue()
-                    ));
-                }
+        return tokenize(Integer.MAX_VALUE);
+    }
 
-                // On ignore les commentaires
-                if (token.getType() != Token.TokenType.COMMENT) {
-                    tokens.add(token);
-                }
+    /**
+     * Tokens qui commencent avant la position fin (le dernier peut la
+     * dépasser : une chaîne continue après un \n), EOF compris si la fin
+     * du code est atteinte avant
+     */
+    TokenBuffer tokenize(int fin) {
+        // Estimation : environ un token pour 4 caractères
+        TokenBuffer tokens = new TokenBuffer(input, symbols, (Math.min(fin, limit) - position) / 4);
+
+        // Tant qu'il reste du code à lire
+        while (position < fin) {
+            Token.TokenType type = scanSignificant();
+            tokens.add(type, tokenStart, position - tokenStart, tokenLine, tokenColumn, tokenSymbol);
+            if (type == Token.TokenType.EOF) {
+                break;
             }
         }
 
-        // Ajouter un token EOF (End Of File) à la fin
-        tokens.add(new Token(Token.TokenType.EOF, "", line, column));
         return tokens;
     }
 
     /**
-     * Lit le prochain token
+     * Où en est le lexer après tokenize(fin) : position, ligne et colonne
+     */
+    int positionCourante() {
+        return position;
+    }
+
+    int ligneCourante() {
+        return line;
+    }
+
+    int colonneCourante() {
+        return column;
+    }
+
+    /**
+     * CURSEUR : le Parser lit les tokens un par un sans liste intermédiaire
+     */
+
+    @Override
+    public Token.TokenType peek() {
+        if (current == null) {
+            current = scanSignificant();
+        }
+        return current;
+    }
+
+    @Override
+    public int index() {
+        return currentIndex;
+    }
+
+    @Override
+    public Token.TokenType nextToken() {
+        Token.TokenType type = peek();
+        if (type != Token.TokenType.EOF) {
+            current = scanSignificant();
+            currentIndex++;
+        }
+        return type;
+    }
+
+    @Override
+    public String value() {
+        if (peek() == Token.TokenType.IDENTIFIER) {
+            return symbols.name(tokenSymbol);
+        }
+        return TokenBuffer.value(current, input, tokenStart - base, position - tokenStart);
+    }
+
+    @Override
+    public int symbol() {
+        peek();
+        return tokenSymbol;
+    }
+
+    @Override
+    public int line() {
+        peek();
+        return tokenLine;
+    }
+
+    @Override
+    public int column() {
+        peek();
+        return tokenColumn;
+    }
+
+    /**
+     * Lit le prochain token utile : les commentaires sont ignorés, les
+     * caractères invalides enregistrés comme erreurs. Retourne EOF à la fin.
      */
-    private Token nextToken() {
+    private Token.TokenType scanSignificant() {
+        while (true) {
+            Token.TokenType type = scanToken();
+
+            // Fin du code : token EOF (End Of File)
+            if (type == null) {
+                tokenStart = position;
+                tokenLine = line;
+                tokenColumn = column;
+                tokenSymbol = SymbolTable.AUCUN;
+                return Token.TokenType.EOF;
+            }
+
+            // Si c'est une erreur, on l'enregistre
+            if (type == Token.TokenType.ERROR) {
+                errors.add(Erreur.lexicale(tokenLine, tokenColumn,
+                        "Caractère invalide '" + input.subSequence(tokenStart - base, position - base) + "'"));
+            }
+
+            // On ignore les commentaires
+            if (type != Token.TokenType.COMMENT) {
+                return type;
+            }
+        }
+    }
+
+    /**
+     * Lit le prochain token et retourne son type
+     * (le lexème est input[tokenStart, position))
+     */
+    private Token.TokenType scanToken() {
         // Ignorer les espaces
         skipWhitespace();
 
         // Si on est à la fin, retourner null
-        if (position >= input.length()) {
+        if (!has(position)) {
             return null;
         }
 
-        char current = input.charAt(position);
-        int startLine = line;
-        int startColumn = column;
+        char current = at(position);
+        tokenStart = position;
+        tokenLine = line;
+        tokenColumn = column;
+        tokenSymbol = SymbolTable.AUCUN;
+        mark = tokenStart;
 
         // Commentaires (# ...)
         if (current == '#') {
@@ -119,13 +274,23 @@ public class Lexer {
         }
 
         // Identifiants et mots-clés (x, switch, if, ...)
-        if (Character.isLetter(current) || current == '_') {
-            return scanIdentifier();
-        }
-
         // Nombres (10, 3.14, ...)
-        if (Character.isDigit(current)) {
-            return scanNumber();
+        if (current < 128) {
+            if ((CLASSES[current] & DEBUT_ID) != 0) {
+                return scanIdentifier();
+            }
+            if ((CLASSES[current] & CHIFFRE) != 0) {
+                return scanNumber();
+            }
+        } else {
+            // Hors ASCII : lettres et chiffres Unicode (é, ٣, 𝔘, ...)
+            int codePoint = codePointAt(position);
+            if (Character.isLetter(codePoint)) {
+                return scanIdentifier();
+            }
+            if (Character.isDigit(codePoint)) {
+                return scanNumber();
+            }
         }
 
         // Chaînes de caractères ("hello", 'world')
@@ -134,247 +299,244 @@ public class Lexer {
         }
 
         // Opérateurs et symboles
-        return scanOperator(startLine, startColumn);
+        return scanOperator();
     }
 
     /**
      * Scanne un identifiant ou un mot-clé
      * Exemple : "switch", "x", "age"
      */
-    private Token scanIdentifier() {
-        int startLine = line;
-        int startColumn = column;
-        StringBuilder sb = new StringBuilder();
-
+    private Token.TokenType scanIdentifier() {
         // Tant que c'est une lettre, un chiffre ou _
-        while (position < input.length() &&
-                (Character.isLetterOrDigit(input.charAt(position)) ||
-                        input.charAt(position) == '_')) {
-            sb.append(input.charAt(position));
-            position++;
+        // (on calcule au passage le hash utilisé par la table des symboles)
+        int hash = 0;
+        while (has(position)) {
+            char c = at(position);
+
+            if (c < 128) {
+                if ((CLASSES[c] & SUITE_ID) == 0) {
+                    break;
+                }
+                hash = 31 * hash + c;
+                position++;
+            } else {
+                int codePoint = codePointAt(position);
+                if (!Character.isLetterOrDigit(codePoint)) {
+                    break;
+                }
+                for (int i = 0; i < Character.charCount(codePoint); i++) {
+                    hash = 31 * hash + at(position++);
+                }
+            }
             column++;
         }
 
-        String value = sb.toString();
+        // Est-ce un mot-clé ? (comparaison directe sur le code source)
+        Token.TokenType type = Keywords.lookup(input, tokenStart - base, position - tokenStart);
 
-        // Est-ce un mot-clé ?
-        Token.TokenType type = KEYWORDS.getOrDefault(value, Token.TokenType.IDENTIFIER);
-
-        return new Token(type, value, startLine, startColumn);
+        // Sinon, numéro de l'identifiant dans la table des symboles
+        if (type == Token.TokenType.IDENTIFIER) {
+            tokenSymbol = symbols.intern(input, tokenStart - base, position - tokenStart, hash);
+        }
+        return type;
     }
 
     /**
      * Scanne un nombre
      * Exemple : "10", "3.14"
      */
-    private Token scanNumber() {
-        int startLine = line;
-        int startColumn = column;
-        StringBuilder sb = new StringBuilder();
+    private Token.TokenType scanNumber() {
         boolean isFloat = false;
 
-        while (position < input.length()) {
-            char c = input.charAt(position);
+        while (has(position)) {
+            char c = at(position);
 
-            if (Character.isDigit(c)) {
-                sb.append(c);
+            if (c < 128 && (CLASSES[c] & CHIFFRE) != 0) {
                 position++;
                 column++;
             } else if (c == '.' && !isFloat) {
                 isFloat = true;
-                sb.append(c);
                 position++;
                 column++;
+            } else if (c >= 128 && Character.isDigit(codePointAt(position))) {
+                position += Character.charCount(codePointAt(position));
+                column++;
             } else {
                 break;
             }
         }
 
-        Token.TokenType type = isFloat ? Token.TokenType.FLOAT : Token.TokenType.INTEGER;
-        return new Token(type, sb.toString(), startLine, startColumn);
+        return isFloat ? Token.TokenType.FLOAT : Token.TokenType.INTEGER;
     }
 
     /**
      * Scanne une chaîne de caractères
      * Exemple : "hello", 'world'
+     * (la valeur sans guillemets est reconstruite par TokenBuffer.value)
      */
-    private Token scanString(char quote) {
-        int startLine = line;
-        int startColumn = column;
-        StringBuilder sb = new StringBuilder();
-
+    private Token.TokenType scanString(char quote) {
         position++; column++;  // Sauter le guillemet d'ouverture
 
-        while (position < input.length() && input.charAt(position) != quote) {
+        while (has(position) && at(position) != quote) {
             // Gérer les échappements (\n, \", etc.)
-            if (input.charAt(position) == '\\' && position + 1 < input.length()) {
+            if (at(position) == '\\' && has(position + 1)) {
                 position++; column++;
-                sb.append(input.charAt(position));
-            } else {
-                sb.append(input.charAt(position));
             }
             position++;
             column++;
         }
 
-        if (position < input.length()) {
+        if (has(position)) {
             position++; column++;  // Sauter le guillemet de fermeture
         } else {
-            errors.add(String.format(
-                    "Erreur lexicale ligne %d, colonne %d: Chaîne non terminée",
-                    startLine, startColumn
-            ));
+            errors.add(Erreur.lexicale(tokenLine, tokenColumn, "Chaîne non terminée"));
         }
 
-        return new Token(Token.TokenType.STRING, sb.toString(), startLine, startColumn);
+        return Token.TokenType.STRING;
     }
 
     /**
      * Scanne un opérateur ou un symbole
      */
-    private Token scanOperator(int startLine, int startColumn) {
-        char current = input.charAt(position);
+    private Token.TokenType scanOperator() {
+        char current = at(position);
 
         switch (current) {
             case '+':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.PLUS_ASSIGN, "+=", startLine, startColumn);
-                } else if (peek() == '+') {
+                    return Token.TokenType.PLUS_ASSIGN;
+                } else if (peekChar() == '+') {
                     position++; column++;
-                    return new Token(Token.TokenType.INCREMENT, "++", startLine, startColumn);
+                    return Token.TokenType.INCREMENT;
                 }
-                return new Token(Token.TokenType.PLUS, "+", startLine, startColumn);
+                return Token.TokenType.PLUS;
 
             case '-':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.MINUS_ASSIGN, "-=", startLine, startColumn);
-                } else if (peek() == '-') {
+                    return Token.TokenType.MINUS_ASSIGN;
+                } else if (peekChar() == '-') {
                     position++; column++;
-                    return new Token(Token.TokenType.DECREMENT, "--", startLine, startColumn);
+                    return Token.TokenType.DECREMENT;
                 }
-                return new Token(Token.TokenType.MINUS, "-", startLine, startColumn);
+                return Token.TokenType.MINUS;
 
             case '*':
                 position++; column++;
-                return new Token(Token.TokenType.MULTIPLY, "*", startLine, startColumn);
+                return Token.TokenType.MULTIPLY;
 
             case '/':
                 position++; column++;
-                return new Token(Token.TokenType.DIVIDE, "/", startLine, startColumn);
+                return Token.TokenType.DIVIDE;
 
             case '%':
                 position++; column++;
-                return new Token(Token.TokenType.MODULO, "%", startLine, startColumn);
+                return Token.TokenType.MODULO;
 
             case '=':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.EQUAL, "==", startLine, startColumn);
+                    return Token.TokenType.EQUAL;
                 }
-                return new Token(Token.TokenType.ASSIGN, "=", startLine, startColumn);
+                return Token.TokenType.ASSIGN;
 
             case '!':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.NOT_EQUAL, "!=", startLine, startColumn);
+                    return Token.TokenType.NOT_EQUAL;
                 }
-                return new Token(Token.TokenType.ERROR, "!", startLine, startColumn);
+                return Token.TokenType.ERROR;
 
             case '<':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.LESS_EQUAL, "<=", startLine, startColumn);
+                    return Token.TokenType.LESS_EQUAL;
                 }
-                return new Token(Token.TokenType.LESS, "<", startLine, startColumn);
+                return Token.TokenType.LESS;
 
             case '>':
                 position++; column++;
-                if (peek() == '=') {
+                if (peekChar() == '=') {
                     position++; column++;
-                    return new Token(Token.TokenType.GREATER_EQUAL, ">=", startLine, startColumn);
+                    return Token.TokenType.GREATER_EQUAL;
                 }
-                return new Token(Token.TokenType.GREATER, ">", startLine, startColumn);
+                return Token.TokenType.GREATER;
 
             case '(':
                 position++; column++;
-                return new Token(Token.TokenType.LPAREN, "(", startLine, startColumn);
+                return Token.TokenType.LPAREN;
 
             case ')':
                 position++; column++;
-                return new Token(Token.TokenType.RPAREN, ")", startLine, startColumn);
+                return Token.TokenType.RPAREN;
 
             case '{':
                 position++; column++;
-                return new Token(Token.TokenType.LBRACE, "{", startLine, startColumn);
+                return Token.TokenType.LBRACE;
 
             case '}':
                 position++; column++;
-                return new Token(Token.TokenType.RBRACE, "}", startLine, startColumn);
+                return Token.TokenType.RBRACE;
 
             case '[':
                 position++; column++;
-                return new Token(Token.TokenType.LBRACKET, "[", startLine, startColumn);
+                return Token.TokenType.LBRACKET;
 
             case ']':
                 position++; column++;
-                return new Token(Token.TokenType.RBRACKET, "]", startLine, startColumn);
+                return Token.TokenType.RBRACKET;
 
             case ',':
                 position++; column++;
-                return new Token(Token.TokenType.COMMA, ",", startLine, startColumn);
+                return Token.TokenType.COMMA;
 
             case ':':
                 position++; column++;
-                return new Token(Token.TokenType.COLON, ":", startLine, startColumn);
+                return Token.TokenType.COLON;
 
             case ';':
                 position++; column++;
-                return new Token(Token.TokenType.SEMICOLON, ";", startLine, startColumn);
+                return Token.TokenType.SEMICOLON;
 
             case '.':
                 position++; column++;
-                return new Token(Token.TokenType.DOT, ".", startLine, startColumn);
+                return Token.TokenType.DOT;
 
             case '\n':
                 position++; line++; column = 1;
-                return new Token(Token.TokenType.NEWLINE, "\\n", startLine, startColumn);
+                return Token.TokenType.NEWLINE;
 
             default:
-                position++; column++;
-                return new Token(Token.TokenType.ERROR, String.valueOf(current), startLine, startColumn);
+                // Un caractère hors BMP (emoji, ...) occupe deux char
+                position += Character.charCount(codePointAt(position)); column++;
+                return Token.TokenType.ERROR;
         }
     }
 
     /**
      * Scanne un commentaire
      */
-    private Token scanComment() {
-        int startLine = line;
-        int startColumn = column;
-        StringBuilder sb = new StringBuilder();
-
-        while (position < input.length() && input.charAt(position) != '\n') {
-            sb.append(input.charAt(position));
+    private Token.TokenType scanComment() {
+        while (hasSkipping(position) && at(position) != '\n') {
             position++;
             column++;
         }
 
-        return new Token(Token.TokenType.COMMENT, sb.toString(), startLine, startColumn);
+        return Token.TokenType.COMMENT;
     }
 
     /**
      * Ignore les espaces, tabulations, etc.
      */
     private void skipWhitespace() {
-        while (position < input.length()) {
-            char c = input.charAt(position);
+        while (hasSkipping(position)) {
+            char c = at(position);
             if (c == ' ' || c == '\t' || c == '\r') {
                 position++;
                 column++;
@@ -385,19 +547,107 @@ public class Lexer {
     }
 
     /**
-     * Regarde le prochain caractère sans avancer
+     * Regarde le caractère courant sans avancer
+     * (appelé après avoir consommé le premier caractère d'un opérateur)
      */
-    private char peek() {
-        if (position + 1 < input.length()) {
-            return input.charAt(position + 1);
+    private char peekChar() {
+        if (has(position)) {
+            return at(position);
         }
         return '\0';
     }
 
+    /**
+     * Le caractère à la position pos existe-t-il ?
+     * (en mode flux, relit depuis le reader si besoin)
+     */
+    private boolean has(int pos) {
+        return pos < limit || fill(pos);
+    }
+
+    /**
+     * Comme has(pos), pour du texte qu'on ne relira plus (espaces, commentaires) :
+     * le tampon peut être vidé jusqu'à pos.
+     */
+    private boolean hasSkipping(int pos) {
+        if (pos < limit) {
+            return true;
+        }
+        mark = pos;
+        return fill(pos);
+    }
+
+    private char at(int pos) {
+        return input.charAt(pos - base);
+    }
+
+    /**
+     * Point de code à la position pos (une paire de surrogates compte pour un)
+     */
+    private int codePointAt(int pos) {
+        char c = at(pos);
+        if (Character.isHighSurrogate(c) && has(pos + 1)) {
+            char suivant = at(pos + 1);
+            if (Character.isLowSurrogate(suivant)) {
+                return Character.toCodePoint(c, suivant);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Mode flux : décale le tampon pour oublier ce qui précède mark,
+     * puis le remplit depuis le reader jusqu'à rendre pos disponible
+     */
+    private boolean fill(int pos) {
+        if (reader == null) {
+            return false;
+        }
+
+        int garde = limit - mark;
+        if (mark > base) {
+            System.arraycopy(window, mark - base, window, 0, garde);
+            base = mark;
+        }
+        if (pos - base >= window.length) {
+            // Un seul token plus long que le tampon
+            window = Arrays.copyOf(window, Math.max(window.length * 2, pos - base + 1));
+            input = CharBuffer.wrap(window);
+        }
+
+        try {
+            while (pos >= limit) {
+                int lus = reader.read(window, limit - base, window.length - (limit - base));
+                if (lus < 0) {
+                    reader = null;  // Fin du flux
+                    return false;
+                }
+                limit += lus;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Retourne la table des symboles (identifiants rencontrés)
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
     /**
      * Retourne la liste des erreurs
      */
     public List<String> getErrors() {
+        return Erreur.messages(errors);
+    }
+
+    /**
+     * Les erreurs, avec leur position (non mises en forme)
+     */
+    List<Erreur> getErreurs() {
         return errors;
     }
 }
\ No newline at end of file
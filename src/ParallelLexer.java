@@ -0,0 +1,195 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe ParallelLexer - Analyse lexicale d'un gros code sur plusieurs cœurs
+ *
+ * Le code est coupé en parties, chacune juste après un \n. Chaque partie
+ * est lexée en parallèle (dans le ForkJoinPool courant) par son propre
+ * Lexer et sa propre table des symboles, comme si elle commençait le
+ * fichier (ligne 1, colonne 1). Les parties sont ensuite recollées dans
+ * l'ordre :
+ *   - si la partie précédente s'est arrêtée pile à son début (sur le
+ *     NEWLINE qui la précède), le lexage était juste : on décale ses
+ *     lignes et on renumérote ses identifiants ;
+ *   - sinon (une chaîne de la partie précédente continue après le \n), ou
+ *     si elle a des erreurs (leur message cite la ligne), elle est relexée
+ *     là où la précédente s'est arrêtée.
+ * Tokens, lignes, colonnes, numéros des identifiants et erreurs sont
+ * exactement ceux de new Lexer(code).tokenize().
+ *
+ * Un code trop court pour deux parties, ou une machine à un seul cœur,
+ * passe directement par un Lexer.
+ */
+public class ParallelLexer {
+
+    public static final int TAILLE_PARTIE = 1 << 20;  // Caractères par partie, au moins
+    private static final int PARTIES_PAR_THREAD = 4;  // Pour équilibrer les threads
+
+    private final CharSequence input;
+    private final int taillePartie;
+    private final SymbolTable symbols;
+    private final List<String> errors;
+
+    /**
+     * Une partie du code : [debut, fin), et son lexage
+     */
+    private final class Partie {
+        final int debut;
+        final int fin;  // Integer.MAX_VALUE pour la dernière (jusqu'à EOF)
+
+        TokenBuffer tokens;  // null : la partie précédente a tout lexé
+        List<String> erreurs;
+        int premiereLigne;
+        int position;        // État du lexer à la fin
+        int ligne;
+        int colonne;
+
+        int decalage;        // À ajouter aux lignes
+        int[] numeros;       // Numéro local d'un identifiant → numéro dans symbols
+        int dest;            // Numéro du premier token dans le résultat
+
+        Partie(int debut, int fin) {
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        void lexer(int depart, int ligneDepart, int colonneDepart) {
+            Lexer lexer = new Lexer(input, new SymbolTable(), depart, ligneDepart, colonneDepart);
+            tokens = lexer.tokenize(fin);
+            erreurs = lexer.getErrors();
+            premiereLigne = ligneDepart;
+            position = lexer.positionCourante();
+            ligne = lexer.ligneCourante();
+            colonne = lexer.colonneCourante();
+        }
+    }
+
+    // Constructeur
+    public ParallelLexer(CharSequence input) {
+        this(input, TAILLE_PARTIE);
+    }
+
+    /**
+     * taillePartie : nombre minimal de caractères par partie
+     */
+    public ParallelLexer(CharSequence input, int taillePartie) {
+        this.input = input;
+        this.taillePartie = Math.max(taillePartie, 1);
+        this.symbols = new SymbolTable();
+        this.errors = new ArrayList<>();
+    }
+
+    /**
+     * Transforme tout le code en tokens
+     */
+    public TokenBuffer tokenize() {
+        List<Partie> parties = decouper();
+        if (parties.size() == 1) {
+            Lexer lexer = new Lexer(input, symbols);
+            TokenBuffer tokens = lexer.tokenize();
+            errors.addAll(lexer.getErrors());
+            return tokens;
+        }
+
+        // 1. Chaque partie, comme si elle commençait le fichier
+        List<ForkJoinTask<?>> taches = new ArrayList<>(parties.size());
+        for (Partie partie : parties) {
+            taches.add(ForkJoinTask.adapt(() -> partie.lexer(partie.debut, 1, 1)));
+        }
+        ForkJoinTask.invokeAll(taches);
+
+        // 2. Recollage dans l'ordre, en relexant les parties fausses
+        int position = 0;
+        int ligne = 1;
+        int colonne = 1;
+        int total = 0;
+        for (Partie partie : parties) {
+            boolean decalee = partie.debut != position || colonne != 1;
+            if (decalee || (!partie.erreurs.isEmpty() && partie.premiereLigne != ligne)) {
+                if (position >= partie.fin) {
+                    partie.tokens = null;  // Entièrement dans le dernier token de la précédente
+                    continue;
+                }
+                partie.lexer(position, ligne, colonne);
+            }
+
+            partie.decalage = ligne - partie.premiereLigne;
+            partie.numeros = renumeroter(partie.tokens.getSymbolTable());
+            partie.dest = total;
+            total += partie.tokens.size();
+            errors.addAll(partie.erreurs);
+
+            position = partie.position;
+            ligne = partie.ligne + partie.decalage;
+            colonne = partie.colonne;
+        }
+
+        // 3. Copie de toutes les parties dans un seul tampon
+        TokenBuffer tokens = new TokenBuffer(input, symbols, 0);
+        tokens.reserver(total);
+        taches.clear();
+        for (Partie partie : parties) {
+            if (partie.tokens != null) {
+                taches.add(ForkJoinTask.adapt(() -> tokens.copier(partie.tokens, partie.dest, partie.decalage,
+                        partie.numeros)));
+            }
+        }
+        ForkJoinTask.invokeAll(taches);
+        return tokens;
+    }
+
+    /**
+     * Coupe le code juste après un \n, en parties d'au moins taillePartie
+     * caractères, PARTIES_PAR_THREAD par thread du pool
+     */
+    private List<Partie> decouper() {
+        int longueur = input.length();
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int threads = pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        int nombre = threads <= 1 ? 1 : (int) Math.min(longueur / taillePartie, (long) threads * PARTIES_PAR_THREAD);
+
+        List<Partie> parties = new ArrayList<>(Math.max(nombre, 1));
+        int debut = 0;
+        for (int k = 1; k < nombre; k++) {
+            int coupure = (int) Math.max((long) longueur * k / nombre, debut);
+            while (coupure < longueur && input.charAt(coupure) != '\n') {
+                coupure++;
+            }
+            if (coupure + 1 >= longueur) {
+                break;
+            }
+            parties.add(new Partie(debut, coupure + 1));
+            debut = coupure + 1;
+        }
+        parties.add(new Partie(debut, Integer.MAX_VALUE));
+        return parties;
+    }
+
+    /**
+     * Numéro dans symbols de chaque identifiant d'une partie : les parties
+     * étant prises dans l'ordre, chaque nom est numéroté à sa première
+     * apparition dans le code, comme par un seul Lexer
+     */
+    private int[] renumeroter(SymbolTable locale) {
+        int[] numeros = new int[locale.size()];
+        for (int id = 0; id < numeros.length; id++) {
+            numeros[id] = symbols.intern(locale.name(id));
+        }
+        return numeros;
+    }
+
+    /**
+     * Retourne la table des symboles (identifiants rencontrés)
+     */
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * Retourne la liste des erreurs
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,165 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe ParallelParser - Analyse syntaxique en parallèle des instructions de premier niveau
+ *
+ * Au début de chaque instruction de premier niveau (un switch entier, une
+ * affectation, ...), le Parser est toujours dans son état de départ : ce qui
+ * précède ne change rien à l'analyse de la suite. Le tampon est coupé en
+ * parties, chacune commençant à un début d'instruction probable : le premier
+ * IDENTIFIER ou SWITCH en colonne 1 juste après un NEWLINE, à partir d'une
+ * fraction égale du tampon. Chaque partie est analysée en parallèle (dans le
+ * ForkJoinPool courant) par son propre Parser, qui s'arrête au début de
+ * partie suivante s'il y arrive entre deux instructions (Parser.parseJusqua).
+ *
+ * Les parties sont ensuite enchaînées dans l'ordre : après la partie 0, on
+ * reprend à la partie où elle s'est arrêtée, et ainsi de suite. Un début
+ * probable qui n'en est pas un (dans les accolades d'un switch, dans une
+ * expression sur plusieurs lignes) n'est jamais atteint entre deux
+ * instructions : le Parser précédent le dépasse, et l'analyse faite à partir
+ * de là est simplement perdue.
+ *
+ * Les erreurs sont remises dans l'ordre du code, avec la même limite que le
+ * Parser : getErrors() et estComplet() sont exactement ceux d'un Parser sur
+ * tout le tampon. L'analyse ne fait que valider le code (pas d'arbre) et
+ * n'affiche rien.
+ *
+ * Un tampon trop petit pour deux parties, ou une machine à un seul cœur,
+ * passe directement par un Parser.
+ */
+public class ParallelParser {
+
+    public static final int TOKENS_PAR_PARTIE = 1 << 16;  // Au moins
+    private static final int PARTIES_PAR_THREAD = 4;      // Pour équilibrer les threads
+
+    private final TokenBuffer tokens;
+    private final int tokensParPartie;
+    private int limiteErreurs = Parser.LIMITE_ERREURS;
+    private final List<String> errors;
+    private boolean complet = true;
+
+    /**
+     * Analyse d'une partie : ses erreurs, et le token où elle s'est arrêtée
+     */
+    private static final class Partie {
+        List<String> erreurs;
+        int arret;  // Début d'une autre partie, ou -1 (EOF ou limite d'erreurs)
+    }
+
+    public ParallelParser(TokenBuffer tokens) {
+        this(tokens, TOKENS_PAR_PARTIE);
+    }
+
+    /**
+     * tokensParPartie : nombre minimal de tokens par partie
+     */
+    public ParallelParser(TokenBuffer tokens, int tokensParPartie) {
+        this.tokens = tokens;
+        this.tokensParPartie = Math.max(tokensParPartie, 1);
+        this.errors = new ArrayList<>();
+    }
+
+    /**
+     * Nombre d'erreurs après lequel l'analyse s'arrête (Parser.LIMITE_ERREURS par défaut)
+     */
+    public void setLimiteErreurs(int limiteErreurs) {
+        this.limiteErreurs = Math.max(1, limiteErreurs);
+    }
+
+    /**
+     * true si le code est correct
+     */
+    public boolean parse() {
+        int[] debuts = decouper();
+        if (debuts.length == 1) {
+            Parser parser = new Parser(tokens);
+            parser.setLimiteErreurs(limiteErreurs);
+            boolean correct = parser.parse();
+            errors.addAll(parser.getErrors());
+            complet = parser.estComplet();
+            return correct;
+        }
+
+        // 1. Chaque partie, jusqu'au début d'une partie suivante
+        Partie[] parties = new Partie[debuts.length];
+        List<ForkJoinTask<?>> taches = new ArrayList<>(debuts.length);
+        for (int p = 0; p < debuts.length; p++) {
+            Partie partie = parties[p] = new Partie();
+            int debut = debuts[p];
+            int[] suivants = Arrays.copyOfRange(debuts, p + 1, debuts.length);
+            taches.add(ForkJoinTask.adapt(() -> {
+                Parser parser = new Parser(tokens.cursor(debut));
+                parser.setLimiteErreurs(limiteErreurs);
+                partie.arret = parser.parseJusqua(suivants);
+                partie.erreurs = parser.getErrors();
+            }));
+        }
+        ForkJoinTask.invokeAll(taches);
+
+        // 2. Enchaînement à partir de la partie 0 ; le Parser de tout le
+        //    tampon se serait arrêté à la limite-ième erreur
+        int p = 0;
+        while (true) {
+            for (String erreur : parties[p].erreurs) {
+                if (errors.size() == limiteErreurs) {
+                    break;
+                }
+                errors.add(erreur);
+            }
+            if (parties[p].arret < 0 || errors.size() == limiteErreurs) {
+                break;
+            }
+            p = Arrays.binarySearch(debuts, parties[p].arret);
+        }
+        complet = errors.size() < limiteErreurs;
+        return errors.isEmpty();
+    }
+
+    /**
+     * Débuts des parties (numéros de tokens, croissants, le premier à 0) :
+     * PARTIES_PAR_THREAD par thread du pool, chacune au premier début
+     * d'instruction probable après une fraction égale du tampon
+     */
+    private int[] decouper() {
+        int taille = tokens.size();
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        int threads = pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        int nombre = threads <= 1 ? 1 : Math.min(taille / tokensParPartie, threads * PARTIES_PAR_THREAD);
+
+        int[] debuts = new int[Math.max(nombre, 1)];
+        int parties = 1;
+        for (int k = 1; k < nombre; k++) {
+            int debut = (int) Math.max((long) taille * k / nombre, debuts[parties - 1] + 1);
+            while (debut < taille - 1 && !debutProbable(debut)) {
+                debut++;
+            }
+            if (debut >= taille - 1) {
+                break;  // Plus de début avant EOF
+            }
+            debuts[parties++] = debut;
+        }
+        return Arrays.copyOf(debuts, parties);
+    }
+
+    /**
+     * Le token i commence-t-il une ligne, en colonne 1, par un mot qui peut
+     * commencer une instruction ?
+     */
+    private boolean debutProbable(int i) {
+        Token.TokenType type = tokens.type(i);
+        return (type == Token.TokenType.IDENTIFIER || type == Token.TokenType.SWITCH)
+                && tokens.column(i) == 1 && tokens.type(i - 1) == Token.TokenType.NEWLINE;
+    }
+
+    /**
+     * false si la limite d'erreurs a arrêté l'analyse avant la fin
+     */
+    public boolean estComplet() {
+        return complet;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
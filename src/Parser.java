@@ -4,54 +4,186 @@ import java.util.*;
  * Parser - Analyseur Syntaxique par Descente Récursive
  * Structure PRINCIPALE : Switch/Case en Python
  *
-
+ * Tout l'état du parser appartient à l'instance : plusieurs Parser
+ * peuvent analyser des programmes différents en parallèle
+ * (une instance par programme, jamais partagée entre threads).
+ *
+ * Reprise sur erreur (mode panique) : après une erreur, r passe à false et
+ * les règles en cours s'arrêtent sans signaler d'autres erreurs ; la liste
+ * d'instructions la plus proche (programme ou corps d'un case) saute alors
+ * jusqu'à une fin de ligne, un case, un default ou une '}' et reprend
+ * l'analyse. Toutes les erreurs d'un fichier sortent donc d'une seule passe,
+ * dans la limite de setLimiteErreurs().
+ *
+ * Imbrication sans limite de pile : aucune règle ne s'appelle elle-même.
+ * Les expressions sont analysées avec une pile de travail (opérandes,
+ * opérateurs en attente, parenthèses, crochets et appels ouverts, opérateurs
+ * préfixes), les switch imbriqués dans les case avec une pile de switch
+ * ouverts : la profondeur n'est limitée que par la mémoire, pas par -Xss.
  */
 public class Parser {
 
-    private static List<Token> tokens;
-    private static int index;
-    private static Token tc;
-    private static boolean r;
-    private static List<String> errors;
+    public static final int LIMITE_ERREURS = 100;  // Par défaut
+
+    // Étapes de l'analyse d'une expression (voir expression)
+    private static final int OPERANDE = 0;        // Opérande à lire (Unary)
+    private static final int FIN_EXPRESSION = 1;  // Expression finie : operande, valeur
+    private static final int FIN_SUFFIXES = 2;    // Suffixes de AccessSuffixes lus
+
+    // Pile de travail des expressions : opérateur binaire en attente ou ouverture
+    private static final int BINAIRE = 0;
+    private static final int PARENTHESE = 1;
+    private static final int LISTE = 2;
+    private static final int INDICE = 3;
+    private static final int APPEL = 4;
+
+    private static final int PRIORITE_OR = 1;
+    private static final int PRIORITE_TERM = 5;  // Term et Factor calculent les constantes
+
+    private final TokenCursor tokens;
+    private Token.TokenType tc;    // Type du token courant
+    private Token.TokenType prev;  // Type du token précédent
+    private boolean r;              // false pendant la reprise après une erreur
+    private boolean arret;          // Limite d'erreurs atteinte : plus de reprise
+    private int limiteErreurs = LIMITE_ERREURS;
+    private final List<Erreur> errors;
+    private Reporter reporter = Reporter.silencieux();
+    private Ast ast;                // null : pas d'arbre construit
+    private int root = Ast.AUCUN;   // Noeud PROGRAM
+    private boolean pliage;         // Calculer la valeur des expressions (étiquette de case)
+    private Object valeur;          // Valeur constante de la dernière expression (null sinon)
+
+    private int[] reprises;         // Débuts d'instruction où s'arrêter (voir parseJusqua), null sinon
+    private int prochaineReprise;   // Première de reprises pas encore dépassée
+    private int reprise = -1;       // Celle où l'analyse s'est arrêtée
+
+    // Opérateurs préfixes en attente de leur opérande (voir Unary)
+    private int[] prefixes = new int[16];
+    private Token.TokenType[] operateursPrefixes = new Token.TokenType[16];
+    private int nombrePrefixes;
+
+    // Expression en cours (voir expression)
+    private int operande;             // Dernier opérande lu, ou résultat des opérateurs appliqués
+    private int debutPrefixes;        // Ses opérateurs préfixes : prefixes[debutPrefixes .. nombrePrefixes[
+    private int[] travaux = new int[16];        // BINAIRE ou sorte d'ouverture
+    private int[] noeudsTravaux = new int[16];  // Opérateur, liste, indice ou appel (AUCUN : parenthèse)
+    private int[] priorites = new int[16];      // Priorité de l'opérateur (0 : ouverture)
+    private Token.TokenType[] operateursBinaires = new Token.TokenType[16];
+    private int[] gauches = new int[16];        // Opérande gauche de l'opérateur
+    private Object[] valeursGauches = new Object[16];  // Sa valeur constante (null sinon, et au-delà du sommet)
+    private int[] debutsPrefixes = new int[16];  // debutPrefixes de l'opérande qui contient l'ouverture
+    private int nombreTravaux;
+    private int finSuffixes;          // nombreTravaux à la fin des suffixes de AccessSuffixes (-1 : Expression)
+
+    private final Deque<SwitchOuvert> switchs = new ArrayDeque<>();
+
+    public Parser(TokenBuffer tokenBuffer) {
+        this(tokenBuffer.cursor());
+    }
 
-    public Parser(List<Token> tokenList) {
-        tokens = tokenList;
-        index = 0;
+    /**
+     * Les tokens sont lus à la demande (par exemple directement depuis
+     * un Lexer en mode flux, sans liste de tokens en mémoire)
+     */
+    public Parser(TokenCursor cursor) {
+        tokens = cursor;
+        prev = null;
         r = true;
         errors = new ArrayList<>();
-        if (tokens.size() > 0) {
-            tc = tokens.get(index);
-        }
+        tc = tokens.peek();
+    }
+
+    /**
+     * Où afficher les messages (par défaut : nulle part, les erreurs
+     * restent disponibles avec getErrors())
+     */
+    public void setReporter(Reporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Construire l'arbre syntaxique pendant l'analyse (désactivé par défaut :
+     * sans arbre, l'analyse ne fait que valider le code)
+     */
+    public void setBuildAst(boolean buildAst) {
+        this.ast = buildAst ? new Ast() : null;
+    }
+
+    /**
+     * Nombre d'erreurs après lequel l'analyse s'arrête (LIMITE_ERREURS par défaut)
+     */
+    public void setLimiteErreurs(int limiteErreurs) {
+        this.limiteErreurs = Math.max(1, limiteErreurs);
     }
 
     public boolean parse() {
-        Program();
+        root = Program();
 
-        if (tc.getType() == Token.TokenType.EOF && r) {
-            System.out.println("✓ Analyse syntaxique réussie !");
+        if (tc == Token.TokenType.EOF && r && errors.isEmpty()) {
+            reporter.println(Reporter.Niveau.NORMAL, "✓ Analyse syntaxique réussie !");
             return true;
         } else {
             if (!errors.isEmpty()) {
-                System.out.println("✗ Erreurs détectées :");
-                for (String error : errors) {
-                    System.out.println("  " + error);
+                reporter.println(Reporter.Niveau.NORMAL, "✗ Erreurs détectées :");
+                for (Erreur error : errors) {
+                    reporter.println(Reporter.Niveau.NORMAL, "  " + error);
                 }
             }
+            if (arret) {
+                reporter.println(Reporter.Niveau.NORMAL, "✗ Analyse arrêtée après " + errors.size() + " erreurs");
+            }
             return false;
         }
     }
 
+    /**
+     * Analyse comme parse(), mais s'arrête au début de la première instruction
+     * de premier niveau qui commence à l'un des tokens reprises (triés ; ceux
+     * qui ne sont pas après le premier token sont ignorés) et retourne ce
+     * token ; -1 si l'analyse est allée jusqu'à EOF ou jusqu'à la limite d'erreurs.
+     *
+     * Entre deux instructions de premier niveau, le Parser est toujours dans
+     * son état de départ : l'analyse de la suite est celle d'un nouveau
+     * Parser qui commencerait à ce token (voir ParallelParser).
+     */
+    int parseJusqua(int[] reprises) {
+        int premiere = Arrays.binarySearch(reprises, tokens.index());
+        this.reprises = reprises;
+        this.prochaineReprise = premiere >= 0 ? premiere + 1 : -premiere - 1;
+        parse();
+        return reprise;
+    }
+
     /**
      * RÈGLE : Program
      * Program ::= Statement*
      */
-    private static void Program() {
+    private int Program() {
+        int program = node(Ast.Kind.PROGRAM);
         skipNewlines();
 
-        while (tc.getType() != Token.TokenType.EOF && r) {
-            Statement();
+        while (tc != Token.TokenType.EOF && r) {
+            if (reprises != null && estReprise(tokens.index())) {
+                reprise = tokens.index();
+                break;
+            }
+            child(program, Statement());
+            if (!r) {
+                synchroniser();
+            }
             skipNewlines();
         }
+        return program;
+    }
+
+    /**
+     * Le token (début d'instruction de premier niveau) est-il dans reprises ?
+     */
+    private boolean estReprise(int token) {
+        while (prochaineReprise < reprises.length && reprises[prochaineReprise] < token) {
+            prochaineReprise++;
+        }
+        return prochaineReprise < reprises.length && reprises[prochaineReprise] == token;
     }
 
     /**
@@ -60,70 +192,79 @@ public class Parser {
      *
      * IMPORTANT : Les structures if, while, for sont IGNORÉES (non analysées)
      */
-    private static void Statement() {
+    private int Statement() {
         skipNewlines();
 
-        if (tc.getType() == Token.TokenType.SWITCH) {
+        if (tc == Token.TokenType.SWITCH) {
             // STRUCTURE PRINCIPALE : Switch/Case
-            SwitchStatement();
-        } else if (tc.getType() == Token.TokenType.IDENTIFIER) {
+            return SwitchStatement();
+        } else if (tc == Token.TokenType.IDENTIFIER) {
             // Déclarations et affectations
-            AssignmentOrExpression();
-        } else if (tc.getType() == Token.TokenType.BREAK) {
+            return AssignmentOrExpression();
+        } else if (tc == Token.TokenType.BREAK) {
+            int n = node(Ast.Kind.BREAK);
             advance();
             skipNewlines();
-        } else if (tc.getType() == Token.TokenType.CONTINUE) {
+            return n;
+        } else if (tc == Token.TokenType.CONTINUE) {
+            int n = node(Ast.Kind.CONTINUE);
             advance();
             skipNewlines();
-        } else if (tc.getType() == Token.TokenType.PASS) {
+            return n;
+        } else if (tc == Token.TokenType.PASS) {
+            int n = node(Ast.Kind.PASS);
             advance();
             skipNewlines();
-        } else if (tc.getType() == Token.TokenType.NEWLINE) {
+            return n;
+        } else if (tc == Token.TokenType.NEWLINE) {
             advance();
-        } else if (tc.getType() == Token.TokenType.IF ||
-                tc.getType() == Token.TokenType.WHILE ||
-                tc.getType() == Token.TokenType.FOR ||
-                tc.getType() == Token.TokenType.DEF ||
-                tc.getType() == Token.TokenType.CLASS) {
+        } else if (tc == Token.TokenType.IF ||
+                tc == Token.TokenType.WHILE ||
+                tc == Token.TokenType.FOR ||
+                tc == Token.TokenType.DEF ||
+                tc == Token.TokenType.CLASS) {
             // IGNORÉ : Ces structures ne sont pas analysées (conformément au projet)
-            System.out.println("⚠️  Instruction '" + tc.getValue() + "' ignorée lors de l'analyse syntaxique (seul switch/case est analysé)");
+            if (reporter.affiche(Reporter.Niveau.NORMAL)) {
+                reporter.println(Reporter.Niveau.NORMAL, "⚠️  Instruction '" + tokens.value() + "' ignorée lors de l'analyse syntaxique (seul switch/case est analysé)");
+            }
+            int n = node(Ast.Kind.IGNORED);
             skipUntilNextStatement();
-        } else if (tc.getType() != Token.TokenType.EOF &&
-                tc.getType() != Token.TokenType.RBRACE &&
-                tc.getType() != Token.TokenType.CASE &&
-                tc.getType() != Token.TokenType.DEFAULT) {
-            error("Instruction non reconnue : " + tc.getValue());
+            return n;
+        } else if (tc != Token.TokenType.EOF) {
+            // Y compris '}', case et default hors de leur place (sinon l'analyse boucle)
+            error("Instruction non reconnue : " + tokens.value());
             advance();
         }
+        return Ast.AUCUN;
     }
 
     /**
      * Ignore une structure non analysée jusqu'à la prochaine instruction
      */
-    private static void skipUntilNextStatement() {
+    private void skipUntilNextStatement() {
         advance();
 
         // Sauter jusqu'au prochain switch ou identifiant au même niveau
         int braceLevel = 0;
         int parenLevel = 0;
 
-        while (tc.getType() != Token.TokenType.EOF && r) {
-            if (tc.getType() == Token.TokenType.LBRACE) {
+        while (tc != Token.TokenType.EOF && r) {
+            if (tc == Token.TokenType.LBRACE) {
                 braceLevel++;
-            } else if (tc.getType() == Token.TokenType.RBRACE) {
+            } else if (tc == Token.TokenType.RBRACE) {
                 braceLevel--;
                 if (braceLevel < 0) break;
-            } else if (tc.getType() == Token.TokenType.LPAREN) {
+            } else if (tc == Token.TokenType.LPAREN) {
                 parenLevel++;
-            } else if (tc.getType() == Token.TokenType.RPAREN) {
+            } else if (tc == Token.TokenType.RPAREN) {
                 parenLevel--;
             }
 
             // Si on revient au niveau 0 et qu'on trouve switch ou un identifiant
             if (braceLevel == 0 && parenLevel == 0) {
-                if (tc.getType() == Token.TokenType.SWITCH ||
-                        (tc.getType() == Token.TokenType.IDENTIFIER &&
-                                tokens.get(index - 1).getType() == Token.TokenType.NEWLINE)) {
+                if (tc == Token.TokenType.SWITCH ||
+                        (tc == Token.TokenType.IDENTIFIER &&
+                                prev == Token.TokenType.NEWLINE)) {
                     break;
                 }
             }
@@ -135,357 +276,629 @@ public class Parser {
     /**
      * RÈGLE PRINCIPALE : SwitchStatement
      * SwitchStatement ::= SWITCH LPAREN Expression RPAREN LBRACE CaseClause* [DefaultClause] RBRACE
+     *
+     * Les valeurs des case sont rassemblées dans un SwitchPlan, qui signale
+     * les doublons et choisit l'aiguillage (voir Ast.plan)
+     *
+     * Un switch imbriqué dans un case n'est pas analysé par récursion : il
+     * est empilé sur switchs, et le switch du sommet avance d'une clause ou
+     * d'une instruction à la fois jusqu'à sa '}'
      */
-    private static void SwitchStatement() {
-        if (tc.getType() == Token.TokenType.SWITCH) {
+    private int SwitchStatement() {
+        int base = switchs.size();
+        int sw = ouvrirSwitch();
+
+        while (switchs.size() > base) {
+            SwitchOuvert s = switchs.peek();
+            if (s.corps) {
+                ClauseBody(s);
+            } else if (!clauseSuivante(s)) {
+                fermerSwitch(s);
+                if (switchs.size() > base) {
+                    finInstruction();  // Le switch fermé était une instruction du case en dessous
+                }
+            }
+        }
+        return sw;
+    }
+
+    /**
+     * En-tête du switch jusqu'à la '{' : le switch est empilé si son bloc
+     * commence (sinon l'erreur est déjà signalée)
+     */
+    private int ouvrirSwitch() {
+        int sw = node(Ast.Kind.SWITCH);
+        int ligne = tokens.line();
+
+        if (tc == Token.TokenType.SWITCH) {
             advance();
         } else {
             error("'switch' attendu");
-            return;
+            return sw;
         }
 
-        if (tc.getType() == Token.TokenType.LPAREN) {
+        if (tc == Token.TokenType.LPAREN) {
             advance();
+            child(sw, Expression());
+
+            if (r) {
+                if (tc == Token.TokenType.RPAREN) {
+                    advance();
+                } else {
+                    error("')' attendu après l'expression");
+                }
+            }
         } else {
             error("'(' attendu après 'switch'");
-            return;
         }
 
-        Expression();
-
-        if (tc.getType() == Token.TokenType.RPAREN) {
-            advance();
-        } else {
-            error("')' attendu après l'expression");
-            return;
+        // En-tête incorrect : on reprend à la '{' si elle est sur la même ligne
+        if (!r && !allerA(Token.TokenType.LBRACE)) {
+            return sw;
         }
 
-        if (tc.getType() == Token.TokenType.LBRACE) {
+        if (tc == Token.TokenType.LBRACE) {
             advance();
         } else {
             error("'{' attendu pour ouvrir le bloc switch");
-            return;
+            return sw;
         }
 
         skipNewlines();
 
-        if (tc.getType() != Token.TokenType.CASE && tc.getType() != Token.TokenType.DEFAULT) {
+        if (tc != Token.TokenType.CASE && tc != Token.TokenType.DEFAULT) {
             error("Au moins un 'case' ou 'default' attendu dans le switch");
+            while (synchroniser() && tc != Token.TokenType.CASE && tc != Token.TokenType.DEFAULT
+                    && tc != Token.TokenType.RBRACE && tc != Token.TokenType.EOF) {
+                skipNewlines();
+                if (tc != Token.TokenType.CASE && tc != Token.TokenType.DEFAULT && tc != Token.TokenType.RBRACE) {
+                    advance();
+                }
+            }
         }
 
-        while (tc.getType() == Token.TokenType.CASE && r) {
-            CaseClause();
+        switchs.push(new SwitchOuvert(sw, ligne));
+        return sw;
+    }
+
+    /**
+     * Clause suivante du switch s (son corps est analysé ensuite par
+     * ClauseBody) ; false à la fin du bloc.
+     *
+     * Le default vient en dernier : ce qui suit (case, instructions après
+     * un break) est signalé, puis analysé quand même
+     */
+    private boolean clauseSuivante(SwitchOuvert s) {
+        if (tc == Token.TokenType.RBRACE || tc == Token.TokenType.EOF || arret) {
+            return false;
+        }
+        if (s.defaut || (tc != Token.TokenType.CASE && tc != Token.TokenType.DEFAULT)) {
+            error("'}' attendu pour fermer le bloc switch");
+            if (!reprendre()) {
+                return false;
+            }
+        }
+        if (tc == Token.TokenType.CASE) {
+            int clause = CaseClause(s.plan);
+            child(s.sw, clause);
+            s.ouvrirCorps(clause, true);
+        } else if (tc == Token.TokenType.DEFAULT) {
+            int clause = DefaultClause();
+            child(s.sw, clause);
+            s.ouvrirCorps(clause, false);
+            s.defaut = true;
+        } else {
+            s.ouvrirCorps(Ast.AUCUN, true);
         }
+        return true;
+    }
 
-        if (tc.getType() == Token.TokenType.DEFAULT && r) {
-            DefaultClause();
+    private void fermerSwitch(SwitchOuvert s) {
+        s.plan.terminer();
+        if (ast != null) {
+            ast.setPlan(s.sw, s.plan);
+        }
+        if (reporter.affiche(Reporter.Niveau.DETAILLE)) {
+            reporter.println(Reporter.Niveau.DETAILLE, "  switch ligne " + s.ligne + " : " + s.plan.cout());
         }
 
-        if (tc.getType() == Token.TokenType.RBRACE) {
+        if (tc == Token.TokenType.RBRACE) {
             advance();
-        } else {
+        } else if (!arret) {
             error("'}' attendu pour fermer le bloc switch");
         }
+        switchs.pop();
     }
 
     /**
      * RÈGLE : CaseClause
      * CaseClause ::= CASE Expression COLON Statement* [BREAK]
+     * (ici l'en-tête jusqu'au ':', les instructions sont lues par ClauseBody)
      */
-    private static void CaseClause() {
-        if (tc.getType() == Token.TokenType.CASE) {
+    private int CaseClause(SwitchPlan plan) {
+        int clause = node(Ast.Kind.CASE);
+
+        if (tc == Token.TokenType.CASE) {
             advance();
         } else {
             error("'case' attendu");
-            return;
+            return clause;
         }
 
-        Expression();
-
-        if (tc.getType() == Token.TokenType.COLON) {
-            advance();
-        } else {
-            error("':' attendu après la valeur du case");
-            return;
+        int ligne = tokens.line();
+        int colonne = tokens.column();
+        pliage = true;
+        child(clause, Expression());
+        pliage = false;
+
+        if (r) {
+            int deja = plan.ajouter(valeur, ligne);
+            if (deja > 0) {
+                String texte = valeur instanceof String ? "\"" + valeur + "\"" : ScriptRuntime.texte(valeur);
+                erreurSemantique(Erreur.syntaxe(ligne, colonne, "case " + texte + " en double", "déjà utilisé ligne", deja));
+            }
         }
 
-        skipNewlines();
-
-        // Traiter les instructions du case
-        while (tc.getType() != Token.TokenType.CASE &&
-                tc.getType() != Token.TokenType.DEFAULT &&
-                tc.getType() != Token.TokenType.RBRACE &&
-                tc.getType() != Token.TokenType.EOF && r) {
-
-            if (tc.getType() == Token.TokenType.BREAK) {
+        if (r) {
+            if (tc == Token.TokenType.COLON) {
                 advance();
-                skipNewlines();
-                return;
+            } else {
+                error("':' attendu après la valeur du case");
             }
-
-            Statement();
-            skipNewlines();
         }
+        if (!r && !synchroniser()) {
+            return clause;
+        }
+
+        skipNewlines();
+        return clause;
     }
 
     /**
      * RÈGLE : DefaultClause
      * DefaultClause ::= DEFAULT COLON Statement*
+     * (ici l'en-tête jusqu'au ':', les instructions sont lues par ClauseBody)
      */
-    private static void DefaultClause() {
-        if (tc.getType() == Token.TokenType.DEFAULT) {
+    private int DefaultClause() {
+        int clause = node(Ast.Kind.DEFAULT);
+
+        if (tc == Token.TokenType.DEFAULT) {
             advance();
         } else {
             error("'default' attendu");
-            return;
+            return clause;
         }
 
-        if (tc.getType() == Token.TokenType.COLON) {
+        if (tc == Token.TokenType.COLON) {
             advance();
         } else {
             error("':' attendu après 'default'");
-            return;
+            if (!synchroniser()) {
+                return clause;
+            }
         }
 
         skipNewlines();
+        return clause;
+    }
 
-        while (tc.getType() != Token.TokenType.RBRACE &&
-                tc.getType() != Token.TokenType.EOF && r) {
+    /**
+     * Instruction suivante du corps de la clause en cours de s (jusqu'au
+     * case / default suivant pour un case), terminé éventuellement par BREAK.
+     * Un switch imbriqué est seulement ouvert : SwitchStatement l'analyse,
+     * puis finit l'instruction quand il est fermé.
+     */
+    private void ClauseBody(SwitchOuvert s) {
+        if ((s.isCase && (tc == Token.TokenType.CASE || tc == Token.TokenType.DEFAULT)) ||
+                tc == Token.TokenType.RBRACE ||
+                tc == Token.TokenType.EOF || !r) {
+            s.corps = false;
+            return;
+        }
 
-            if (tc.getType() == Token.TokenType.BREAK) {
-                advance();
-                skipNewlines();
+        if (tc == Token.TokenType.BREAK) {
+            child(s.clause, node(Ast.Kind.BREAK));
+            advance();
+            skipNewlines();
+            s.corps = false;
+            return;
+        }
+
+        skipNewlines();
+        if (tc == Token.TokenType.SWITCH) {
+            child(s.clause, ouvrirSwitch());
+            if (switchs.peek() != s) {
                 return;
             }
+        } else {
+            child(s.clause, Statement());
+        }
+        finInstruction();
+    }
 
-            Statement();
-            skipNewlines();
+    private void finInstruction() {
+        if (!r) {
+            synchroniser();
         }
+        skipNewlines();
     }
 
     /**
      * RÈGLE : AssignmentOrExpression
      * AssignmentOrExpression ::= IDENTIFIER (ASSIGN | PLUS_ASSIGN | MINUS_ASSIGN | INCREMENT | DECREMENT | AccessSuffix*) Expression
      */
-    private static void AssignmentOrExpression() {
-        if (tc.getType() == Token.TokenType.IDENTIFIER) {
+    private int AssignmentOrExpression() {
+        if (tc == Token.TokenType.IDENTIFIER) {
+            int name = node(Ast.Kind.NAME);
             advance();
 
-            if (tc.getType() == Token.TokenType.ASSIGN ||
-                    tc.getType() == Token.TokenType.PLUS_ASSIGN ||
-                    tc.getType() == Token.TokenType.MINUS_ASSIGN) {
+            if (tc == Token.TokenType.ASSIGN ||
+                    tc == Token.TokenType.PLUS_ASSIGN ||
+                    tc == Token.TokenType.MINUS_ASSIGN) {
+                int assign = node(Ast.Kind.ASSIGN);
                 advance();
-                Expression();
-            } else if (tc.getType() == Token.TokenType.INCREMENT ||
-                    tc.getType() == Token.TokenType.DECREMENT) {
+                child(assign, name);
+                child(assign, Expression());
+                return assign;
+            } else if (tc == Token.TokenType.INCREMENT ||
+                    tc == Token.TokenType.DECREMENT) {
+                int incdec = node(Ast.Kind.INCDEC);
                 advance();
+                child(incdec, name);
+                return incdec;
             } else {
                 // Accès (attributs, méthodes, tableaux)
-                while ((tc.getType() == Token.TokenType.DOT ||
-                        tc.getType() == Token.TokenType.LBRACKET ||
-                        tc.getType() == Token.TokenType.LPAREN) && r) {
-
-                    if (tc.getType() == Token.TokenType.DOT) {
-                        advance();
-                        if (tc.getType() == Token.TokenType.IDENTIFIER) {
-                            advance();
-                        } else {
-                            error("Identifiant attendu après '.'");
-                        }
-                    } else if (tc.getType() == Token.TokenType.LBRACKET) {
-                        advance();
-                        Expression();
-                        if (tc.getType() == Token.TokenType.RBRACKET) {
-                            advance();
-                        } else {
-                            error("']' attendu");
-                        }
-                    } else if (tc.getType() == Token.TokenType.LPAREN) {
-                        advance();
-                        ArgumentList();
-                        if (tc.getType() == Token.TokenType.RPAREN) {
-                            advance();
-                        } else {
-                            error("')' attendu");
-                        }
-                    }
-                }
+                int expr = node(Ast.Kind.EXPR, tokenOf(name));
+                child(expr, AccessSuffixes(name));
+                return expr;
             }
         } else {
             error("Identifiant attendu");
+            return Ast.AUCUN;
         }
     }
 
     /**
-     * EXPRESSIONS - Hiérarchie de précédence
+     * AccessSuffix ::= DOT IDENTIFIER | LBRACKET Expression RBRACKET | LPAREN ArgumentList RPAREN
+     * Retourne le noeud de l'expression complète (target si aucun suffixe)
      */
-
-    private static void Expression() {
-        LogicalOr();
+    private int AccessSuffixes(int target) {
+        return expression(true, target);
     }
 
-    private static void LogicalOr() {
-        LogicalAnd();
+    /**
+     * EXPRESSIONS - Hiérarchie de précédence
+     * Expression ::= LogicalOr
+     * LogicalOr  ::= LogicalAnd (OR LogicalAnd)*
+     * LogicalAnd ::= Equality (AND Equality)*
+     * Equality   ::= Comparison ((EQUAL | NOT_EQUAL) Comparison)*
+     * Comparison ::= Term ((LESS | LESS_EQUAL | GREATER | GREATER_EQUAL) Term)*
+     * Term       ::= Factor ((PLUS | MINUS) Factor)*
+     * Factor     ::= Unary ((MULTIPLY | DIVIDE | MODULO) Unary)*
+     * (chaque méthode retourne le noeud de l'expression lue)
+     */
 
-        while (tc.getType() == Token.TokenType.OR && r) {
-            advance();
-            LogicalAnd();
-        }
+    private int Expression() {
+        return expression(false, Ast.AUCUN);
     }
 
-    private static void LogicalAnd() {
-        Equality();
-
-        while (tc.getType() == Token.TokenType.AND && r) {
-            advance();
-            Equality();
+    /**
+     * Analyse d'une expression sans récursion, avec une pile de travail
+     * (travaux) : les opérateurs binaires en attente avec leur opérande
+     * gauche, et les parenthèses, listes, indices et appels ouverts.
+     *
+     * Avant d'empiler un opérateur, ceux de priorité supérieure ou égale à
+     * sa gauche sont appliqués : l'arbre est celui de la descente récursive
+     * par niveaux de priorité (associativité à gauche). Une ouverture est
+     * fermée quand l'expression qu'elle contient est finie.
+     *
+     * suffixes : seulement les suffixes de cible (AccessSuffixes)
+     */
+    private int expression(boolean suffixes, int cible) {
+        int base = nombreTravaux;
+        finSuffixes = suffixes ? base : -1;
+        operande = cible;
+        debutPrefixes = nombrePrefixes;
+        int etape = suffixes ? suivreSuffixes() : OPERANDE;
+
+        while (etape != FIN_SUFFIXES) {
+            if (etape == OPERANDE) {
+                etape = Unary();
+            } else if (nombreTravaux == base) {
+                return operande;
+            } else {
+                etape = fermer();
+            }
         }
+        return operande;
     }
 
-    private static void Equality() {
-        Comparison();
-
-        while ((tc.getType() == Token.TokenType.EQUAL ||
-                tc.getType() == Token.TokenType.NOT_EQUAL) && r) {
+    /**
+     * Unary ::= (NOT | MINUS | INCREMENT | DECREMENT) Unary | Primary
+     * Les opérateurs sont empilés (prefixes) puis appliqués de l'intérieur
+     * vers l'extérieur à la fin de l'opérande (operandeLue) : "not not ... x"
+     * ne consomme pas de pile
+     */
+    private int Unary() {
+        debutPrefixes = nombrePrefixes;
+        while (tc == Token.TokenType.NOT ||
+                tc == Token.TokenType.MINUS ||
+                tc == Token.TokenType.INCREMENT ||
+                tc == Token.TokenType.DECREMENT) {
+            if (nombrePrefixes == prefixes.length) {
+                prefixes = Arrays.copyOf(prefixes, nombrePrefixes * 2);
+                operateursPrefixes = Arrays.copyOf(operateursPrefixes, nombrePrefixes * 2);
+            }
+            prefixes[nombrePrefixes] = node(Ast.Kind.UNARY);
+            operateursPrefixes[nombrePrefixes++] = tc;
             advance();
-            Comparison();
         }
+        return Primary();
     }
 
-    private static void Comparison() {
-        Term();
-
-        while ((tc.getType() == Token.TokenType.LESS ||
-                tc.getType() == Token.TokenType.LESS_EQUAL ||
-                tc.getType() == Token.TokenType.GREATER ||
-                tc.getType() == Token.TokenType.GREATER_EQUAL) && r) {
+    /**
+     * Primary ::= Littéral | IDENTIFIER AccessSuffix* | LPAREN Expression RPAREN
+     *           | LBRACKET [Expression (COMMA Expression)*] RBRACKET
+     * Une parenthèse ou une liste non vide est ouverte : son contenu est
+     * analysé aux étapes suivantes
+     */
+    private int Primary() {
+        if (tc == Token.TokenType.INTEGER ||
+                tc == Token.TokenType.FLOAT ||
+                tc == Token.TokenType.STRING ||
+                tc == Token.TokenType.BOOLEAN ||
+                tc == Token.TokenType.BENOUADFEL ||
+                tc == Token.TokenType.Yacine) {
+            operande = node(Ast.Kind.LITERAL);
+            valeur = pliage ? ConstantFolder.litteral(tc, tokens.value()) : null;
             advance();
-            Term();
+            return operandeLue();
         }
-    }
-
-    private static void Term() {
-        Factor();
 
-        while ((tc.getType() == Token.TokenType.PLUS ||
-                tc.getType() == Token.TokenType.MINUS) && r) {
+        if (tc == Token.TokenType.IDENTIFIER) {
+            operande = node(Ast.Kind.NAME);
             advance();
-            Factor();
+            return suivreSuffixes();
         }
-    }
-
-    private static void Factor() {
-        Unary();
 
-        while ((tc.getType() == Token.TokenType.MULTIPLY ||
-                tc.getType() == Token.TokenType.DIVIDE ||
-                tc.getType() == Token.TokenType.MODULO) && r) {
+        if (tc == Token.TokenType.LPAREN) {
             advance();
-            Unary();
+            ouvrir(PARENTHESE, Ast.AUCUN);
+            return OPERANDE;
         }
-    }
 
-    private static void Unary() {
-        if (tc.getType() == Token.TokenType.NOT ||
-                tc.getType() == Token.TokenType.MINUS ||
-                tc.getType() == Token.TokenType.INCREMENT ||
-                tc.getType() == Token.TokenType.DECREMENT) {
+        if (tc == Token.TokenType.LBRACKET) {
+            int list = node(Ast.Kind.LIST);
             advance();
-            Unary();
-        } else {
-            Primary();
-        }
-    }
 
-    private static void Primary() {
-        if (tc.getType() == Token.TokenType.INTEGER ||
-                tc.getType() == Token.TokenType.FLOAT ||
-                tc.getType() == Token.TokenType.STRING ||
-                tc.getType() == Token.TokenType.BOOLEAN ||
-                tc.getType() == Token.TokenType.BENOUADFEL ||
-                tc.getType() == Token.TokenType.Yacine) {
-            advance();
-            return;
+            if (tc != Token.TokenType.RBRACKET) {
+                ouvrir(LISTE, list);
+                return OPERANDE;
+            }
+            return fermerListe(list);
         }
 
-        if (tc.getType() == Token.TokenType.IDENTIFIER) {
-            advance();
+        error("Expression invalide : " + tokens.value());
+        valeur = null;
+        operande = Ast.AUCUN;
+        return operandeLue();
+    }
 
-            while ((tc.getType() == Token.TokenType.DOT ||
-                    tc.getType() == Token.TokenType.LBRACKET ||
-                    tc.getType() == Token.TokenType.LPAREN) && r) {
+    /**
+     * Suffixes de l'opérande ; un indice ou un appel avec arguments est
+     * ouvert (analysé aux étapes suivantes, puis les suffixes reprennent)
+     */
+    private int suivreSuffixes() {
+        while ((tc == Token.TokenType.DOT ||
+                tc == Token.TokenType.LBRACKET ||
+                tc == Token.TokenType.LPAREN) && r) {
 
-                if (tc.getType() == Token.TokenType.DOT) {
-                    advance();
-                    if (tc.getType() == Token.TokenType.IDENTIFIER) {
-                        advance();
-                    } else {
-                        error("Identifiant attendu après '.'");
-                    }
-                } else if (tc.getType() == Token.TokenType.LBRACKET) {
-                    advance();
-                    Expression();
-                    if (tc.getType() == Token.TokenType.RBRACKET) {
-                        advance();
-                    } else {
-                        error("']' attendu");
-                    }
-                } else if (tc.getType() == Token.TokenType.LPAREN) {
+            if (tc == Token.TokenType.DOT) {
+                advance();
+                if (tc == Token.TokenType.IDENTIFIER) {
+                    int member = node(Ast.Kind.MEMBER);
+                    child(member, operande);
+                    operande = member;
                     advance();
-                    ArgumentList();
-                    if (tc.getType() == Token.TokenType.RPAREN) {
-                        advance();
-                    } else {
-                        error("')' attendu");
-                    }
+                } else {
+                    error("Identifiant attendu après '.'");
+                }
+            } else if (tc == Token.TokenType.LBRACKET) {
+                int index = node(Ast.Kind.INDEX);
+                advance();
+                child(index, operande);
+                ouvrir(INDICE, index);
+                return OPERANDE;
+            } else {
+                // ArgumentList ::= [Expression (COMMA Expression)*]
+                int call = node(Ast.Kind.CALL);
+                advance();
+                child(call, operande);
+                if (tc != Token.TokenType.RPAREN) {
+                    ouvrir(APPEL, call);
+                    return OPERANDE;
                 }
+                operande = call;
+                advance();
             }
-            return;
         }
+        if (nombreTravaux == finSuffixes) {
+            return FIN_SUFFIXES;
+        }
+        valeur = null;
+        return operandeLue();
+    }
 
-        if (tc.getType() == Token.TokenType.LPAREN) {
-            advance();
-            Expression();
+    /**
+     * Fin d'un opérande : ses opérateurs préfixes, puis l'opérateur binaire
+     * qui suit éventuellement (LogicalOr ... Factor)
+     */
+    private int operandeLue() {
+        while (nombrePrefixes > debutPrefixes) {
+            int op = prefixes[--nombrePrefixes];
+            Token.TokenType operateur = operateursPrefixes[nombrePrefixes];
+            child(op, operande);
+            valeur = operateur == Token.TokenType.MINUS ? ConstantFolder.negatif(valeur) : null;
+            operande = op;
+        }
 
-            if (tc.getType() == Token.TokenType.RPAREN) {
+        int priorite = r ? priorite(tc) : 0;
+        if (priorite == 0) {
+            reduire(PRIORITE_OR);
+            return FIN_EXPRESSION;
+        }
+        reduire(priorite);
+        empiler(BINAIRE, node(Ast.Kind.BINARY), priorite);
+        operateursBinaires[nombreTravaux - 1] = tc;
+        gauches[nombreTravaux - 1] = operande;
+        if (valeur != null) {
+            valeursGauches[nombreTravaux - 1] = valeur;
+        }
+        advance();
+        return OPERANDE;
+    }
+
+    /**
+     * Applique les opérateurs en attente de priorité au moins priorite, du
+     * plus récent au plus ancien (jusqu'à une ouverture) : operande et
+     * valeur deviennent leur résultat
+     */
+    private void reduire(int priorite) {
+        while (nombreTravaux > 0 && priorites[nombreTravaux - 1] >= priorite) {
+            nombreTravaux--;
+            operande = binary(noeudsTravaux[nombreTravaux], gauches[nombreTravaux], operande);
+
+            // Term et Factor calculent la valeur des constantes (étiquettes de case)
+            Object gauche = valeursGauches[nombreTravaux];
+            if (gauche != null) {
+                valeursGauches[nombreTravaux] = null;
+                valeur = priorites[nombreTravaux] >= PRIORITE_TERM
+                        ? ConstantFolder.binaire(operateursBinaires[nombreTravaux], gauche, valeur) : null;
+            } else {
+                valeur = null;
+            }
+        }
+    }
+
+    /**
+     * L'expression contenue dans l'ouverture du sommet est finie (operande,
+     * valeur) : suite de la parenthèse, de la liste, de l'indice ou de l'appel
+     */
+    private int fermer() {
+        nombreTravaux--;
+        int ouverture = travaux[nombreTravaux];
+        int n = noeudsTravaux[nombreTravaux];
+        debutPrefixes = debutsPrefixes[nombreTravaux];
+
+        if (ouverture == PARENTHESE) {
+            if (tc == Token.TokenType.RPAREN) {
                 advance();
             } else {
                 error("')' attendu");
             }
-            return;
+            return operandeLue();
         }
 
-        if (tc.getType() == Token.TokenType.LBRACKET) {
-            advance();
-
-            if (tc.getType() != Token.TokenType.RBRACKET) {
-                Expression();
-
-                while (tc.getType() == Token.TokenType.COMMA && r) {
-                    advance();
-                    Expression();
-                }
+        child(n, operande);
+        if (ouverture == LISTE) {
+            if (tc == Token.TokenType.COMMA && r) {
+                advance();
+                ouvrir(LISTE, n);
+                return OPERANDE;
             }
+            return fermerListe(n);
+        }
 
-            if (tc.getType() == Token.TokenType.RBRACKET) {
+        if (ouverture == INDICE) {
+            operande = n;
+            if (tc == Token.TokenType.RBRACKET) {
                 advance();
             } else {
                 error("']' attendu");
             }
-            return;
+            return suivreSuffixes();
+        }
+
+        if (tc == Token.TokenType.COMMA && r) {
+            advance();
+            ouvrir(APPEL, n);
+            return OPERANDE;
         }
+        operande = n;
+        if (tc == Token.TokenType.RPAREN) {
+            advance();
+        } else {
+            error("')' attendu");
+        }
+        return suivreSuffixes();
+    }
 
-        error("Expression invalide : " + tc.getValue());
+    private int fermerListe(int list) {
+        if (tc == Token.TokenType.RBRACKET) {
+            advance();
+        } else {
+            error("']' attendu");
+        }
+        valeur = null;
+        operande = list;
+        return operandeLue();
     }
 
-    private static void ArgumentList() {
-        if (tc.getType() != Token.TokenType.RPAREN) {
-            Expression();
+    /**
+     * Ouvre une parenthèse, une liste, un indice ou un appel : l'opérande en
+     * cours (et ses préfixes) reprend à sa fermeture
+     */
+    private void ouvrir(int ouverture, int n) {
+        empiler(ouverture, n, 0);
+        debutsPrefixes[nombreTravaux - 1] = debutPrefixes;
+    }
 
-            while (tc.getType() == Token.TokenType.COMMA && r) {
-                advance();
-                Expression();
-            }
+    private void empiler(int travail, int n, int priorite) {
+        if (nombreTravaux == travaux.length) {
+            agrandirTravaux();
+        }
+        travaux[nombreTravaux] = travail;
+        priorites[nombreTravaux] = priorite;
+        noeudsTravaux[nombreTravaux++] = n;
+    }
+
+    private void agrandirTravaux() {
+        int taille = nombreTravaux * 2;
+        travaux = Arrays.copyOf(travaux, taille);
+        noeudsTravaux = Arrays.copyOf(noeudsTravaux, taille);
+        priorites = Arrays.copyOf(priorites, taille);
+        operateursBinaires = Arrays.copyOf(operateursBinaires, taille);
+        gauches = Arrays.copyOf(gauches, taille);
+        valeursGauches = Arrays.copyOf(valeursGauches, taille);
+        debutsPrefixes = Arrays.copyOf(debutsPrefixes, taille);
+    }
+
+    /**
+     * Niveau de priorité d'un opérateur binaire (LogicalOr = 1 ... Factor = 6), 0 sinon
+     */
+    private static int priorite(Token.TokenType type) {
+        switch (type) {
+            case OR:
+                return PRIORITE_OR;
+            case AND:
+                return 2;
+            case EQUAL:
+            case NOT_EQUAL:
+                return 3;
+            case LESS:
+            case LESS_EQUAL:
+            case GREATER:
+            case GREATER_EQUAL:
+                return 4;
+            case PLUS:
+            case MINUS:
+                return PRIORITE_TERM;
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULO:
+                return 6;
+            default:
+                return 0;
         }
     }
 
@@ -493,28 +906,170 @@ public class Parser {
      * UTILITAIRES
      */
 
-    private static void advance() {
-        if (index < tokens.size() - 1) {
-            index++;
-            tc = tokens.get(index);
-        }
+    private void advance() {
+        prev = tokens.nextToken();
+        tc = tokens.peek();
     }
 
-    private static void skipNewlines() {
-        while (tc.getType() == Token.TokenType.NEWLINE && index < tokens.size() - 1) {
+    private void skipNewlines() {
+        while (tc == Token.TokenType.NEWLINE) {
             advance();
         }
     }
 
-    private static void error(String message) {
-        String errorMsg = String.format("Erreur ligne %d, colonne %d: %s (trouvé '%s')",
-                tc.getLine(), tc.getColumn(), message, tc.getValue());
-        errors.add(errorMsg);
-        System.out.println("✗ " + errorMsg);
+    /**
+     * Crée un noeud pour le token courant (AUCUN si l'arbre n'est pas construit)
+     */
+    private int node(Ast.Kind kind) {
+        return ast == null ? Ast.AUCUN : ast.add(kind, tokens.index());
+    }
+
+    private int node(Ast.Kind kind, int token) {
+        return ast == null ? Ast.AUCUN : ast.add(kind, token);
+    }
+
+    private int tokenOf(int n) {
+        return n == Ast.AUCUN ? Ast.AUCUN : ast.token(n);
+    }
+
+    private void child(int parent, int n) {
+        if (ast != null) {
+            ast.addChild(parent, n);
+        }
+    }
+
+    private int binary(int op, int left, int right) {
+        child(op, left);
+        child(op, right);
+        return op;
+    }
+
+    /**
+     * Signale une erreur de syntaxe et passe en reprise (r = false) ; pendant
+     * la reprise, les erreurs suivantes sont des conséquences de la première
+     * et ne sont pas signalées
+     */
+    private void error(String message) {
+        if (!r) {
+            return;
+        }
+        Erreur erreur = Erreur.syntaxe(tokens.line(), tokens.column(), message, tokens.value());
+        errors.add(erreur);
+        reporter.println(Reporter.Niveau.NORMAL, "✗ " + erreur);
         r = false;
+        arret = errors.size() >= limiteErreurs;
+    }
+
+    /**
+     * Fin de la reprise : saute jusqu'à une fin de ligne, un case, un default
+     * ou une '}' (un bloc { } rencontré en route est sauté en entier), puis
+     * reprend l'analyse. false si la limite d'erreurs est atteinte.
+     */
+    private boolean synchroniser() {
+        if (arret) {
+            return false;
+        }
+        int accolades = 0;
+        while (tc != Token.TokenType.EOF) {
+            if (accolades == 0 && (tc == Token.TokenType.NEWLINE || tc == Token.TokenType.CASE
+                    || tc == Token.TokenType.DEFAULT || tc == Token.TokenType.RBRACE)) {
+                break;
+            }
+            if (tc == Token.TokenType.LBRACE) {
+                accolades++;
+            } else if (tc == Token.TokenType.RBRACE) {
+                accolades--;
+            }
+            advance();
+        }
+        return reprendre();
+    }
+
+    /**
+     * Reprise sur le token type s'il est sur la ligne courante, avant toute '}'
+     */
+    private boolean allerA(Token.TokenType type) {
+        if (arret) {
+            return false;
+        }
+        while (tc != type && tc != Token.TokenType.NEWLINE && tc != Token.TokenType.RBRACE
+                && tc != Token.TokenType.EOF) {
+            advance();
+        }
+        return tc == type && reprendre();
+    }
+
+    /**
+     * Reprend l'analyse sans sauter de token. false si la limite d'erreurs est atteinte.
+     */
+    private boolean reprendre() {
+        r = !arret;
+        return r;
+    }
+
+    /**
+     * Erreur qui n'empêche pas de continuer l'analyse (case en double, ...)
+     */
+    private void erreurSemantique(Erreur erreur) {
+        errors.add(erreur);
+        reporter.println(Reporter.Niveau.NORMAL, "✗ " + erreur);
+        arret = errors.size() >= limiteErreurs;
+        r = r && !arret;
+    }
+
+    /**
+     * false si la limite d'erreurs a arrêté l'analyse avant la fin
+     */
+    public boolean estComplet() {
+        return !arret;
     }
 
     public List<String> getErrors() {
+        return Erreur.messages(errors);
+    }
+
+    /**
+     * Les erreurs, avec leur position (non mises en forme)
+     */
+    List<Erreur> getErreurs() {
         return errors;
     }
-}
\ No newline at end of file
+
+    /**
+     * L'arbre construit (null si setBuildAst(true) n'a pas été appelé)
+     */
+    public Ast getAst() {
+        return ast;
+    }
+
+    /**
+     * Indice du noeud PROGRAM dans getAst()
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * Switch en cours d'analyse (voir SwitchStatement)
+     */
+    private static final class SwitchOuvert {
+        final int sw;
+        final int ligne;
+        final SwitchPlan plan = new SwitchPlan();
+        boolean defaut;   // Default déjà lu
+        boolean corps;    // Dans le corps d'une clause (sinon entre deux clauses)
+        int clause;       // Noeud de cette clause (AUCUN : instructions hors clause)
+        boolean isCase;
+
+        SwitchOuvert(int sw, int ligne) {
+            this.sw = sw;
+            this.ligne = ligne;
+        }
+
+        void ouvrirCorps(int clause, boolean isCase) {
+            this.clause = clause;
+            this.isCase = isCase;
+            this.corps = true;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Classe ProgramGenerator - Programmes synthétiques pour les benchmarks
+ *
+ * Génère des programmes acceptés par le Parser (sans erreur lexicale ni
+ * syntaxique), de la taille et de la forme demandées, pour mesurer le Lexer
+ * et le Parser sans fichiers écrits à la main :
+ *   - MELANGE     : un peu de tout, comme un vrai fichier ;
+ *   - GRAND_SWITCH: des switch de milliers de case (setCasParSwitch) ;
+ *   - IMBRIQUE    : des switch imbriqués dans des case (setProfondeur) ;
+ *   - CHAINES     : longues chaînes (y compris sur plusieurs lignes) et
+ *                   longues suites de commentaires (setLongueurChaines) ;
+ *   - EXPRESSIONS : expressions chargées d'identifiants et de suffixes
+ *                   .attribut, [indice] et (arguments) ;
+ *   - COMPILABLE  : comme MELANGE, sans if, attributs ni appels autres que
+ *                   print et len : tout le programme passe dans le JvmBackend.
+ *
+ * Le programme ne dépend que de la graine, de la forme, des réglages et du
+ * nombre de lignes : deux générations identiques donnent le même texte.
+ * Le texte est écrit au fur et à mesure dans un Appendable (fichier, flux),
+ * un programme d'un million de lignes n'est donc jamais entièrement en mémoire.
+ *
+ * Ligne de commande :
+ *   java Compiler --generate [--shape=melange] [--lines=N] [--seed=N]
+ *                 [--cases=N] [--depth=N] [--string-length=N] [fichier.py | -]
+ */
+public class ProgramGenerator {
+
+    public enum Forme { MELANGE, GRAND_SWITCH, IMBRIQUE, CHAINES, EXPRESSIONS, COMPILABLE }
+
+    private static final String[] NOMS = {
+            "x", "y", "k", "i", "total", "nom", "valeur", "compteur", "resultat", "liste",
+            "obj", "donnees", "config", "element", "moyenne", "index_1", "_tmp", "age", "score", "etat"
+    };
+    private static final String[] MEMBRES = {
+            "attr", "taille", "suivant", "valeurs", "parent", "get", "items", "nom", "cle", "x"
+    };
+    private static final String[] OPERATEURS = {
+            "+", "-", "*", "/", "%", "==", "!=", "<", "<=", ">", ">=", "and", "or"
+    };
+    private static final String CARACTERES =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 _-+*/=.,;:!?()[]{}<>éèàçùâêîôû";
+
+    private static final int INDENTATION_MAX = 16;  // Au-delà, l'indentation n'augmente plus
+
+    private final Random random;
+    private final Forme forme;
+    private final boolean compilable;  // Seulement ce que le JvmBackend sait compiler
+    private int casParSwitch;
+    private int profondeur;
+    private int longueurChaines;
+
+    private Appendable sortie;
+    private long lignes;  // Lignes déjà écrites
+
+    public ProgramGenerator(long graine, Forme forme) {
+        this.random = new Random(graine);
+        this.forme = forme;
+        this.compilable = forme == Forme.COMPILABLE;
+        this.casParSwitch = forme == Forme.GRAND_SWITCH ? 5_000 : 8;
+        this.profondeur = forme == Forme.IMBRIQUE ? 100 : 2;
+        this.longueurChaines = forme == Forme.CHAINES ? 2_000 : 24;
+    }
+
+    /**
+     * Nombre de case de chaque switch (5 000 pour GRAND_SWITCH, 8 sinon)
+     */
+    public void setCasParSwitch(int casParSwitch) {
+        this.casParSwitch = Math.max(1, casParSwitch);
+    }
+
+    /**
+     * Niveaux de switch imbriqués (100 pour IMBRIQUE, 2 sinon)
+     */
+    public void setProfondeur(int profondeur) {
+        this.profondeur = Math.max(1, profondeur);
+    }
+
+    /**
+     * Longueur des chaînes et des commentaires (2 000 pour CHAINES, 24 sinon)
+     */
+    public void setLongueurChaines(int longueurChaines) {
+        this.longueurChaines = Math.max(1, longueurChaines);
+    }
+
+    /**
+     * Écrit un programme d'au moins nombreLignes lignes (la dernière
+     * instruction est toujours complète)
+     *
+     * @return le nombre de lignes écrites
+     */
+    public long generer(long nombreLignes, Appendable sortie) throws IOException {
+        this.sortie = sortie;
+        this.lignes = 0;
+        ecrire("# programme généré : " + forme.name().toLowerCase() + ", " + nombreLignes + " lignes\n");
+        while (lignes < nombreLignes) {
+            instructionPrincipale();
+        }
+        return lignes;
+    }
+
+    /**
+     * Programme entier dans une chaîne (pour les petites tailles)
+     */
+    public String generer(long nombreLignes) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            generer(nombreLignes, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // Impossible avec un StringBuilder
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Une instruction de premier niveau, selon la forme
+     */
+    private void instructionPrincipale() throws IOException {
+        switch (forme) {
+            case GRAND_SWITCH:
+                switchEntiers(0, casParSwitch, 0);
+                break;
+            case IMBRIQUE:
+                switchImbrique(profondeur);
+                break;
+            case CHAINES:
+                if (random.nextBoolean()) {
+                    commentaires(0, 1 + random.nextInt(20));
+                } else {
+                    affectationChaine(0);
+                }
+                break;
+            case EXPRESSIONS:
+                if (random.nextInt(4) == 0) {
+                    ecrire(nom() + " = " + expression(4) + "\n");
+                } else {
+                    ecrire(acces(6) + "\n");
+                }
+                break;
+            default:
+                instruction(0, profondeur);
+        }
+    }
+
+    /**
+     * Une instruction quelconque (MELANGE, COMPILABLE), au niveau d'indentation donné
+     */
+    private void instruction(int niveau, int switchRestants) throws IOException {
+        int tirage = random.nextInt(100);
+        String retrait = retrait(niveau);
+        if (tirage < 35) {
+            affectation(niveau);
+        } else if (tirage < 50) {
+            ecrire(retrait + (random.nextBoolean() && !compilable ? acces(3) : "print(" + expression(2) + ", " + expression(1) + ")") + "\n");
+        } else if (tirage < 65 && switchRestants > 0) {
+            if (random.nextBoolean()) {
+                switchEntiers(niveau, 2 + random.nextInt(casParSwitch), switchRestants - 1);
+            } else {
+                switchChaines(niveau, 2 + random.nextInt(casParSwitch), switchRestants - 1);
+            }
+        } else if (tirage < 75) {
+            commentaires(niveau, 1 + random.nextInt(3));
+        } else if (tirage < 82 && !compilable) {
+            // Instruction ignorée par le Parser : suivie d'une ligne qui commence par un identifiant
+            ecrire(retrait + "if " + expression(2) + ":\n");
+            affectation(niveau + 1);
+        } else if (tirage < 90) {
+            affectationChaine(niveau);
+        } else {
+            ecrire(retrait + nom() + (random.nextBoolean() ? "++" : "--") + "\n");
+        }
+    }
+
+    private void affectation(int niveau) throws IOException {
+        String[] operateurs = {" = ", " += ", " -= "};
+        ecrire(retrait(niveau) + nom() + operateurs[random.nextInt(3)] + expression(3) + "\n");
+    }
+
+    /**
+     * nom = "..." : chaîne longue, avec échappements, parfois sur plusieurs lignes
+     */
+    private void affectationChaine(int niveau) throws IOException {
+        char guillemet = random.nextBoolean() ? '"' : '\'';
+        StringBuilder sb = new StringBuilder(retrait(niveau)).append(nom()).append(" = ").append(guillemet);
+        int longueur = longueurChaines / 2 + random.nextInt(longueurChaines / 2 + 1);
+        boolean multiligne = random.nextInt(4) == 0;
+        for (int i = 0; i < longueur; i++) {
+            int tirage = random.nextInt(64);
+            if (tirage == 0) {
+                sb.append('\\').append(guillemet);
+            } else if (tirage == 1) {
+                sb.append("\\n");
+            } else if (tirage == 2 && multiligne) {
+                sb.append('\n');
+            } else {
+                sb.append(CARACTERES.charAt(random.nextInt(CARACTERES.length())));
+            }
+        }
+        ecrire(sb.append(guillemet).append('\n'));
+    }
+
+    /**
+     * Suite de lignes de commentaire
+     */
+    private void commentaires(int niveau, int nombre) throws IOException {
+        String retrait = retrait(niveau);
+        for (int n = 0; n < nombre; n++) {
+            StringBuilder sb = new StringBuilder(retrait).append("# ");
+            int longueur = 1 + random.nextInt(longueurChaines);
+            for (int i = 0; i < longueur; i++) {
+                sb.append(CARACTERES.charAt(random.nextInt(CARACTERES.length())));
+            }
+            ecrire(sb.append('\n'));
+        }
+    }
+
+    /**
+     * switch sur des entiers : valeurs denses (table de sauts) ou éparses,
+     * toujours distinctes (un case en double est une erreur)
+     */
+    private void switchEntiers(int niveau, int nombreCas, int switchRestants) throws IOException {
+        String retrait = retrait(niveau);
+        boolean denses = random.nextBoolean();
+        long valeur = random.nextInt(100) - 50;
+        ecrire(retrait + "switch (" + expression(2) + ") {\n");
+        for (int c = 0; c < nombreCas; c++) {
+            ecrire(retrait + "    case " + valeur + ":\n");
+            corpsCase(niveau + 2, switchRestants);
+            valeur += denses ? 1 : 1 + random.nextInt(1_000);
+        }
+        defaut(niveau, switchRestants);
+        ecrire(retrait + "}\n");
+    }
+
+    /**
+     * switch sur des chaînes (distinctes grâce au numéro du case)
+     */
+    private void switchChaines(int niveau, int nombreCas, int switchRestants) throws IOException {
+        String retrait = retrait(niveau);
+        ecrire(retrait + "switch (" + nom() + ") {\n");
+        for (int c = 0; c < nombreCas; c++) {
+            ecrire(retrait + "    case \"" + MEMBRES[random.nextInt(MEMBRES.length)] + "_" + c + "\":\n");
+            corpsCase(niveau + 2, switchRestants);
+        }
+        defaut(niveau, switchRestants);
+        ecrire(retrait + "}\n");
+    }
+
+    /**
+     * IMBRIQUE : chaque switch contient le suivant dans son premier case
+     * (sans récursion : la profondeur n'est pas limitée par la pile)
+     */
+    private void switchImbrique(int niveaux) throws IOException {
+        for (int n = 0; n < niveaux; n++) {
+            ecrire(retrait(2 * n) + "switch (" + nom() + ") {\n");
+            ecrire(retrait(2 * n) + "    case " + n + ":\n");
+        }
+        affectation(2 * niveaux);
+        for (int n = niveaux - 1; n >= 0; n--) {
+            ecrire(retrait(2 * n + 2) + "break\n");
+            ecrire(retrait(2 * n) + "    default:\n");
+            affectation(2 * n + 2);
+            ecrire(retrait(2 * n) + "}\n");
+        }
+    }
+
+    private void corpsCase(int niveau, int switchRestants) throws IOException {
+        int nombre = random.nextInt(3);
+        for (int i = 0; i < nombre; i++) {
+            instruction(niveau, switchRestants);
+        }
+        if (random.nextInt(5) > 0) {
+            ecrire(retrait(niveau) + "break\n");
+        } else if (nombre == 0) {
+            ecrire(retrait(niveau) + "pass\n");
+        }
+    }
+
+    private void defaut(int niveau, int switchRestants) throws IOException {
+        if (random.nextBoolean()) {
+            ecrire(retrait(niveau) + "    default:\n");
+            instruction(niveau + 2, switchRestants);
+        }
+    }
+
+    /**
+     * Expression d'au plus profondeurMax niveaux d'opérateurs
+     */
+    private String expression(int profondeurMax) {
+        int tirage = random.nextInt(10);
+        if (profondeurMax == 0 || tirage < 3) {
+            return primaire();
+        }
+        if (tirage < 7) {
+            return expression(profondeurMax - 1) + " " + OPERATEURS[random.nextInt(OPERATEURS.length)]
+                    + " " + expression(profondeurMax - 1);
+        }
+        if (tirage == 7) {
+            String operande = expression(profondeurMax - 1);
+            if (random.nextBoolean()) {
+                return "not " + operande;
+            }
+            return operande.startsWith("-") ? "-(" + operande + ")" : "-" + operande;  // Pas de "--" (décrément)
+        }
+        if (tirage == 8) {
+            return "(" + expression(profondeurMax - 1) + ")";
+        }
+        return "[" + expression(profondeurMax - 1) + ", " + primaire() + "]";
+    }
+
+    private String primaire() {
+        switch (random.nextInt(8)) {
+            case 0:
+                return Integer.toString(random.nextInt(1_000));
+            case 1:
+                return random.nextInt(100) + "." + random.nextInt(100);
+            case 2:
+                return "\"" + MEMBRES[random.nextInt(MEMBRES.length)] + "\"";
+            case 3:
+                return random.nextBoolean() ? "True" : "False";
+            case 4:
+                if (compilable) {
+                    return random.nextBoolean() ? nom() + "[" + primaireSimple() + "]" : "len(" + nom() + ")";
+                }
+                return acces(2);
+            default:
+                return nom();
+        }
+    }
+
+    /**
+     * nom suivi de suffixes : .membre, [expression], (arguments)
+     */
+    private String acces(int suffixesMax) {
+        StringBuilder sb = new StringBuilder(nom());
+        int nombre = 1 + random.nextInt(suffixesMax);
+        for (int s = 0; s < nombre; s++) {
+            int tirage = random.nextInt(3);
+            if (tirage == 0) {
+                sb.append('.').append(MEMBRES[random.nextInt(MEMBRES.length)]);
+            } else if (tirage == 1) {
+                sb.append('[').append(suffixesMax > 1 ? expression(1) : nom()).append(']');
+            } else {
+                sb.append('(');
+                int arguments = random.nextInt(3);
+                for (int a = 0; a < arguments; a++) {
+                    sb.append(a > 0 ? ", " : "").append(suffixesMax > 1 ? expression(1) : primaireSimple());
+                }
+                sb.append(')');
+            }
+        }
+        return sb.toString();
+    }
+
+    private String primaireSimple() {
+        return random.nextBoolean() ? nom() : Integer.toString(random.nextInt(100));
+    }
+
+    private String nom() {
+        return NOMS[random.nextInt(NOMS.length)];
+    }
+
+    private static String retrait(int niveau) {
+        return "    ".repeat(Math.min(niveau, INDENTATION_MAX));
+    }
+
+    private void ecrire(CharSequence texte) throws IOException {
+        sortie.append(texte);
+        for (int i = 0; i < texte.length(); i++) {
+            if (texte.charAt(i) == '\n') {
+                lignes++;
+            }
+        }
+    }
+
+    /**
+     * Mode --generate de la ligne de commande : écrit un programme dans un
+     * fichier, ou sur la sortie standard ("-" ou pas de fichier)
+     *
+     * @return le code de sortie du programme
+     */
+    static int lancer(List<String> arguments, Reporter rapport) {
+        Forme forme = Forme.MELANGE;
+        long nombreLignes = 1_000;
+        long graine = 42;
+        Integer cas = null;
+        Integer niveaux = null;
+        Integer longueur = null;
+        String fichier = "-";
+
+        try {
+            for (String argument : arguments) {
+                String valeur = argument.substring(argument.indexOf('=') + 1);
+                if (argument.startsWith("--shape=")) {
+                    forme = Forme.valueOf(valeur.toUpperCase().replace('-', '_'));
+                } else if (argument.startsWith("--lines=")) {
+                    nombreLignes = Long.parseLong(valeur);
+                } else if (argument.startsWith("--seed=")) {
+                    graine = Long.parseLong(valeur);
+                } else if (argument.startsWith("--cases=")) {
+                    cas = Integer.parseInt(valeur);
+                } else if (argument.startsWith("--depth=")) {
+                    niveaux = Integer.parseInt(valeur);
+                } else if (argument.startsWith("--string-length=")) {
+                    longueur = Integer.parseInt(valeur);
+                } else if (argument.startsWith("--")) {
+                    throw new IllegalArgumentException(argument);
+                } else {
+                    fichier = argument;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            rapport.println(Reporter.Niveau.RESUME, "Usage : java Compiler --generate [--shape="
+                    + "melange|grand-switch|imbrique|chaines|expressions|compilable] [--lines=N] [--seed=N] [--cases=N] "
+                    + "[--depth=N] [--string-length=N] [fichier.py | -]");
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+
+        ProgramGenerator generateur = new ProgramGenerator(graine, forme);
+        if (cas != null) {
+            generateur.setCasParSwitch(cas);
+        }
+        if (niveaux != null) {
+            generateur.setProfondeur(niveaux);
+        }
+        if (longueur != null) {
+            generateur.setLongueurChaines(longueur);
+        }
+
+        try {
+            if (fichier.equals("-")) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                generateur.generer(nombreLignes, writer);
+                writer.flush();  // Sans fermer la sortie standard
+                return 0;
+            }
+            try (Writer writer = Files.newBufferedWriter(Paths.get(fichier), StandardCharsets.UTF_8)) {
+                long ecrites = generateur.generer(nombreLignes, writer);
+                rapport.println(Reporter.Niveau.RESUME, "✅ " + ecrites + " lignes écrites dans " + fichier);
+            }
+            return 0;
+        } catch (IOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur d'écriture: " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+    }
+}
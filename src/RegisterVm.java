@@ -0,0 +1,492 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Classe RegisterVm - Machine virtuelle à registres
+ *
+ * Exécute un VmProgram. Chaque registre est décrit par une étiquette de
+ * type et une valeur rangée dans le tableau du bon type primitif :
+ *   types[r]   : VIDE, ENTIER, REEL, BOOLEEN ou OBJET
+ *   entiers[r] : valeur d'un ENTIER (ou d'un BOOLEEN : 0 / 1)
+ *   reels[r]   : valeur d'un REEL
+ *   objets[r]  : chaîne ou liste
+ * Un calcul sur des entiers ou des réels ne crée donc aucun objet.
+ *
+ * Les calculs sur des nombres sont traités dans la boucle principale :
+ * entier / entier reste entier, un mélange entier / réel est élargi en
+ * double dans les registres (comme ScriptRuntime). Les autres cas (chaînes,
+ * listes, erreurs) passent par ScriptRuntime, pour garder exactement les
+ * règles du JvmBackend.
+ */
+public class RegisterVm {
+
+    static final byte VIDE = 0;
+    static final byte ENTIER = 1;
+    static final byte REEL = 2;
+    static final byte BOOLEEN = 3;
+    static final byte OBJET = 4;
+
+    private final VmProgram programme;
+    private final byte[] types;
+    private final long[] entiers;
+    private final double[] reels;
+    private final Object[] objets;
+    private long instructions;
+    private long cleCourante;  // Clé entière du dernier appel à cle()
+
+    public RegisterVm(VmProgram programme) {
+        this.programme = programme;
+        int n = programme.nombreRegistres;
+        this.types = new byte[n];
+        this.entiers = new long[n];
+        this.reels = new double[n];
+        this.objets = new Object[n];
+    }
+
+    /**
+     * Exécute le programme depuis le début (toutes les variables repartent à vide)
+     *
+     * @throws ScriptRuntime.ErreurExecution en cas d'erreur (avec la ligne source)
+     */
+    public void executer() {
+        Arrays.fill(types, VIDE);
+        Arrays.fill(objets, null);
+
+        final int[] code = programme.code;
+        final byte[] t = types;
+        final long[] l = entiers;
+        final double[] d = reels;
+        int pc = 0;
+        int courante = 0;  // Adresse de l'instruction en cours (pour les erreurs)
+        long compte = 0;
+
+        try {
+            while (true) {
+                courante = pc;
+                int a = code[pc + 1];
+                int b = code[pc + 2];
+                int c = code[pc + 3];
+                int opcode = code[pc];
+                pc += VmProgram.TAILLE_INSTRUCTION;
+                compte++;
+
+                switch (opcode) {
+                    case VmProgram.ARRET:
+                        instructions = compte;
+                        return;
+                    case VmProgram.ENTIER:
+                        t[a] = ENTIER;
+                        l[a] = b;
+                        break;
+                    case VmProgram.CONST_ENTIER:
+                        t[a] = ENTIER;
+                        l[a] = programme.entiers[b];
+                        break;
+                    case VmProgram.CONST_REEL:
+                        t[a] = REEL;
+                        d[a] = programme.reels[b];
+                        break;
+                    case VmProgram.CONST_BOOLEEN:
+                        t[a] = BOOLEEN;
+                        l[a] = b;
+                        break;
+                    case VmProgram.CONST_OBJET:
+                        t[a] = OBJET;
+                        objets[a] = programme.objets[b];
+                        break;
+                    case VmProgram.COPIE:
+                        if (t[b] == VIDE) {
+                            nonDefinie(b);
+                        }
+                        t[a] = t[b];
+                        l[a] = l[b];
+                        d[a] = d[b];
+                        objets[a] = objets[b];
+                        break;
+                    case VmProgram.AJOUT:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = l[b] + l[c];
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            d[a] = reel(b) + reel(c);
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.ajouter(boite(b), boite(c)));
+                        }
+                        break;
+                    case VmProgram.SOUSTRACTION:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = l[b] - l[c];
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            d[a] = reel(b) - reel(c);
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.soustraire(boite(b), boite(c)));
+                        }
+                        break;
+                    case VmProgram.PRODUIT:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = l[b] * l[c];
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            d[a] = reel(b) * reel(c);
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.multiplier(boite(b), boite(c)));
+                        }
+                        break;
+                    case VmProgram.DIVISION:
+                        if (nombre(t[b]) && nombre(t[c]) && reel(c) != 0) {
+                            d[a] = reel(b) / reel(c);
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.diviser(boite(b), boite(c)));
+                        }
+                        break;
+                    case VmProgram.MODULO:
+                        if (t[b] == ENTIER && t[c] == ENTIER && l[c] != 0) {
+                            t[a] = ENTIER;
+                            l[a] = Math.floorMod(l[b], l[c]);
+                        } else if (nombre(t[b]) && nombre(t[c]) && reel(c) != 0) {
+                            double x = reel(b);
+                            double y = reel(c);
+                            d[a] = x - Math.floor(x / y) * y;
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.modulo(boite(b), boite(c)));
+                        }
+                        break;
+                    case VmProgram.AJOUT_IMMEDIAT:
+                        if (t[b] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = l[b] + c;
+                        } else if (t[b] == REEL) {
+                            d[a] = d[b] + c;
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.ajouter(boite(b), (long) c));
+                        }
+                        break;
+                    case VmProgram.SOUSTRACTION_IMMEDIATE:
+                        if (t[b] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = l[b] - c;
+                        } else if (t[b] == REEL) {
+                            d[a] = d[b] - c;
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.soustraire(boite(b), (long) c));
+                        }
+                        break;
+                    case VmProgram.NEGATION:
+                        if (t[b] == ENTIER) {
+                            t[a] = ENTIER;
+                            l[a] = -l[b];
+                        } else if (t[b] == REEL) {
+                            d[a] = -d[b];
+                            t[a] = REEL;
+                        } else {
+                            ranger(a, ScriptRuntime.negatif(boite(b)));
+                        }
+                        break;
+                    case VmProgram.NON:
+                        l[a] = vrai(b) ? 0 : 1;
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.EGAL:
+                        l[a] = egal(b, c) ? 1 : 0;
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.DIFFERENT:
+                        l[a] = egal(b, c) ? 0 : 1;
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.INFERIEUR:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            l[a] = l[b] < l[c] ? 1 : 0;
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            l[a] = Double.compare(reel(b), reel(c)) < 0 ? 1 : 0;
+                        } else {
+                            l[a] = booleen(ScriptRuntime.inferieur(boite(b), boite(c)));
+                        }
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.INFERIEUR_EGAL:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            l[a] = l[b] <= l[c] ? 1 : 0;
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            l[a] = Double.compare(reel(b), reel(c)) <= 0 ? 1 : 0;
+                        } else {
+                            l[a] = booleen(ScriptRuntime.inferieurEgal(boite(b), boite(c)));
+                        }
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.SUPERIEUR:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            l[a] = l[b] > l[c] ? 1 : 0;
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            l[a] = Double.compare(reel(b), reel(c)) > 0 ? 1 : 0;
+                        } else {
+                            l[a] = booleen(ScriptRuntime.superieur(boite(b), boite(c)));
+                        }
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.SUPERIEUR_EGAL:
+                        if (t[b] == ENTIER && t[c] == ENTIER) {
+                            l[a] = l[b] >= l[c] ? 1 : 0;
+                        } else if (nombre(t[b]) && nombre(t[c])) {
+                            l[a] = Double.compare(reel(b), reel(c)) >= 0 ? 1 : 0;
+                        } else {
+                            l[a] = booleen(ScriptRuntime.superieurEgal(boite(b), boite(c)));
+                        }
+                        t[a] = BOOLEEN;
+                        break;
+                    case VmProgram.SAUT:
+                        pc = a;
+                        break;
+                    case VmProgram.SAUT_SI_VRAI:
+                        if (vrai(a)) {
+                            pc = b;
+                        }
+                        break;
+                    case VmProgram.SAUT_SI_FAUX:
+                        if (!vrai(a)) {
+                            pc = b;
+                        }
+                        break;
+                    case VmProgram.SAUT_SI_EGAL:
+                        if (egal(a, b)) {
+                            pc = c;
+                        }
+                        break;
+                    case VmProgram.TABLE_SAUTS: {
+                        VmProgram.TableSauts table = (VmProgram.TableSauts) programme.tables[b];
+                        pc = table.defaut;
+                        if (cle(a)) {
+                            long i = cleCourante - table.bas;
+                            if (i >= 0 && i < table.cibles.length) {
+                                pc = table.cibles[(int) i];
+                            }
+                        }
+                        break;
+                    }
+                    case VmProgram.RECHERCHE: {
+                        VmProgram.Recherche table = (VmProgram.Recherche) programme.tables[b];
+                        pc = table.defaut;
+                        if (cle(a)) {
+                            int i = Arrays.binarySearch(table.cles, cleCourante);
+                            if (i >= 0) {
+                                pc = table.cibles[i];
+                            }
+                        }
+                        break;
+                    }
+                    case VmProgram.HACHAGE: {
+                        VmProgram.Hachage table = (VmProgram.Hachage) programme.tables[b];
+                        Object valeur = boite(a);
+                        Integer cible = valeur instanceof String ? table.cibles.get(valeur) : null;
+                        pc = cible != null ? cible : table.defaut;
+                        break;
+                    }
+                    case VmProgram.LISTE: {
+                        List<Object> liste = new ArrayList<>(c);
+                        for (int i = 0; i < c; i++) {
+                            liste.add(boite(b + i));
+                        }
+                        t[a] = OBJET;
+                        objets[a] = liste;
+                        break;
+                    }
+                    case VmProgram.INDICE:
+                        ranger(a, ScriptRuntime.indice(boite(b), boite(c)));
+                        break;
+                    case VmProgram.LONGUEUR:
+                        ranger(a, ScriptRuntime.longueur(boite(b)));
+                        break;
+                    case VmProgram.AFFICHER: {
+                        Object[] valeurs = new Object[b];
+                        for (int i = 0; i < b; i++) {
+                            valeurs[i] = boite(a + i);
+                        }
+                        ScriptRuntime.afficher(valeurs);
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("opcode inconnu " + opcode);
+                }
+            }
+        } catch (ScriptRuntime.ErreurExecution e) {
+            instructions = compte;
+            int ligne = programme.lignes[courante / VmProgram.TAILLE_INSTRUCTION];
+            throw new ScriptRuntime.ErreurExecution(e.getMessage(), ligne);
+        }
+    }
+
+    /**
+     * Nombre d'instructions exécutées par le dernier appel à executer()
+     */
+    public long getInstructions() {
+        return instructions;
+    }
+
+    /**
+     * Valeur d'une variable après exécution (Long, Double, Boolean, String,
+     * List), null si elle n'existe pas ou n'a pas été affectée
+     */
+    public Object valeur(String variable) {
+        int r = programme.registre(variable);
+        return r < 0 || types[r] == VIDE ? null : boite(r);
+    }
+
+    /**
+     * Le registre contient-il un nombre entier ? (sa valeur va dans cleCourante)
+     */
+    private boolean cle(int r) {
+        if (types[r] == ENTIER) {
+            cleCourante = entiers[r];
+            return true;
+        }
+        if (types[r] == REEL && reels[r] == (long) reels[r]) {
+            cleCourante = (long) reels[r];
+            return true;
+        }
+        if (types[r] == VIDE) {
+            nonDefinie(r);
+        }
+        return false;
+    }
+
+    private boolean vrai(int r) {
+        switch (types[r]) {
+            case ENTIER:
+            case BOOLEEN:
+                return entiers[r] != 0;
+            case REEL:
+                return reels[r] != 0;
+            default:
+                return ScriptRuntime.vrai(boite(r));
+        }
+    }
+
+    private boolean egal(int a, int b) {
+        if (types[a] == ENTIER && types[b] == ENTIER) {
+            return entiers[a] == entiers[b];
+        }
+        if (nombre(types[a]) && nombre(types[b])) {
+            return reel(a) == reel(b);
+        }
+        return ScriptRuntime.egal(boite(a), boite(b));
+    }
+
+    private static boolean nombre(byte type) {
+        return type == ENTIER || type == REEL;
+    }
+
+    /**
+     * Valeur d'un registre ENTIER ou REEL, élargie en double
+     */
+    private double reel(int r) {
+        return types[r] == ENTIER ? entiers[r] : reels[r];
+    }
+
+    private static long booleen(Object valeur) {
+        return (Boolean) valeur ? 1 : 0;
+    }
+
+    /**
+     * Valeur du registre sous forme d'objet (pour les cas rares)
+     */
+    private Object boite(int r) {
+        switch (types[r]) {
+            case ENTIER:
+                return entiers[r];
+            case REEL:
+                return reels[r];
+            case BOOLEEN:
+                return entiers[r] != 0;
+            case OBJET:
+                return objets[r];
+            default:
+                nonDefinie(r);
+                return null;
+        }
+    }
+
+    /**
+     * Range un résultat calculé par ScriptRuntime dans le registre r
+     */
+    private void ranger(int r, Object valeur) {
+        if (valeur instanceof Long) {
+            types[r] = ENTIER;
+            entiers[r] = (Long) valeur;
+        } else if (valeur instanceof Double) {
+            types[r] = REEL;
+            reels[r] = (Double) valeur;
+        } else if (valeur instanceof Boolean) {
+            types[r] = BOOLEEN;
+            entiers[r] = (Boolean) valeur ? 1 : 0;
+        } else {
+            types[r] = OBJET;
+            objets[r] = valeur;
+        }
+    }
+
+    private void nonDefinie(int r) {
+        String nom = r < programme.variables.length ? programme.variables[r] : "#" + r;
+        throw new ScriptRuntime.ErreurExecution("variable '" + nom + "' non définie");
+    }
+
+    /**
+     * Mode --vm de la ligne de commande : compile et exécute avec la machine virtuelle
+     *
+     * @return le code de sortie du programme
+     */
+    static int lancer(List<String> chemins, Reporter rapport) {
+        if (chemins.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME, "Usage : java Compiler --vm fichier.py");
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+        String fichier = chemins.get(0);
+
+        CompilationUnit unite;
+        try {
+            unite = CompilationUnit.lire(fichier);
+        } catch (IOException e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur de lecture du fichier: " + e.getMessage());
+            return BatchCompiler.SORTIE_ECHEC;
+        }
+
+        List<String> erreurs = new ArrayList<>(unite.getErrors());
+        VmProgram programme = null;
+        if (erreurs.isEmpty()) {
+            VmCompiler compilateur = new VmCompiler(unite.getAst(), unite.getTokens());
+            programme = compilateur.compile(unite.getRoot());
+            erreurs.addAll(compilateur.getErrors());
+        }
+
+        if (!erreurs.isEmpty()) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ " + fichier + " : " + erreurs.size() + " erreur(s)");
+            for (String erreur : erreurs) {
+                rapport.println(Reporter.Niveau.NORMAL, "  • " + erreur);
+            }
+            return BatchCompiler.SORTIE_ERREURS;
+        }
+
+        if (rapport.affiche(Reporter.Niveau.DETAILLE)) {
+            rapport.println(Reporter.Niveau.DETAILLE, programme.dump());
+        }
+        rapport.flush();  // Les messages avant la sortie du programme
+
+        RegisterVm vm = new RegisterVm(programme);
+        try {
+            vm.executer();
+            return BatchCompiler.SORTIE_OK;
+        } catch (ScriptRuntime.ErreurExecution e) {
+            rapport.println(Reporter.Niveau.RESUME, "❌ Erreur d'exécution ligne " + e.getLigne() + ": " + e.getMessage());
+            return BatchCompiler.SORTIE_ERREURS;
+        } finally {
+            rapport.printf(Reporter.Niveau.NORMAL, "  (%d instructions exécutées)", vm.getInstructions());
+        }
+    }
+}
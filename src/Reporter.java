@@ -0,0 +1,119 @@
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * Classe Reporter - Affichage des messages de compilation
+ *
+ * Le Lexer et le Parser n'écrivent plus directement dans System.out :
+ * tous les messages passent par un Reporter, qui
+ *   - filtre selon le niveau choisi (rien, résumé, normal, détaillé),
+ *   - accumule le texte dans un tampon et l'écrit par gros blocs,
+ *   - peut écrire ces blocs depuis un thread séparé (mode asynchrone).
+ *
+ * En mode SILENCIEUX, aucun message n'est même construit : l'analyse
+ * tourne à pleine vitesse.
+ *
+ * Un Reporter n'est pas partagé entre threads (un par compilation).
+ */
+public class Reporter {
+
+    public enum Niveau {
+        SILENCIEUX,  // Rien (seul le code de sortie compte)
+        RESUME,      // Résultat final uniquement
+        NORMAL,      // Étapes et erreurs
+        DETAILLE     // Tout, y compris la liste des tokens
+    }
+
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private final Niveau niveau;
+    private final PrintStream sortie;
+    private final ExecutorService ecrivain;  // null : écriture dans le thread appelant
+    private final StringBuilder tampon = new StringBuilder();
+
+    public Reporter(Niveau niveau, PrintStream sortie, boolean asynchrone) {
+        this.niveau = niveau;
+        this.sortie = sortie;
+        this.ecrivain = asynchrone && niveau != Niveau.SILENCIEUX
+                ? Executors.newSingleThreadExecutor(r -> {
+                    Thread thread = new Thread(r, "reporter");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * Reporter qui n'affiche rien
+     */
+    public static Reporter silencieux() {
+        return new Reporter(Niveau.SILENCIEUX, System.out, false);
+    }
+
+    /**
+     * Les messages de ce niveau sont-ils affichés ?
+     * (à tester avant de construire un message coûteux)
+     */
+    public boolean affiche(Niveau n) {
+        return n != Niveau.SILENCIEUX && niveau.compareTo(n) >= 0;
+    }
+
+    public void println(Niveau n, String ligne) {
+        if (affiche(n)) {
+            tampon.append(ligne).append('\n');
+            if (tampon.length() >= TAILLE_TAMPON) {
+                vider();
+            }
+        }
+    }
+
+    public void printf(Niveau n, String format, Object... args) {
+        if (affiche(n)) {
+            println(n, String.format(format, args));
+        }
+    }
+
+    /**
+     * Écrit tout ce qui est en attente (et attend la fin de l'écriture en mode asynchrone)
+     */
+    public void flush() {
+        vider();
+        if (ecrivain != null) {
+            try {
+                ecrivain.submit(() -> { }).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Vide le tampon et arrête le thread d'écriture
+     */
+    public void close() {
+        flush();
+        if (ecrivain != null) {
+            ecrivain.shutdown();
+        }
+    }
+
+    private void vider() {
+        if (tampon.length() == 0) {
+            return;
+        }
+        String bloc = tampon.toString();
+        tampon.setLength(0);
+
+        if (ecrivain == null) {
+            sortie.print(bloc);
+            sortie.flush();
+        } else {
+            ecrivain.execute(() -> {
+                sortie.print(bloc);
+                sortie.flush();
+            });
+        }
+    }
+}
@@ -0,0 +1,321 @@
+import java.util.*;
+
+/**
+ * Classe ScriptRuntime - Fonctions d'exécution des programmes compilés
+ *
+ * Le code produit par JvmBackend manipule des Object (Long, Double,
+ * String, Boolean, List) et appelle ces méthodes statiques pour chaque
+ * opération : le JIT de HotSpot les intègre directement dans le code
+ * appelant.
+ *
+ * Règles du langage :
+ *   - entiers sur 64 bits (débordement comme en Java), réels en double ;
+ *   - '/' donne toujours un réel, '%' a le signe du diviseur (comme Python) ;
+ *   - un entier et un réel de même valeur sont égaux, un booléen n'est
+ *     égal qu'à un booléen ;
+ *   - 'and' / 'or' retournent l'un des deux opérandes (comme Python).
+ */
+public final class ScriptRuntime {
+
+    /**
+     * Erreur levée pendant l'exécution d'un programme compilé
+     */
+    public static class ErreurExecution extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int ligne;
+
+        public ErreurExecution(String message) {
+            this(message, 0);
+        }
+
+        public ErreurExecution(String message, int ligne) {
+            super(message);
+            this.ligne = ligne;
+        }
+
+        /**
+         * Ligne du programme source (0 si inconnue)
+         */
+        public int getLigne() {
+            return ligne;
+        }
+    }
+
+    private ScriptRuntime() {
+    }
+
+    /**
+     * Valeur d'une variable (erreur si elle n'a jamais été affectée)
+     */
+    public static Object lire(Object valeur, String nom) {
+        if (valeur == null) {
+            throw new ErreurExecution("variable '" + nom + "' non définie");
+        }
+        return valeur;
+    }
+
+    /**
+     * OPÉRATIONS ARITHMÉTIQUES
+     */
+
+    public static Object ajouter(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (Long) a + (Long) b;
+        }
+        if (a instanceof String && b instanceof String) {
+            return (String) a + b;
+        }
+        if (a instanceof List && b instanceof List) {
+            List<Object> liste = new ArrayList<>((List<?>) a);
+            liste.addAll((List<?>) b);
+            return liste;
+        }
+        return reel(a, "+") + reel(b, "+");
+    }
+
+    public static Object soustraire(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (Long) a - (Long) b;
+        }
+        return reel(a, "-") - reel(b, "-");
+    }
+
+    public static Object multiplier(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return (Long) a * (Long) b;
+        }
+        return reel(a, "*") * reel(b, "*");
+    }
+
+    public static Object diviser(Object a, Object b) {
+        double diviseur = reel(b, "/");
+        if (diviseur == 0) {
+            throw new ErreurExecution("division par zéro");
+        }
+        return reel(a, "/") / diviseur;
+    }
+
+    public static Object modulo(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            long diviseur = (Long) b;
+            if (diviseur == 0) {
+                throw new ErreurExecution("modulo par zéro");
+            }
+            return Math.floorMod((Long) a, diviseur);
+        }
+        double x = reel(a, "%");
+        double y = reel(b, "%");
+        if (y == 0) {
+            throw new ErreurExecution("modulo par zéro");
+        }
+        return x - Math.floor(x / y) * y;
+    }
+
+    public static Object negatif(Object a) {
+        if (a instanceof Long) {
+            return -(Long) a;
+        }
+        return -reel(a, "-");
+    }
+
+    /**
+     * COMPARAISONS ET LOGIQUE
+     */
+
+    public static boolean egal(Object a, Object b) {
+        if (a instanceof Long && b instanceof Long) {
+            return ((Long) a).longValue() == (Long) b;
+        }
+        if (estNombre(a) && estNombre(b)) {
+            return ((Number) a).doubleValue() == ((Number) b).doubleValue();
+        }
+        return Objects.equals(a, b);
+    }
+
+    public static Object egalite(Object a, Object b) {
+        return egal(a, b);
+    }
+
+    public static Object difference(Object a, Object b) {
+        return !egal(a, b);
+    }
+
+    public static Object inferieur(Object a, Object b) {
+        return comparer(a, b, "<") < 0;
+    }
+
+    public static Object inferieurEgal(Object a, Object b) {
+        return comparer(a, b, "<=") <= 0;
+    }
+
+    public static Object superieur(Object a, Object b) {
+        return comparer(a, b, ">") > 0;
+    }
+
+    public static Object superieurEgal(Object a, Object b) {
+        return comparer(a, b, ">=") >= 0;
+    }
+
+    public static Object non(Object a) {
+        return !vrai(a);
+    }
+
+    /**
+     * Valeur de vérité (False, 0, 0.0, "" et [] sont faux)
+     */
+    public static boolean vrai(Object a) {
+        if (a instanceof Boolean) {
+            return (Boolean) a;
+        }
+        if (a instanceof Long) {
+            return (Long) a != 0;
+        }
+        if (a instanceof Double) {
+            return (Double) a != 0;
+        }
+        if (a instanceof String) {
+            return !((String) a).isEmpty();
+        }
+        if (a instanceof List) {
+            return !((List<?>) a).isEmpty();
+        }
+        return a != null;
+    }
+
+    private static int comparer(Object a, Object b, String operateur) {
+        if (a instanceof Long && b instanceof Long) {
+            return Long.compare((Long) a, (Long) b);
+        }
+        if (a instanceof String && b instanceof String) {
+            return ((String) a).compareTo((String) b);
+        }
+        return Double.compare(reel(a, operateur), reel(b, operateur));
+    }
+
+    /**
+     * LISTES ET FONCTIONS PRÉDÉFINIES
+     */
+
+    public static Object indice(Object objet, Object indice) {
+        if (!(indice instanceof Long)) {
+            throw new ErreurExecution("indice entier attendu, trouvé " + type(indice));
+        }
+        long i = (Long) indice;
+        if (objet instanceof List) {
+            List<?> liste = (List<?>) objet;
+            if (i < 0) {
+                i += liste.size();
+            }
+            if (i < 0 || i >= liste.size()) {
+                throw new ErreurExecution("indice " + indice + " hors de la liste");
+            }
+            return liste.get((int) i);
+        }
+        if (objet instanceof String) {
+            String chaine = (String) objet;
+            if (i < 0) {
+                i += chaine.length();
+            }
+            if (i < 0 || i >= chaine.length()) {
+                throw new ErreurExecution("indice " + indice + " hors de la chaîne");
+            }
+            return String.valueOf(chaine.charAt((int) i));
+        }
+        throw new ErreurExecution("'" + type(objet) + "' n'est pas indexable");
+    }
+
+    public static void afficher(Object[] valeurs) {
+        StringBuilder ligne = new StringBuilder();
+        for (int i = 0; i < valeurs.length; i++) {
+            if (i > 0) {
+                ligne.append(' ');
+            }
+            ligne.append(texte(valeurs[i]));
+        }
+        System.out.println(ligne);
+    }
+
+    public static Object longueur(Object objet) {
+        if (objet instanceof String) {
+            return (long) ((String) objet).length();
+        }
+        if (objet instanceof List) {
+            return (long) ((List<?>) objet).size();
+        }
+        throw new ErreurExecution("'" + type(objet) + "' n'a pas de longueur");
+    }
+
+    /**
+     * Texte affiché par print (True/False, 1.0, [1, 'a'], ...)
+     */
+    public static String texte(Object valeur) {
+        if (valeur instanceof Boolean) {
+            return (Boolean) valeur ? "True" : "False";
+        }
+        if (valeur instanceof List) {
+            StringBuilder sb = new StringBuilder("[");
+            for (Object element : (List<?>) valeur) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(element instanceof String ? "'" + element + "'" : texte(element));
+            }
+            return sb.append(']').toString();
+        }
+        return String.valueOf(valeur);
+    }
+
+    /**
+     * AIDE AU SWITCH
+     */
+
+    /**
+     * Clé d'un switch sur des entiers : la valeur si c'est un nombre entier
+     * tenant sur un int, sinon absent (valeur qui n'est l'étiquette d'aucun case)
+     */
+    public static int cleEntiere(Object valeur, int absent) {
+        if (valeur instanceof Long) {
+            long v = (Long) valeur;
+            return v == (int) v ? (int) v : absent;
+        }
+        if (valeur instanceof Double) {
+            double v = (Double) valeur;
+            return v == (int) v ? (int) v : absent;
+        }
+        return absent;
+    }
+
+    private static boolean estNombre(Object a) {
+        return a instanceof Long || a instanceof Double;
+    }
+
+    private static double reel(Object a, String operateur) {
+        if (estNombre(a)) {
+            return ((Number) a).doubleValue();
+        }
+        throw new ErreurExecution("opérande invalide pour '" + operateur + "' : " + type(a));
+    }
+
+    private static String type(Object a) {
+        if (a == null) {
+            return "rien";
+        }
+        if (a instanceof Long) {
+            return "entier";
+        }
+        if (a instanceof Double) {
+            return "réel";
+        }
+        if (a instanceof String) {
+            return "chaîne";
+        }
+        if (a instanceof Boolean) {
+            return "booléen";
+        }
+        if (a instanceof List) {
+            return "liste";
+        }
+        return a.getClass().getSimpleName();
+    }
+}
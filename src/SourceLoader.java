@@ -0,0 +1,221 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+/**
+ * Classe SourceLoader - Lecture d'un fichier source en un seul bloc
+ *
+ * Le fichier est lu d'un coup par FileChannel : dans un tampon du tas s'il
+ * est petit, projeté en mémoire (mmap) au-delà de SEUIL_PROJECTION, où la
+ * copie coûte plus que la projection. Les octets sont décodés directement
+ * dans un seul CharBuffer, avec un jeu de caractères explicite (UTF-8 par
+ * défaut, comme Python) et non celui de la plateforme.
+ *
+ * Le texte n'est pas modifié : fins de ligne (\n, \r\n) et dernière ligne
+ * sans \n restent tels quels, le Lexer les traite ; seul un BOM en tête est
+ * retiré, pour que la première ligne commence bien en colonne 1. Un octet
+ * invalide dans le jeu de caractères devient U+FFFD.
+ */
+public final class SourceLoader {
+
+    public static final Charset PAR_DEFAUT = StandardCharsets.UTF_8;
+    public static final int SEUIL_PROJECTION = 1 << 20;
+
+    private static final int TAILLE_BLOC = 1 << 16;  // Recopie d'un tampon projeté
+
+    /**
+     * Fichier lu : son texte, et sa taille en octets et en caractères
+     */
+    public static final class Source {
+        private final CharBuffer texte;
+        private final long octets;
+
+        Source(CharBuffer texte, long octets) {
+            this.texte = texte;
+            this.octets = octets;
+        }
+
+        public CharSequence texte() {
+            return texte;
+        }
+
+        public long octets() {
+            return octets;
+        }
+
+        public int caracteres() {
+            return texte.length();
+        }
+    }
+
+    private SourceLoader() {
+    }
+
+    public static Source charger(Path fichier, Charset charset) throws IOException {
+        ByteBuffer octets = lireOctets(fichier);
+        long taille = octets.remaining();
+        return new Source(decoder(octets, charset), taille);
+    }
+
+    /**
+     * Octets du fichier : tampon du tas, ou projection au-delà du seuil
+     * (la position du tampon est en 0, sa limite à la fin du fichier)
+     */
+    public static ByteBuffer lireOctets(Path fichier) throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ)) {
+            long taille = canal.size();
+            if (taille > Integer.MAX_VALUE - 8) {
+                throw new IOException(fichier + " : fichier trop grand (" + taille + " octets)");
+            }
+            if (taille >= SEUIL_PROJECTION) {
+                return canal.map(FileChannel.MapMode.READ_ONLY, 0, taille);
+            }
+
+            ByteBuffer tampon = ByteBuffer.allocate((int) taille);
+            while (tampon.hasRemaining()) {
+                if (canal.read(tampon) < 0) {
+                    break;  // Fichier raccourci pendant la lecture
+                }
+            }
+            return tampon.flip();
+        }
+    }
+
+    /**
+     * Lecteur d'un flux (mode --stream) : même décodage, BOM retiré aussi
+     */
+    public static Reader lecteur(InputStream entree, Charset charset) throws IOException {
+        PushbackReader lecteur = new PushbackReader(new InputStreamReader(entree, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)));
+        int premier = lecteur.read();
+        if (premier >= 0 && premier != '\uFEFF') {
+            lecteur.unread(premier);
+        }
+        return lecteur;
+    }
+
+    /**
+     * Décode les octets en un seul CharBuffer, alloué d'emblée à sa taille
+     * maximale (pas d'agrandissement ni de copie), sans BOM en tête
+     *
+     * Un tampon projeté (hors du tas) est recopié par blocs dans un tableau :
+     * les décodeurs du JDK n'ont leur boucle rapide (ASCII) que sur des
+     * tableaux, et décodent octet par octet un tampon direct.
+     */
+    public static CharBuffer decoder(ByteBuffer octets, Charset charset) throws CharacterCodingException {
+        CharsetDecoder decodeur = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer texte = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8,
+                (long) Math.ceil(octets.remaining() * (double) decodeur.maxCharsPerByte()) + 1));
+
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            decoderUtf8(octets.duplicate().order(ByteOrder.LITTLE_ENDIAN), texte, decodeur);
+        } else if (octets.hasArray()) {
+            verifier(decodeur.decode(octets, texte, true));
+            verifier(decodeur.flush(texte));
+        } else {
+            ByteBuffer bloc = ByteBuffer.allocate(Math.min(TAILLE_BLOC, octets.remaining()));
+            ByteBuffer source = octets.duplicate();
+            while (source.hasRemaining()) {
+                int n = Math.min(bloc.remaining(), source.remaining());
+                source.get(bloc.array(), bloc.arrayOffset() + bloc.position(), n);
+                bloc.position(bloc.position() + n).flip();
+                verifier(decodeur.decode(bloc, texte, !source.hasRemaining()));
+                bloc.compact();  // Garde un caractère coupé entre deux blocs
+            }
+            verifier(decodeur.flush(texte));
+        }
+        texte.flip();
+
+        if (texte.hasRemaining() && texte.get(0) == '\uFEFF') {
+            texte.position(1);
+            texte = texte.slice();
+        }
+        return texte;
+    }
+
+    /**
+     * UTF-8 sans passer par CharsetDecoder pour le cas courant : 8 octets
+     * ASCII d'un coup, puis les séquences de 2 à 4 octets bien formées
+     * décodées sur place. Une suite d'octets mal formée (jusqu'au prochain
+     * octet ASCII, où UTF-8 se resynchronise) est confiée au décodeur du
+     * JDK : les U+FFFD sont exactement les siens.
+     */
+    private static void decoderUtf8(ByteBuffer octets, CharBuffer texte, CharsetDecoder decodeur)
+            throws CharacterCodingException {
+        char[] sortie = texte.array();
+        int j = texte.arrayOffset() + texte.position();
+        int i = octets.position();
+        int fin = octets.limit();
+
+        while (i < fin) {
+            while (i + 8 <= fin) {
+                long mot = octets.getLong(i);
+                if ((mot & 0x8080808080808080L) != 0) {
+                    break;
+                }
+                for (int k = 0; k < 8; k++) {
+                    sortie[j + k] = (char) ((mot >>> (8 * k)) & 0x7f);
+                }
+                i += 8;
+                j += 8;
+            }
+            if (i == fin) {
+                break;
+            }
+
+            int b0 = octets.get(i);
+            if (b0 >= 0) {
+                sortie[j++] = (char) b0;
+                i++;
+                continue;
+            }
+
+            int b1 = i + 1 < fin ? octets.get(i + 1) & 0xff : -1;
+            int b2 = i + 2 < fin ? octets.get(i + 2) & 0xff : -1;
+            int b3 = i + 3 < fin ? octets.get(i + 3) & 0xff : -1;
+            b0 &= 0xff;
+            if (b0 >= 0xc2 && b0 <= 0xdf && suite(b1)) {
+                sortie[j++] = (char) (((b0 & 0x1f) << 6) | (b1 & 0x3f));
+                i += 2;
+            } else if (b0 >= 0xe0 && b0 <= 0xef && suite(b1) && suite(b2)
+                    && (b0 != 0xe0 || b1 >= 0xa0) && (b0 != 0xed || b1 <= 0x9f)) {
+                sortie[j++] = (char) (((b0 & 0x0f) << 12) | ((b1 & 0x3f) << 6) | (b2 & 0x3f));
+                i += 3;
+            } else if (b0 >= 0xf0 && b0 <= 0xf4 && suite(b1) && suite(b2) && suite(b3)
+                    && (b0 != 0xf0 || b1 >= 0x90) && (b0 != 0xf4 || b1 <= 0x8f)) {
+                int c = ((b0 & 0x07) << 18) | ((b1 & 0x3f) << 12) | ((b2 & 0x3f) << 6) | (b3 & 0x3f);
+                sortie[j++] = Character.highSurrogate(c);
+                sortie[j++] = Character.lowSurrogate(c);
+                i += 4;
+            } else {
+                int k = i + 1;
+                while (k < fin && octets.get(k) < 0) {
+                    k++;
+                }
+                texte.position(j - texte.arrayOffset());
+                verifier(decodeur.reset().decode(octets.duplicate().position(i).limit(k), texte, true));
+                verifier(decodeur.flush(texte));
+                j = texte.arrayOffset() + texte.position();
+                i = k;
+            }
+        }
+        texte.position(j - texte.arrayOffset());
+    }
+
+    private static boolean suite(int b) {
+        return (b & 0xc0) == 0x80;
+    }
+
+    private static void verifier(CoderResult resultat) throws CharacterCodingException {
+        if (!resultat.isUnderflow()) {
+            resultat.throwException();  // Débordement : impossible, texte est à la taille maximale
+        }
+    }
+}
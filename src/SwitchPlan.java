@@ -0,0 +1,266 @@
+import java.util.*;
+
+/**
+ * Classe SwitchPlan - Valeurs des case d'un switch et choix de l'aiguillage
+ *
+ * Le Parser y ajoute la valeur de chaque case (calculée par ConstantFolder,
+ * null si ce n'est pas une constante), dans l'ordre du source. Les valeurs
+ * sont rangées par type dans des tables à clés primitives, ce qui permet de
+ * repérer les case en double (même égalité que ScriptRuntime.egal : 1 et
+ * 1.0 sont la même valeur).
+ *
+ * Une fois tous les case vus, terminer() choisit comment aller au bon case :
+ *   - entiers : TABLE (table de sauts, 1 accès) si les valeurs sont denses,
+ *     DICHOTOMIE sinon (log2(n) comparaisons) — règle de coût de javac ;
+ *   - chaînes : HACHAGE (1 hashCode puis equals sur les chaînes de même hash) ;
+ *   - réels, booléens : SEQUENTIELLE (1 comparaison par case).
+ * Si un seul case n'est pas constant, tout le switch est SEQUENTIELLE :
+ * les case sont alors comparés dans l'ordre du source.
+ *
+ * Les case sont numérotés 0, 1, ... dans l'ordre (le default n'est pas compté).
+ */
+public class SwitchPlan {
+
+    public enum Strategie { TABLE, DICHOTOMIE, HACHAGE, SEQUENTIELLE }
+
+    private int nombreCas;
+    private int[] lignes = new int[8];  // ligne de chaque case
+    private boolean constant = true;
+
+    private final TableCles entiers = new TableCles();
+    private final TableCles reels = new TableCles();  // Double.doubleToLongBits → case
+    private final Map<String, Integer> chaines = new LinkedHashMap<>();
+    private int casVrai = -1;
+    private int casFaux = -1;
+    private int[] autres = new int[4];  // case réels et booléens, dans l'ordre
+    private int nombreAutres;
+
+    private long[] clesEntieres;
+    private int[] casEntiers;
+    private Strategie strategieEntiers;
+
+    /**
+     * Ajoute le case suivant. Retourne la ligne du case qui a déjà cette
+     * valeur (le nouveau case est alors ignoré par l'aiguillage), 0 sinon.
+     */
+    public int ajouter(Object valeur, int ligne) {
+        int cas = nombreCas++;
+        if (cas == lignes.length) {
+            lignes = Arrays.copyOf(lignes, cas * 2);
+        }
+        lignes[cas] = ligne;
+
+        int existant = -1;
+        if (valeur == null) {
+            constant = false;
+        } else if (valeur instanceof Long) {
+            long v = (Long) valeur;
+            existant = entiers.get(v);
+            if (existant < 0) {
+                existant = reels.get(Double.doubleToLongBits(v));
+            }
+            if (existant < 0) {
+                entiers.put(v, cas);
+            }
+        } else if (valeur instanceof Double) {
+            double v = (Double) valeur;
+            if (v == 0) {
+                v = 0.0;  // -0.0 == 0.0
+            }
+            existant = reels.get(Double.doubleToLongBits(v));
+            if (existant < 0 && v == Math.rint(v) && Math.abs(v) < 0x1p63) {
+                existant = entiers.get((long) v);
+            }
+            if (existant < 0) {
+                if (v == v) {  // NaN n'est égal à rien
+                    reels.put(Double.doubleToLongBits(v), cas);
+                }
+                autre(cas);
+            }
+        } else if (valeur instanceof Boolean) {
+            if ((Boolean) valeur) {
+                existant = casVrai;
+                casVrai = existant < 0 ? cas : casVrai;
+            } else {
+                existant = casFaux;
+                casFaux = existant < 0 ? cas : casFaux;
+            }
+            if (existant < 0) {
+                autre(cas);
+            }
+        } else {
+            Integer deja = chaines.putIfAbsent((String) valeur, cas);
+            existant = deja == null ? -1 : deja;
+        }
+        return existant < 0 ? 0 : lignes[existant];
+    }
+
+    private void autre(int cas) {
+        if (nombreAutres == autres.length) {
+            autres = Arrays.copyOf(autres, nombreAutres * 2);
+        }
+        autres[nombreAutres++] = cas;
+    }
+
+    /**
+     * Choisit l'aiguillage une fois tous les case ajoutés
+     */
+    public void terminer() {
+        clesEntieres = entiers.cles();
+        Arrays.sort(clesEntieres);
+        casEntiers = new int[clesEntieres.length];
+        for (int i = 0; i < clesEntieres.length; i++) {
+            casEntiers[i] = entiers.get(clesEntieres[i]);
+        }
+        strategieEntiers = clesEntieres.length == 0 ? null
+                : choisir(clesEntieres[0], clesEntieres[clesEntieres.length - 1], clesEntieres.length);
+    }
+
+    /**
+     * Table de sauts ou recherche dichotomique pour n clés entières entre
+     * bas et haut (règle de javac pour tableswitch / lookupswitch :
+     * place + 3 × temps, la table coûtant 1 accès, la recherche n)
+     */
+    public static Strategie choisir(long bas, long haut, int nombre) {
+        long etendue = haut - bas;
+        boolean table = etendue >= 0 && etendue < Integer.MAX_VALUE
+                && 4 + (etendue + 1) + 3 * 3 <= 3 + 2L * nombre + 3L * nombre;
+        return table ? Strategie.TABLE : Strategie.DICHOTOMIE;
+    }
+
+    public int nombreCas() {
+        return nombreCas;
+    }
+
+    /**
+     * Tous les case sont constants (sinon : comparaisons dans l'ordre du source)
+     */
+    public boolean estConstant() {
+        return constant;
+    }
+
+    /**
+     * Valeurs entières des case, triées (casEntiers() donne le case de chacune)
+     */
+    public long[] clesEntieres() {
+        return clesEntieres;
+    }
+
+    public int[] casEntiers() {
+        return casEntiers;
+    }
+
+    /**
+     * TABLE ou DICHOTOMIE, null s'il n'y a pas de case entier
+     */
+    public Strategie strategieEntiers() {
+        return strategieEntiers;
+    }
+
+    /**
+     * Chaîne → case, dans l'ordre du source (aiguillage HACHAGE)
+     */
+    public Map<String, Integer> chaines() {
+        return chaines;
+    }
+
+    /**
+     * case réels et booléens, dans l'ordre du source (aiguillage SEQUENTIELLE)
+     */
+    public int[] autres() {
+        return Arrays.copyOf(autres, nombreAutres);
+    }
+
+    /**
+     * Coût de l'aiguillage, pour l'affichage détaillé
+     */
+    public String cout() {
+        if (!constant) {
+            return nombreCas + " comparaison(s) successive(s) (case non constants)";
+        }
+        StringJoiner parties = new StringJoiner(" + ");
+        if (strategieEntiers == Strategie.TABLE) {
+            parties.add(clesEntieres.length + " entier(s) : table de sauts ["
+                    + clesEntieres[0] + ".." + clesEntieres[clesEntieres.length - 1] + "], 1 accès");
+        } else if (strategieEntiers == Strategie.DICHOTOMIE) {
+            int comparaisons = 64 - Long.numberOfLeadingZeros(clesEntieres.length);
+            parties.add(clesEntieres.length + " entier(s) : recherche dichotomique, "
+                    + comparaisons + " comparaison(s) au plus");
+        }
+        if (!chaines.isEmpty()) {
+            parties.add(chaines.size() + " chaîne(s) : hachage, 1 hashCode + equals");
+        }
+        if (nombreAutres > 0) {
+            parties.add(nombreAutres + " autre(s) : " + nombreAutres + " comparaison(s) successive(s)");
+        }
+        return parties.length() == 0 ? "aucun case" : parties.toString();
+    }
+
+    /**
+     * Table long → int à adressage ouvert (sans objet par clé)
+     */
+    private static final class TableCles {
+        private long[] cles = new long[16];
+        private int[] valeurs = new int[16];
+        private boolean[] occupe = new boolean[16];
+        private int taille;
+
+        int get(long cle) {
+            int masque = cles.length - 1;
+            for (int i = hash(cle) & masque; occupe[i]; i = (i + 1) & masque) {
+                if (cles[i] == cle) {
+                    return valeurs[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(long cle, int valeur) {
+            if (2 * (taille + 1) > cles.length) {
+                agrandir();
+            }
+            int masque = cles.length - 1;
+            int i = hash(cle) & masque;
+            while (occupe[i] && cles[i] != cle) {
+                i = (i + 1) & masque;
+            }
+            if (!occupe[i]) {
+                occupe[i] = true;
+                cles[i] = cle;
+                taille++;
+            }
+            valeurs[i] = valeur;
+        }
+
+        long[] cles() {
+            long[] resultat = new long[taille];
+            int n = 0;
+            for (int i = 0; i < cles.length; i++) {
+                if (occupe[i]) {
+                    resultat[n++] = cles[i];
+                }
+            }
+            return resultat;
+        }
+
+        private void agrandir() {
+            long[] anciennesCles = cles;
+            int[] anciennesValeurs = valeurs;
+            boolean[] ancienOccupe = occupe;
+            cles = new long[anciennesCles.length * 2];
+            valeurs = new int[cles.length];
+            occupe = new boolean[cles.length];
+            taille = 0;
+            for (int i = 0; i < anciennesCles.length; i++) {
+                if (ancienOccupe[i]) {
+                    put(anciennesCles[i], anciennesValeurs[i]);
+                }
+            }
+        }
+
+        private static int hash(long cle) {
+            long h = cle * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
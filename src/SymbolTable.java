@@ -0,0 +1,141 @@
+import java.util.*;
+
+/**
+ * Classe SymbolTable - Table des symboles (identifiants)
+ *
+ * Chaque identifiant distinct reçoit un numéro (0, 1, 2, ...) et n'est
+ * stocké qu'une seule fois. Le Lexer range le numéro dans chaque token
+ * IDENTIFIER : comparer deux identifiants revient à comparer deux int.
+ *
+ * La recherche se fait directement sur les caractères du code source
+ * (adressage ouvert, sondage linéaire) : aucune String n'est créée pour
+ * un identifiant déjà connu.
+ *
+ * Une table par compilation : elle n'est pas prévue pour être partagée
+ * entre threads.
+ */
+public class SymbolTable {
+
+    public static final int AUCUN = -1;  // Pas un identifiant
+
+    private String[] names;  // numéro → nom
+    private int[] hashes;    // numéro → hash du nom
+    private int[] slots;     // case de la table → numéro + 1 (0 = vide)
+    private int size;
+
+    public SymbolTable() {
+        this.names = new String[64];
+        this.hashes = new int[64];
+        this.slots = new int[128];
+        this.size = 0;
+    }
+
+    /**
+     * Numéro de l'identifiant source[start, start + length), ajouté s'il est nouveau
+     */
+    public int intern(CharSequence source, int start, int length) {
+        return intern(source, start, length, stringHash(source, start, length));
+    }
+
+    /**
+     * Comme intern(source, start, length), quand l'appelant a déjà calculé
+     * le hash du mot (même formule que String.hashCode) en le lisant
+     */
+    public int intern(CharSequence source, int start, int length, int stringHash) {
+        int hash = mix(stringHash);
+        int masque = slots.length - 1;
+
+        for (int i = hash & masque; ; i = (i + 1) & masque) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return add(source.subSequence(start, start + length).toString(), hash, i);
+            }
+            int id = slot - 1;
+            if (hashes[id] == hash && sameChars(names[id], source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Numéro de l'identifiant, ou AUCUN s'il n'a jamais été vu
+     */
+    public int find(String name) {
+        int hash = mix(name.hashCode());
+        int masque = slots.length - 1;
+
+        for (int i = hash & masque; slots[i] != 0; i = (i + 1) & masque) {
+            int id = slots[i] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return AUCUN;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int add(String name, int hash, int slot) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        // Garder la table à moitié vide au plus
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int masque = slots.length - 1;
+
+        for (int id = 0; id < size; id++) {
+            int i = hashes[id] & masque;
+            while (slots[i] != 0) {
+                i = (i + 1) & masque;
+            }
+            slots[i] = id + 1;
+        }
+    }
+
+    private static int stringHash(CharSequence source, int start, int length) {
+        int h = 0;
+        for (int i = start; i < start + length; i++) {
+            h = 31 * h + source.charAt(i);
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean sameChars(String name, CharSequence source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,308 @@
+import java.nio.CharBuffer;
+import java.util.*;
+
+/**
+ * Classe TokenBuffer - Tampon compact de tokens
+ *
+ * Au lieu d'un objet Token (et d'une String) par lexème, les tokens sont
+ * rangés dans des tableaux parallèles de types primitifs :
+ *   types[i]   : ordinal du TokenType
+ *   starts[i]  : position du début du lexème dans le code source
+ *   lengths[i] : longueur du lexème
+ *   lines[i]   : ligne
+ *   columns[i] : colonne
+ *   symbols[i] : numéro de l'identifiant dans la SymbolTable (AUCUN sinon)
+ *
+ * Les tableaux grandissent à la demande. Un objet Token n'est construit
+ * que si on le demande avec get(i).
+ */
+public class TokenBuffer {
+
+    private static final Token.TokenType[] TYPES = Token.TokenType.values();
+    private static final int CAPACITE_MIN = 16;
+
+    // Texte fixe des opérateurs et délimiteurs (pas de String à créer)
+    private static final String[] SYMBOLES = new String[TYPES.length];
+
+    static {
+        SYMBOLES[Token.TokenType.PLUS.ordinal()] = "+";
+        SYMBOLES[Token.TokenType.MINUS.ordinal()] = "-";
+        SYMBOLES[Token.TokenType.MULTIPLY.ordinal()] = "*";
+        SYMBOLES[Token.TokenType.DIVIDE.ordinal()] = "/";
+        SYMBOLES[Token.TokenType.MODULO.ordinal()] = "%";
+        SYMBOLES[Token.TokenType.ASSIGN.ordinal()] = "=";
+        SYMBOLES[Token.TokenType.PLUS_ASSIGN.ordinal()] = "+=";
+        SYMBOLES[Token.TokenType.MINUS_ASSIGN.ordinal()] = "-=";
+        SYMBOLES[Token.TokenType.INCREMENT.ordinal()] = "++";
+        SYMBOLES[Token.TokenType.DECREMENT.ordinal()] = "--";
+        SYMBOLES[Token.TokenType.EQUAL.ordinal()] = "==";
+        SYMBOLES[Token.TokenType.NOT_EQUAL.ordinal()] = "!=";
+        SYMBOLES[Token.TokenType.LESS.ordinal()] = "<";
+        SYMBOLES[Token.TokenType.LESS_EQUAL.ordinal()] = "<=";
+        SYMBOLES[Token.TokenType.GREATER.ordinal()] = ">";
+        SYMBOLES[Token.TokenType.GREATER_EQUAL.ordinal()] = ">=";
+        SYMBOLES[Token.TokenType.LPAREN.ordinal()] = "(";
+        SYMBOLES[Token.TokenType.RPAREN.ordinal()] = ")";
+        SYMBOLES[Token.TokenType.LBRACE.ordinal()] = "{";
+        SYMBOLES[Token.TokenType.RBRACE.ordinal()] = "}";
+        SYMBOLES[Token.TokenType.LBRACKET.ordinal()] = "[";
+        SYMBOLES[Token.TokenType.RBRACKET.ordinal()] = "]";
+        SYMBOLES[Token.TokenType.COMMA.ordinal()] = ",";
+        SYMBOLES[Token.TokenType.COLON.ordinal()] = ":";
+        SYMBOLES[Token.TokenType.SEMICOLON.ordinal()] = ";";
+        SYMBOLES[Token.TokenType.DOT.ordinal()] = ".";
+        SYMBOLES[Token.TokenType.NEWLINE.ordinal()] = "\\n";
+        SYMBOLES[Token.TokenType.EOF.ordinal()] = "";
+    }
+
+    private final CharSequence source;  // Le code source (les valeurs sont des tranches)
+    private final SymbolTable symbolTable;
+    private byte[] types;
+    private int[] starts;
+    private int[] lengths;
+    private int[] lines;
+    private int[] columns;
+    private int[] symbols;
+    private int size;
+
+    // Constructeur
+    public TokenBuffer(CharSequence source, SymbolTable symbolTable, int capacite) {
+        int cap = Math.max(capacite, CAPACITE_MIN);
+        this.source = source;
+        this.symbolTable = symbolTable;
+        this.types = new byte[cap];
+        this.starts = new int[cap];
+        this.lengths = new int[cap];
+        this.lines = new int[cap];
+        this.columns = new int[cap];
+        this.symbols = new int[cap];
+        this.size = 0;
+    }
+
+    /**
+     * Ajoute un token à la fin du tampon
+     */
+    public void add(Token.TokenType type, int start, int length, int line, int column, int symbol) {
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        columns[size] = column;
+        symbols[size] = symbol;
+        size++;
+    }
+
+    /**
+     * Agrandit les tableaux (x1.5)
+     */
+    private void grow() {
+        int cap = types.length + (types.length >> 1);
+        types = Arrays.copyOf(types, cap);
+        starts = Arrays.copyOf(starts, cap);
+        lengths = Arrays.copyOf(lengths, cap);
+        lines = Arrays.copyOf(lines, cap);
+        columns = Arrays.copyOf(columns, cap);
+        symbols = Arrays.copyOf(symbols, cap);
+    }
+
+    /**
+     * Ajoute n tokens à la fin, à remplir ensuite par copier(), et retourne
+     * le numéro du premier
+     */
+    int reserver(int n) {
+        int premier = size;
+        if (size + n > types.length) {
+            int cap = Math.max(size + n, CAPACITE_MIN);
+            types = Arrays.copyOf(types, cap);
+            starts = Arrays.copyOf(starts, cap);
+            lengths = Arrays.copyOf(lengths, cap);
+            lines = Arrays.copyOf(lines, cap);
+            columns = Arrays.copyOf(columns, cap);
+            symbols = Arrays.copyOf(symbols, cap);
+        }
+        size += n;
+        return premier;
+    }
+
+    /**
+     * Recopie tous les tokens de autre à partir du numéro dest (réservé par
+     * reserver()) : lignes décalées de decalage, identifiants renumérotés par
+     * numeros (numéro dans la table de autre → numéro dans celle-ci).
+     * Plusieurs threads peuvent copier en même temps dans des plages disjointes.
+     */
+    void copier(TokenBuffer autre, int dest, int decalage, int[] numeros) {
+        int n = autre.size;
+        System.arraycopy(autre.types, 0, types, dest, n);
+        System.arraycopy(autre.starts, 0, starts, dest, n);
+        System.arraycopy(autre.lengths, 0, lengths, dest, n);
+        System.arraycopy(autre.columns, 0, columns, dest, n);
+        for (int i = 0; i < n; i++) {
+            lines[dest + i] = autre.lines[i] + decalage;
+            int symbole = autre.symbols[i];
+            symbols[dest + i] = symbole == SymbolTable.AUCUN ? SymbolTable.AUCUN : numeros[symbole];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.TokenType type(int i) {
+        return TYPES[types[i]];
+    }
+
+    public int start(int i) {
+        return starts[i];
+    }
+
+    public int length(int i) {
+        return lengths[i];
+    }
+
+    public int line(int i) {
+        return lines[i];
+    }
+
+    public int column(int i) {
+        return columns[i];
+    }
+
+    /**
+     * Numéro de l'identifiant i dans la table des symboles (AUCUN si ce n'est pas un IDENTIFIER)
+     */
+    public int symbol(int i) {
+        return symbols[i];
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Valeur du token i (créée seulement à la demande)
+     */
+    public String value(int i) {
+        if (symbols[i] != SymbolTable.AUCUN) {
+            return symbolTable.name(symbols[i]);
+        }
+        return value(type(i), source, starts[i], lengths[i]);
+    }
+
+    /**
+     * Texte brut du token i, sous forme de vue sur le code source (sans copie)
+     */
+    public CharSequence text(int i) {
+        return CharBuffer.wrap(source, starts[i], starts[i] + lengths[i]);
+    }
+
+    /**
+     * Valeur d'un lexème source[start, start + length) de type donné
+     */
+    static String value(Token.TokenType type, CharSequence source, int start, int length) {
+        String symbole = SYMBOLES[type.ordinal()];
+        if (symbole != null) {
+            return symbole;
+        }
+        if (type == Token.TokenType.STRING) {
+            return stringValue(source, start, length);
+        }
+        return source.subSequence(start, start + length).toString();
+    }
+
+    /**
+     * Contenu d'une chaîne : sans les guillemets, échappements (\n, \", etc.) résolus
+     */
+    private static String stringValue(CharSequence source, int start, int length) {
+        int pos = start;
+        int end = start + length;
+        char quote = source.charAt(pos);
+        StringBuilder sb = new StringBuilder(length);
+
+        pos++;  // Sauter le guillemet d'ouverture
+        while (pos < end && source.charAt(pos) != quote) {
+            if (source.charAt(pos) == '\\' && pos + 1 < end) {
+                pos++;
+            }
+            sb.append(source.charAt(pos));
+            pos++;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Construit un objet Token pour le token i
+     */
+    public Token get(int i) {
+        return new Token(type(i), value(i), lines[i], columns[i]);
+    }
+
+    /**
+     * Curseur sur le tampon (pour le Parser)
+     */
+    public TokenCursor cursor() {
+        return new Cursor(0);
+    }
+
+    /**
+     * Curseur qui commence au token debut (pour analyser la suite d'un
+     * programme à part, voir ParallelParser)
+     */
+    TokenCursor cursor(int debut) {
+        return new Cursor(debut);
+    }
+
+    private class Cursor implements TokenCursor {
+        private int index;
+
+        Cursor(int debut) {
+            this.index = debut;
+        }
+
+        @Override
+        public Token.TokenType peek() {
+            return type(index);
+        }
+
+        @Override
+        public int index() {
+            return index;
+        }
+
+        @Override
+        public Token.TokenType nextToken() {
+            Token.TokenType type = type(index);
+            // On reste sur le dernier token (EOF)
+            if (index < size - 1) {
+                index++;
+            }
+            return type;
+        }
+
+        @Override
+        public String value() {
+            return TokenBuffer.this.value(index);
+        }
+
+        @Override
+        public int symbol() {
+            return symbols[index];
+        }
+
+        @Override
+        public int line() {
+            return lines[index];
+        }
+
+        @Override
+        public int column() {
+            return columns[index];
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Interface TokenCursor - Lecture des tokens un par un
+ *
+ * Le Parser n'a besoin que du token courant : il le regarde avec peek()
+ * et passe au suivant avec nextToken(). Les tokens peuvent venir d'un
+ * TokenBuffer déjà rempli ou directement d'un Lexer (mode flux).
+ */
+public interface TokenCursor {
+
+    // Type du token courant (sans avancer)
+    Token.TokenType peek();
+
+    // Numéro du token courant (0 pour le premier, indice dans le TokenBuffer)
+    int index();
+
+    // Consomme le token courant et retourne son type (on reste sur EOF à la fin)
+    Token.TokenType nextToken();
+
+    // Valeur, ligne et colonne du token courant
+    String value();
+
+    // Numéro d'identifiant (SymbolTable) du token courant, AUCUN si ce n'est pas un IDENTIFIER
+    int symbol();
+
+    int line();
+
+    int column();
+}
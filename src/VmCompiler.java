@@ -0,0 +1,930 @@
+import java.util.*;
+
+/**
+ * Classe VmCompiler - Traduction de l'Ast en programme pour la RegisterVm
+ *
+ * Chaque variable reçoit un registre fixe, trouvé par le numéro de son
+ * identifiant dans la table des symboles (sans créer de String) ; les
+ * valeurs intermédiaires d'une expression vont dans des registres
+ * temporaires, libérés dès que l'expression est calculée (comme une pile).
+ *
+ * Les sauts sont d'abord émis vers des « labels » (numéros), remplacés
+ * par les adresses réelles une fois tout le code produit.
+ *
+ * Le switch suit le SwitchPlan du Parser, comme JvmBackend : table de
+ * sauts ou recherche dichotomique pour les case entiers, table de hachage
+ * pour les chaînes, comparaisons successives sinon.
+ *
+ * Comme dans JvmBackend, rien n'est récursif : les expressions sont
+ * parcourues avec une pile de travail et les switch imbriqués avec une pile
+ * de switch ouverts, quelle que soit la profondeur de l'arbre.
+ */
+public class VmCompiler {
+
+    private final Ast ast;
+    private final TokenBuffer tokens;
+    private final List<String> errors = new ArrayList<>();
+
+    // Code en cours de production
+    private int[] code = new int[256];
+    private int[] lignes = new int[64];
+    private int taille;
+    private int ligne;
+
+    // Constantes
+    private final List<Long> entiers = new ArrayList<>();
+    private final List<Double> reels = new ArrayList<>();
+    private final List<Object> objets = new ArrayList<>();
+    private final List<Object> tables = new ArrayList<>();
+
+    // Registres
+    private final int[] registres;  // Numéro d'identifiant → registre de la variable (-1 si aucun)
+    private final List<String> variables = new ArrayList<>();  // Registre → nom
+    private final int print;        // Numéros de print et len (SymbolTable.AUCUN s'ils n'apparaissent pas)
+    private final int len;
+    private int prochain;  // Premier registre temporaire libre
+    private int maxRegistres;
+
+    // Labels : numéro → adresse (-1 tant qu'il n'est pas placé)
+    private final List<Integer> labels = new ArrayList<>();
+    private final Deque<Integer> finsSwitch = new ArrayDeque<>();
+
+    // Pile de travail des expressions (voir expression)
+    private int[] noeuds = new int[32];
+    private int[] etapes = new int[32];
+    private int[] destinations = new int[32];  // Registre du résultat
+    private int[] sauvegardes = new int[32];   // prochain au début du noeud
+    private int[] premiers = new int[32];      // Registre du premier opérande (ou de l'élément suivant)
+    private int[] auxiliaires = new int[32];   // Second opérande, élément en cours ou label de fin
+    private int travaux;
+
+    public VmCompiler(Ast ast, TokenBuffer tokens) {
+        this.ast = ast;
+        this.tokens = tokens;
+        SymbolTable symboles = tokens.getSymbolTable();
+        this.registres = new int[symboles.size()];
+        Arrays.fill(registres, -1);
+        this.print = symboles.find("print");
+        this.len = symboles.find("len");
+    }
+
+    /**
+     * Compile le programme (noeud PROGRAM)
+     *
+     * @return le programme, ou null en cas d'erreur (voir getErrors)
+     */
+    public VmProgram compile(int program) {
+        declarerVariables();
+        prochain = variables.size();
+        maxRegistres = prochain;
+
+        for (int n = ast.firstChild(program); n != Ast.AUCUN; n = ast.nextSibling(n)) {
+            instruction(n);
+        }
+        emettre(VmProgram.ARRET, 0, 0, 0);
+
+        if (!errors.isEmpty()) {
+            return null;
+        }
+        resoudreSauts();
+
+        long[] constantesEntieres = new long[entiers.size()];
+        for (int i = 0; i < constantesEntieres.length; i++) {
+            constantesEntieres[i] = entiers.get(i);
+        }
+        double[] constantesReelles = new double[reels.size()];
+        for (int i = 0; i < constantesReelles.length; i++) {
+            constantesReelles[i] = reels.get(i);
+        }
+        return new VmProgram(Arrays.copyOf(code, taille), Arrays.copyOf(lignes, taille / VmProgram.TAILLE_INSTRUCTION),
+                constantesEntieres, constantesReelles, objets.toArray(), tables.toArray(),
+                variables.toArray(new String[0]), maxRegistres);
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Un registre par variable (tous les NAME sauf les fonctions appelées)
+     */
+    private void declarerVariables() {
+        boolean[] fonctions = new boolean[ast.size()];
+        for (int n = 0; n < ast.size(); n++) {
+            if (ast.kind(n) == Ast.Kind.CALL && ast.firstChild(n) != Ast.AUCUN) {
+                fonctions[ast.firstChild(n)] = true;
+            }
+        }
+        for (int n = 0; n < ast.size(); n++) {
+            if (ast.kind(n) == Ast.Kind.NAME && !fonctions[n] && registres[symbole(n)] < 0) {
+                registres[symbole(n)] = variables.size();
+                variables.add(nom(n));
+            }
+        }
+    }
+
+    /**
+     * INSTRUCTIONS
+     */
+
+    private void instruction(int n) {
+        ligne = tokens.line(ast.token(n));
+
+        switch (ast.kind(n)) {
+            case ASSIGN:
+                affectation(n);
+                break;
+            case INCDEC:
+                incrementer(ast.firstChild(n), tokens.type(ast.token(n)) == Token.TokenType.INCREMENT);
+                break;
+            case EXPR:
+                if (!appelAfficher(ast.firstChild(n))) {
+                    int sauvegarde = prochain;
+                    expression(ast.firstChild(n), temporaire());
+                    prochain = sauvegarde;
+                }
+                break;
+            case SWITCH:
+                switchInstruction(n);
+                break;
+            case BREAK:
+                if (finsSwitch.isEmpty()) {
+                    error(n, "'break' en dehors d'un switch");
+                } else {
+                    emettre(VmProgram.SAUT, finsSwitch.peek(), 0, 0);
+                }
+                break;
+            case CONTINUE:
+                error(n, "'continue' en dehors d'une boucle");
+                break;
+            case PASS:
+                break;
+            case IGNORED:
+                error(n, "instruction '" + tokens.value(ast.token(n)) + "' non compilée (seul switch/case est analysé)");
+                break;
+            default:
+                error(n, "instruction non compilable");
+        }
+    }
+
+    /**
+     * x = e, ou x += e / x -= e (calculé comme x + e par operation)
+     */
+    private void affectation(int n) {
+        int cible = ast.firstChild(n);
+        if (tokens.type(ast.token(n)) == Token.TokenType.ASSIGN) {
+            expression(ast.nextSibling(cible), registre(cible));
+        } else {
+            int base = travaux;
+            operation(n, registre(cible));
+            executer(base);
+        }
+    }
+
+    /**
+     * x++ / x-- : retourne le registre de la variable
+     */
+    private int incrementer(int cible, boolean plus) {
+        if (ast.kind(cible) != Ast.Kind.NAME) {
+            error(cible, "variable attendue pour '" + (plus ? "++" : "--") + "'");
+            return temporaire();
+        }
+        int registre = registre(cible);
+        emettre(plus ? VmProgram.AJOUT_IMMEDIAT : VmProgram.SOUSTRACTION_IMMEDIATE, registre, registre, 1);
+        return registre;
+    }
+
+    /**
+     * SWITCH
+     */
+
+    /**
+     * Les switch imbriqués dans les case sont compilés avec une pile de
+     * switch ouverts, sans récursion
+     */
+    private void switchInstruction(int n) {
+        Deque<SwitchOuvert> ouverts = new ArrayDeque<>();
+        ouverts.push(ouvrirSwitch(n));
+        while (!ouverts.isEmpty()) {
+            SwitchOuvert sw = ouverts.peek();
+            int s = sw.suivante();
+            if (s == Ast.AUCUN) {
+                finsSwitch.pop();
+                placer(sw.fin);
+                ouverts.pop();
+            } else if (ast.kind(s) == Ast.Kind.SWITCH) {
+                ligne = tokens.line(ast.token(s));
+                ouverts.push(ouvrirSwitch(s));
+            } else {
+                instruction(s);
+            }
+        }
+    }
+
+    /**
+     * Saute vers le bon case ; les corps restent à compiler (SwitchOuvert.suivante)
+     */
+    private SwitchOuvert ouvrirSwitch(int n) {
+        int sujet = ast.firstChild(n);
+        List<Integer> clauses = new ArrayList<>();
+        for (int c = ast.nextSibling(sujet); c != Ast.AUCUN; c = ast.nextSibling(c)) {
+            clauses.add(c);
+        }
+
+        SwitchOuvert sw = new SwitchOuvert(clauses);
+        int defaut = sw.fin;
+        for (int i = 0; i < sw.corps.length; i++) {
+            if (ast.kind(clauses.get(i)) == Ast.Kind.DEFAULT) {
+                defaut = sw.corps[i];
+            }
+        }
+
+        int sauvegarde = prochain;
+        aiguiller(n, operande(sujet), clauses, sw.corps, defaut);
+        prochain = sauvegarde;
+        finsSwitch.push(sw.fin);
+        return sw;
+    }
+
+    /**
+     * Switch dont les corps de case sont en cours de compilation : ils se
+     * suivent dans le code (sans break on continue dans le suivant)
+     */
+    private final class SwitchOuvert {
+        final List<Integer> clauses;
+        final int fin = label();
+        final int[] corps;
+        int clause = -1;              // Clause en cours
+        int instruction = Ast.AUCUN;  // Prochaine instruction de cette clause
+
+        SwitchOuvert(List<Integer> clauses) {
+            this.clauses = clauses;
+            this.corps = new int[clauses.size()];
+            for (int i = 0; i < corps.length; i++) {
+                corps[i] = label();
+            }
+        }
+
+        /**
+         * Prochaine instruction à compiler (AUCUN après la dernière clause) ;
+         * place le label de chaque clause au début de son corps
+         */
+        int suivante() {
+            while (instruction == Ast.AUCUN) {
+                if (++clause == corps.length) {
+                    return Ast.AUCUN;
+                }
+                placer(corps[clause]);
+                int c = clauses.get(clause);
+                instruction = ast.firstChild(c);
+                if (ast.kind(c) == Ast.Kind.CASE && instruction != Ast.AUCUN) {
+                    instruction = ast.nextSibling(instruction);  // Sauter la valeur du case
+                }
+            }
+            int s = instruction;
+            instruction = ast.nextSibling(s);
+            return s;
+        }
+    }
+
+    /**
+     * Saute vers le corps du case dont la valeur est égale au registre sujet,
+     * selon l'aiguillage choisi par le Parser (SwitchPlan)
+     */
+    private void aiguiller(int n, int sujet, List<Integer> clauses, int[] corps, int defaut) {
+        List<Integer> cases = new ArrayList<>();  // case numéro k → indice dans clauses
+        for (int i = 0; i < clauses.size(); i++) {
+            if (ast.kind(clauses.get(i)) == Ast.Kind.CASE) {
+                cases.add(i);
+            }
+        }
+
+        SwitchPlan plan = ast.plan(n);
+        if (!plan.estConstant()) {
+            for (int i : cases) {
+                comparer(sujet, ast.firstChild(clauses.get(i)), corps[i]);
+            }
+            emettre(VmProgram.SAUT, defaut, 0, 0);
+            return;
+        }
+
+        long[] cles = plan.clesEntieres();
+        if (cles.length > 0) {
+            int[] cibles = new int[cles.length];
+            for (int k = 0; k < cles.length; k++) {
+                cibles[k] = corps[cases.get(plan.casEntiers()[k])];
+            }
+            int suite = label();
+            switchEntier(sujet, plan.strategieEntiers(), cles, cibles, suite);
+            placer(suite);
+        }
+
+        if (!plan.chaines().isEmpty()) {
+            Map<String, Integer> chaines = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> e : plan.chaines().entrySet()) {
+                chaines.put(e.getKey(), corps[cases.get(e.getValue())]);
+            }
+            int suite = label();
+            tables.add(new VmProgram.Hachage(chaines, suite));
+            emettre(VmProgram.HACHAGE, sujet, tables.size() - 1, 0);
+            placer(suite);
+        }
+
+        for (int k : plan.autres()) {
+            int i = cases.get(k);
+            comparer(sujet, ast.firstChild(clauses.get(i)), corps[i]);
+        }
+        emettre(VmProgram.SAUT, defaut, 0, 0);
+    }
+
+    /**
+     * Table de sauts (TABLE) ou recherche dichotomique (DICHOTOMIE) sur les
+     * clés triées
+     */
+    private void switchEntier(int sujet, SwitchPlan.Strategie strategie, long[] cles, int[] cibles, int defaut) {
+        if (strategie == SwitchPlan.Strategie.TABLE) {
+            long bas = cles[0];
+            int[] table = new int[(int) (cles[cles.length - 1] - bas + 1)];
+            Arrays.fill(table, defaut);
+            for (int k = 0; k < cles.length; k++) {
+                table[(int) (cles[k] - bas)] = cibles[k];
+            }
+            tables.add(new VmProgram.TableSauts(bas, table, defaut));
+            emettre(VmProgram.TABLE_SAUTS, sujet, tables.size() - 1, 0);
+        } else {
+            tables.add(new VmProgram.Recherche(cles, cibles, defaut));
+            emettre(VmProgram.RECHERCHE, sujet, tables.size() - 1, 0);
+        }
+    }
+
+    private void comparer(int sujet, int valeur, int cible) {
+        int sauvegarde = prochain;
+        emettre(VmProgram.SAUT_SI_EGAL, sujet, operande(valeur), cible);
+        prochain = sauvegarde;
+    }
+
+    /**
+     * Valeur d'un opérande littéral, éventuellement précédé de -, sinon null
+     */
+    private Object constante(int n) {
+        int moins = 0;
+        while (ast.kind(n) == Ast.Kind.UNARY && tokens.type(ast.token(n)) == Token.TokenType.MINUS) {
+            moins++;
+            n = ast.firstChild(n);
+        }
+        if (ast.kind(n) != Ast.Kind.LITERAL) {
+            return null;
+        }
+        Object valeur = litteral(n);
+        for (; moins > 0; moins--) {
+            valeur = ConstantFolder.negatif(valeur);
+        }
+        return valeur;
+    }
+
+    /**
+     * EXPRESSIONS
+     *
+     * L'arbre est parcouru avec une pile de travail (noeud, étape, registres)
+     * et non par récursion, comme dans JvmBackend : un opérande qui n'est pas
+     * une variable reçoit un temporaire, et l'étape suivante de son noeud est
+     * empilée sous lui. Le code et les registres sont ceux d'un parcours en
+     * profondeur, opérande gauche d'abord.
+     */
+
+    private static final int DEBUT = 0;  // Noeud à commencer
+    private static final int SUITE = 1;  // Premier opérande calculé (gauche, and / or, élément de liste)
+    private static final int FIN = 2;    // Opérandes calculés : reste l'instruction VM
+
+    /**
+     * Calcule l'expression racine dans le registre dst
+     */
+    private void expression(int racine, int dst) {
+        int base = travaux;
+        empiler(racine, DEBUT, dst, 0, 0, 0);
+        executer(base);
+    }
+
+    /**
+     * Dépile jusqu'à base les étapes de travail
+     */
+    private void executer(int base) {
+        while (travaux > base) {
+            travaux--;
+            int n = noeuds[travaux];
+            if (etapes[travaux] == DEBUT) {
+                commencer(n, destinations[travaux]);
+            } else if (etapes[travaux] == SUITE) {
+                continuer(n, destinations[travaux], sauvegardes[travaux], premiers[travaux], auxiliaires[travaux]);
+            } else {
+                terminer(n, destinations[travaux], sauvegardes[travaux], premiers[travaux], auxiliaires[travaux]);
+            }
+        }
+    }
+
+    /**
+     * Les feuilles sont compilées tout de suite ; pour les autres noeuds, la
+     * suite est empilée, puis le premier opérande à calculer
+     */
+    private void commencer(int n, int dst) {
+        if (n == Ast.AUCUN) {
+            return;
+        }
+
+        switch (ast.kind(n)) {
+            case LITERAL:
+                Object valeur = litteral(n);
+                if (valeur == null) {
+                    error(n, "entier trop grand : " + tokens.value(ast.token(n)));
+                } else {
+                    charger(dst, valeur);
+                }
+                break;
+            case NAME:
+                int registre = registre(n);
+                if (registre != dst) {
+                    emettre(VmProgram.COPIE, dst, registre, 0);
+                }
+                break;
+            case BINARY:
+                if (courtCircuit(n)) {
+                    // On garde l'opérande gauche s'il décide du résultat
+                    // (dans un temporaire si dst est une variable que droite pourrait lire)
+                    int sauvegarde = prochain;
+                    int resultat = dst < variables.size() ? temporaire() : dst;
+                    empiler(n, SUITE, dst, sauvegarde, resultat, label());
+                    empiler(ast.firstChild(n), DEBUT, resultat, 0, 0, 0);
+                } else if (opcode(n) < 0) {
+                    error(n, "opérateur '" + tokens.value(ast.token(n)) + "' non supporté");
+                } else {
+                    operation(n, dst);
+                }
+                break;
+            case INDEX:
+                operation(n, dst);
+                break;
+            case UNARY:
+                unaire(n, dst);
+                break;
+            case LIST: {
+                int sauvegarde = prochain;
+                int nombre = ast.childCount(n);
+                for (int i = 0; i < nombre; i++) {
+                    temporaire();
+                }
+                element(n, dst, sauvegarde, ast.firstChild(n), sauvegarde);
+                break;
+            }
+            case CALL:
+                appel(n, dst);
+                break;
+            case MEMBER:
+                error(n, "accès aux attributs non supporté");
+                break;
+            default:
+                error(n, "expression non compilable");
+        }
+    }
+
+    private void continuer(int n, int dst, int sauvegarde, int premier, int auxiliaire) {
+        if (ast.kind(n) == Ast.Kind.LIST) {
+            element(n, dst, sauvegarde, ast.nextSibling(auxiliaire), premier);
+        } else if (ast.kind(n) == Ast.Kind.BINARY && courtCircuit(n)) {
+            emettre(tokens.type(ast.token(n)) == Token.TokenType.AND ? VmProgram.SAUT_SI_FAUX : VmProgram.SAUT_SI_VRAI,
+                    premier, auxiliaire, 0);
+            empiler(n, FIN, dst, sauvegarde, premier, auxiliaire);
+            empiler(ast.nextSibling(ast.firstChild(n)), DEBUT, premier, 0, 0, 0);
+        } else {
+            droite(n, dst, sauvegarde, premier);
+        }
+    }
+
+    private void terminer(int n, int dst, int sauvegarde, int premier, int auxiliaire) {
+        switch (ast.kind(n)) {
+            case BINARY:
+                if (courtCircuit(n)) {
+                    placer(auxiliaire);
+                    if (premier != dst) {
+                        emettre(VmProgram.COPIE, dst, premier, 0);
+                    }
+                } else {
+                    terminerOperation(n, dst, premier, auxiliaire);
+                }
+                break;
+            case UNARY:
+                prefixes(n, dst, premier);
+                break;
+            case CALL:  // len(x)
+                emettre(VmProgram.LONGUEUR, dst, premier, 0);
+                break;
+            default:    // ASSIGN, INDEX
+                terminerOperation(n, dst, premier, auxiliaire);
+        }
+        prochain = sauvegarde;
+    }
+
+    /**
+     * Élément e (s'il existe) de la liste n, dans le registre suivant ; après
+     * le dernier, la liste des registres sauvegarde.. dans dst
+     */
+    private void element(int n, int dst, int sauvegarde, int e, int registre) {
+        if (e == Ast.AUCUN) {
+            emettre(VmProgram.LISTE, dst, sauvegarde, ast.childCount(n));
+            prochain = sauvegarde;
+        } else {
+            empiler(n, SUITE, dst, sauvegarde, registre + 1, e);
+            empiler(e, DEBUT, registre, 0, 0, 0);
+        }
+    }
+
+    private boolean courtCircuit(int n) {
+        Token.TokenType operateur = tokens.type(ast.token(n));
+        return operateur == Token.TokenType.AND || operateur == Token.TokenType.OR;
+    }
+
+    /**
+     * Instruction VM de l'opération n (BINARY, x += e / x -= e, INDEX), -1 si
+     * l'opérateur n'est pas supporté
+     */
+    private int opcode(int n) {
+        if (ast.kind(n) == Ast.Kind.INDEX) {
+            return VmProgram.INDICE;
+        }
+        switch (tokens.type(ast.token(n))) {
+            case PLUS:
+            case PLUS_ASSIGN:   return VmProgram.AJOUT;
+            case MINUS:
+            case MINUS_ASSIGN:  return VmProgram.SOUSTRACTION;
+            case MULTIPLY:      return VmProgram.PRODUIT;
+            case DIVIDE:        return VmProgram.DIVISION;
+            case MODULO:        return VmProgram.MODULO;
+            case EQUAL:         return VmProgram.EGAL;
+            case NOT_EQUAL:     return VmProgram.DIFFERENT;
+            case LESS:          return VmProgram.INFERIEUR;
+            case LESS_EQUAL:    return VmProgram.INFERIEUR_EGAL;
+            case GREATER:       return VmProgram.SUPERIEUR;
+            case GREATER_EQUAL: return VmProgram.SUPERIEUR_EGAL;
+            default:            return -1;
+        }
+    }
+
+    /**
+     * dst = gauche (op) droite pour les deux enfants de n, avec AJOUT_IMMEDIAT /
+     * SOUSTRACTION_IMMEDIATE quand droite est un entier constant. Une variable
+     * gauche est lue tout de suite (copie dans un temporaire) si droite peut
+     * échouer ou la modifier : x + ++x voit la valeur d'avant, et dans
+     * x += 1 / y une variable x non définie est signalée avant l'erreur de y,
+     * comme dans le JvmBackend.
+     */
+    private void operation(int n, int dst) {
+        int sauvegarde = prochain;
+        int gauche = ast.firstChild(n);
+        int droite = ast.nextSibling(gauche);
+
+        int premier;
+        if (gauche != Ast.AUCUN && ast.kind(gauche) == Ast.Kind.NAME) {
+            if (immediat(n) == null && !simple(droite)) {
+                premier = temporaire();
+                emettre(VmProgram.COPIE, premier, registre(gauche), 0);
+            } else {
+                premier = registre(gauche);
+            }
+        } else {
+            premier = temporaire();
+            empiler(n, SUITE, dst, sauvegarde, premier, 0);
+            empiler(gauche, DEBUT, premier, 0, 0, 0);
+            return;
+        }
+        droite(n, dst, sauvegarde, premier);
+    }
+
+    /**
+     * Opérande gauche de l'opération n calculé dans premier : reste droite
+     * (sauf pour un immédiat)
+     */
+    private void droite(int n, int dst, int sauvegarde, int premier) {
+        int droite = ast.nextSibling(ast.firstChild(n));
+        if (immediat(n) != null) {
+            terminerOperation(n, dst, premier, 0);
+            prochain = sauvegarde;
+        } else if (droite != Ast.AUCUN && ast.kind(droite) == Ast.Kind.NAME) {
+            terminerOperation(n, dst, premier, registre(droite));
+            prochain = sauvegarde;
+        } else {
+            int second = temporaire();
+            empiler(n, FIN, dst, sauvegarde, premier, second);
+            empiler(droite, DEBUT, second, 0, 0, 0);
+        }
+    }
+
+    private void terminerOperation(int n, int dst, int premier, int second) {
+        Long immediat = immediat(n);
+        if (immediat != null) {
+            emettre(opcode(n) == VmProgram.AJOUT ? VmProgram.AJOUT_IMMEDIAT : VmProgram.SOUSTRACTION_IMMEDIATE,
+                    dst, premier, immediat.intValue());
+        } else {
+            emettre(opcode(n), dst, premier, second);
+        }
+    }
+
+    /**
+     * Opérande droite de l'addition ou de la soustraction n, si c'est un
+     * entier constant qui tient sur un int ; null sinon
+     */
+    private Long immediat(int n) {
+        int opcode = opcode(n);
+        if (opcode != VmProgram.AJOUT && opcode != VmProgram.SOUSTRACTION) {
+            return null;
+        }
+        Object valeur = constante(ast.nextSibling(ast.firstChild(n)));
+        if (valeur instanceof Long && (Long) valeur == ((Long) valeur).intValue()) {
+            return (Long) valeur;
+        }
+        return null;
+    }
+
+    /**
+     * Une suite d'opérateurs préfixes ("- not - x") : opérande la plus
+     * intérieure, puis les opérateurs de l'intérieur vers l'extérieur
+     * (prefixes), dans dst
+     */
+    private void unaire(int n, int dst) {
+        if (incrementation(n)) {
+            int registre = incrementer(ast.firstChild(n), tokens.type(ast.token(n)) == Token.TokenType.INCREMENT);
+            if (registre != dst) {
+                emettre(VmProgram.COPIE, dst, registre, 0);
+            }
+            return;
+        }
+
+        int operande = operandePrefixes(n);
+        if (operande != Ast.AUCUN && ast.kind(operande) == Ast.Kind.NAME) {
+            prefixes(n, dst, registre(operande));
+        } else {
+            int source = temporaire();
+            empiler(n, FIN, dst, prochain - 1, source, 0);
+            empiler(operande, DEBUT, source, 0, 0, 0);
+        }
+    }
+
+    private void prefixes(int n, int dst, int source) {
+        int operande = operandePrefixes(n);
+        int nombre = 0;
+        for (int m = n; m != operande; m = ast.firstChild(m)) {
+            nombre++;
+        }
+        int[] operateurs = new int[nombre];
+        for (int i = 0, m = n; i < nombre; i++, m = ast.firstChild(m)) {
+            operateurs[i] = m;
+        }
+        for (int i = nombre - 1; i >= 0; i--) {
+            boolean non = tokens.type(ast.token(operateurs[i])) == Token.TokenType.NOT;
+            emettre(non ? VmProgram.NON : VmProgram.NEGATION, dst, source, 0);
+            source = dst;
+        }
+    }
+
+    /**
+     * Premier noeud sous la suite d'opérateurs préfixes n (une incrémentation
+     * ++x / --x termine la suite)
+     */
+    private int operandePrefixes(int n) {
+        int operande = n;
+        while (operande != Ast.AUCUN && ast.kind(operande) == Ast.Kind.UNARY && !incrementation(operande)) {
+            operande = ast.firstChild(operande);
+        }
+        return operande;
+    }
+
+    private boolean incrementation(int n) {
+        Token.TokenType operateur = tokens.type(ast.token(n));
+        return operateur == Token.TokenType.INCREMENT || operateur == Token.TokenType.DECREMENT;
+    }
+
+    /**
+     * Fonctions prédéfinies utilisables dans une expression : len(x)
+     */
+    private void appel(int n, int dst) {
+        int fonction = ast.firstChild(n);
+        int symbole = ast.kind(fonction) == Ast.Kind.NAME ? symbole(fonction) : SymbolTable.AUCUN;
+        int arguments = ast.childCount(n) - 1;
+
+        if (symbole == len && symbole != SymbolTable.AUCUN && arguments == 1) {
+            int argument = ast.nextSibling(fonction);
+            if (argument != Ast.AUCUN && ast.kind(argument) == Ast.Kind.NAME) {
+                emettre(VmProgram.LONGUEUR, dst, registre(argument), 0);
+            } else {
+                int source = temporaire();
+                empiler(n, FIN, dst, prochain - 1, source, 0);
+                empiler(argument, DEBUT, source, 0, 0, 0);
+            }
+        } else if (symbole == print && symbole != SymbolTable.AUCUN) {
+            error(n, "print() ne retourne pas de valeur");
+        } else {
+            error(n, symbole == SymbolTable.AUCUN ? "appel non supporté"
+                    : "fonction '" + nom(fonction) + "' inconnue (ou mauvais nombre d'arguments)");
+        }
+    }
+
+    private void empiler(int n, int etape, int dst, int sauvegarde, int premier, int auxiliaire) {
+        if (travaux == noeuds.length) {
+            int capacite = travaux * 2;
+            noeuds = Arrays.copyOf(noeuds, capacite);
+            etapes = Arrays.copyOf(etapes, capacite);
+            destinations = Arrays.copyOf(destinations, capacite);
+            sauvegardes = Arrays.copyOf(sauvegardes, capacite);
+            premiers = Arrays.copyOf(premiers, capacite);
+            auxiliaires = Arrays.copyOf(auxiliaires, capacite);
+        }
+        noeuds[travaux] = n;
+        etapes[travaux] = etape;
+        destinations[travaux] = dst;
+        sauvegardes[travaux] = sauvegarde;
+        premiers[travaux] = premier;
+        auxiliaires[travaux] = auxiliaire;
+        travaux++;
+    }
+
+    /**
+     * print(a, b, ...) en instruction : arguments dans des registres consécutifs
+     */
+    private boolean appelAfficher(int n) {
+        if (ast.kind(n) != Ast.Kind.CALL) {
+            return false;
+        }
+        int fonction = ast.firstChild(n);
+        if (ast.kind(fonction) != Ast.Kind.NAME || print == SymbolTable.AUCUN || symbole(fonction) != print) {
+            return false;
+        }
+
+        int sauvegarde = prochain;
+        int nombre = ast.childCount(n) - 1;
+        int premier = prochain;
+        for (int i = 0; i < nombre; i++) {
+            temporaire();
+        }
+        int i = 0;
+        for (int a = ast.nextSibling(fonction); a != Ast.AUCUN; a = ast.nextSibling(a)) {
+            expression(a, premier + i++);
+        }
+        emettre(VmProgram.AFFICHER, premier, nombre, 0);
+        prochain = sauvegarde;
+        return true;
+    }
+
+    /**
+     * Registre contenant la valeur de n : celui de la variable si n est un nom,
+     * sinon un temporaire
+     */
+    private int operande(int n) {
+        if (n != Ast.AUCUN && ast.kind(n) == Ast.Kind.NAME) {
+            return registre(n);
+        }
+        int registre = temporaire();
+        expression(n, registre);
+        return registre;
+    }
+
+    /**
+     * n se calcule-t-il sans erreur ni effet de bord avant l'opération qui
+     * le lit ? (littéral, constante ou nom : l'opération lit ses opérandes
+     * dans l'ordre)
+     */
+    private boolean simple(int n) {
+        if (n == Ast.AUCUN) {
+            return true;
+        }
+        Ast.Kind kind = ast.kind(n);
+        return kind == Ast.Kind.LITERAL || kind == Ast.Kind.NAME || constante(n) != null;
+    }
+
+    private int temporaire() {
+        int registre = prochain++;
+        maxRegistres = Math.max(maxRegistres, prochain);
+        return registre;
+    }
+
+    private void charger(int dst, Object valeur) {
+        if (valeur instanceof Long) {
+            long v = (Long) valeur;
+            if (v == (int) v) {
+                emettre(VmProgram.ENTIER, dst, (int) v, 0);
+            } else {
+                entiers.add(v);
+                emettre(VmProgram.CONST_ENTIER, dst, entiers.size() - 1, 0);
+            }
+        } else if (valeur instanceof Double) {
+            reels.add((Double) valeur);
+            emettre(VmProgram.CONST_REEL, dst, reels.size() - 1, 0);
+        } else if (valeur instanceof Boolean) {
+            emettre(VmProgram.CONST_BOOLEEN, dst, (Boolean) valeur ? 1 : 0, 0);
+        } else {
+            objets.add(valeur);
+            emettre(VmProgram.CONST_OBJET, dst, objets.size() - 1, 0);
+        }
+    }
+
+    /**
+     * Valeur d'un littéral (Long, Double, String ou Boolean), null si l'entier déborde
+     */
+    private Object litteral(int n) {
+        int t = ast.token(n);
+        return ConstantFolder.litteral(tokens.type(t), tokens.value(t));
+    }
+
+    private String nom(int n) {
+        return tokens.getSymbolTable().name(symbole(n));
+    }
+
+    /**
+     * Numéro de l'identifiant d'un noeud NAME
+     */
+    private int symbole(int n) {
+        return tokens.symbol(ast.token(n));
+    }
+
+    private int registre(int n) {
+        return registres[symbole(n)];
+    }
+
+    /**
+     * CODE ET SAUTS
+     */
+
+    private void emettre(int opcode, int a, int b, int c) {
+        if (taille + VmProgram.TAILLE_INSTRUCTION > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        int instruction = taille / VmProgram.TAILLE_INSTRUCTION;
+        if (instruction == lignes.length) {
+            lignes = Arrays.copyOf(lignes, lignes.length * 2);
+        }
+        lignes[instruction] = ligne;
+        code[taille++] = opcode;
+        code[taille++] = a;
+        code[taille++] = b;
+        code[taille++] = c;
+    }
+
+    private int label() {
+        labels.add(-1);
+        return labels.size() - 1;
+    }
+
+    private void placer(int label) {
+        labels.set(label, taille);
+    }
+
+    /**
+     * Remplace les numéros de labels par les adresses
+     */
+    private void resoudreSauts() {
+        for (int pc = 0; pc < taille; pc += VmProgram.TAILLE_INSTRUCTION) {
+            switch (code[pc]) {
+                case VmProgram.SAUT:
+                    code[pc + 1] = labels.get(code[pc + 1]);
+                    break;
+                case VmProgram.SAUT_SI_VRAI:
+                case VmProgram.SAUT_SI_FAUX:
+                    code[pc + 2] = labels.get(code[pc + 2]);
+                    break;
+                case VmProgram.SAUT_SI_EGAL:
+                    code[pc + 3] = labels.get(code[pc + 3]);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        for (int i = 0; i < tables.size(); i++) {
+            Object table = tables.get(i);
+            if (table instanceof VmProgram.TableSauts) {
+                VmProgram.TableSauts t = (VmProgram.TableSauts) table;
+                tables.set(i, new VmProgram.TableSauts(t.bas, adresses(t.cibles), labels.get(t.defaut)));
+            } else if (table instanceof VmProgram.Recherche) {
+                VmProgram.Recherche r = (VmProgram.Recherche) table;
+                tables.set(i, new VmProgram.Recherche(r.cles, adresses(r.cibles), labels.get(r.defaut)));
+            } else {
+                VmProgram.Hachage h = (VmProgram.Hachage) table;
+                Map<String, Integer> cibles = new HashMap<>();
+                for (Map.Entry<String, Integer> e : h.cibles.entrySet()) {
+                    cibles.put(e.getKey(), labels.get(e.getValue()));
+                }
+                tables.set(i, new VmProgram.Hachage(cibles, labels.get(h.defaut)));
+            }
+        }
+    }
+
+    private int[] adresses(int[] numeros) {
+        int[] resultat = new int[numeros.length];
+        for (int i = 0; i < numeros.length; i++) {
+            resultat[i] = labels.get(numeros[i]);
+        }
+        return resultat;
+    }
+
+    private void error(int n, String message) {
+        int t = ast.token(n);
+        errors.add(String.format("Erreur ligne %d, colonne %d: %s", tokens.line(t), tokens.column(t), message));
+    }
+}
@@ -0,0 +1,157 @@
+import java.util.*;
+
+/**
+ * Classe VmProgram - Programme compilé pour la RegisterVm
+ *
+ * Le code est un tableau d'int : chaque instruction occupe TAILLE_INSTRUCTION
+ * cases {opcode, a, b, c}. Les opérandes a, b, c sont des numéros de
+ * registres, des indices dans les tables de constantes ou des adresses de
+ * saut (indice d'instruction dans code, déjà multiplié par 4).
+ *
+ * Registres : 0 .. nombreVariables - 1 pour les variables du programme,
+ * les suivants pour les valeurs intermédiaires.
+ */
+public class VmProgram {
+
+    public static final int TAILLE_INSTRUCTION = 4;
+
+    // Opcodes {opcode, a, b, c}
+    public static final int ARRET = 0;                    // fin du programme
+    public static final int ENTIER = 1;                   // r[a] = b (entier tenant sur un int)
+    public static final int CONST_ENTIER = 2;             // r[a] = entiers[b]
+    public static final int CONST_REEL = 3;               // r[a] = reels[b]
+    public static final int CONST_BOOLEEN = 4;            // r[a] = (b != 0)
+    public static final int CONST_OBJET = 5;              // r[a] = objets[b] (chaîne)
+    public static final int COPIE = 6;                    // r[a] = r[b]
+    public static final int AJOUT = 7;                    // r[a] = r[b] + r[c]
+    public static final int SOUSTRACTION = 8;             // r[a] = r[b] - r[c]
+    public static final int PRODUIT = 9;                  // r[a] = r[b] * r[c]
+    public static final int DIVISION = 10;                // r[a] = r[b] / r[c]
+    public static final int MODULO = 11;                  // r[a] = r[b] % r[c]
+    public static final int AJOUT_IMMEDIAT = 12;          // r[a] = r[b] + c
+    public static final int SOUSTRACTION_IMMEDIATE = 13;  // r[a] = r[b] - c
+    public static final int NEGATION = 14;                // r[a] = -r[b]
+    public static final int NON = 15;                     // r[a] = not r[b]
+    public static final int EGAL = 16;                    // r[a] = r[b] == r[c]
+    public static final int DIFFERENT = 17;               // r[a] = r[b] != r[c]
+    public static final int INFERIEUR = 18;               // r[a] = r[b] < r[c]
+    public static final int INFERIEUR_EGAL = 19;
+    public static final int SUPERIEUR = 20;
+    public static final int SUPERIEUR_EGAL = 21;
+    public static final int SAUT = 22;                    // aller en a
+    public static final int SAUT_SI_VRAI = 23;            // si r[a] est vrai, aller en b
+    public static final int SAUT_SI_FAUX = 24;            // si r[a] est faux, aller en b
+    public static final int SAUT_SI_EGAL = 25;            // si r[a] == r[b], aller en c
+    public static final int TABLE_SAUTS = 26;             // switch sur r[a] avec tables[b] (TableSauts)
+    public static final int RECHERCHE = 27;               // switch sur r[a] avec tables[b] (Recherche)
+    public static final int HACHAGE = 28;                 // switch sur r[a] avec tables[b] (Hachage)
+    public static final int LISTE = 29;                   // r[a] = [r[b], ..., r[b + c - 1]]
+    public static final int INDICE = 30;                  // r[a] = r[b][r[c]]
+    public static final int LONGUEUR = 31;                // r[a] = len(r[b])
+    public static final int AFFICHER = 32;                // print(r[a], ..., r[a + b - 1])
+
+    static final String[] NOMS = {
+            "ARRET", "ENTIER", "CONST_ENTIER", "CONST_REEL", "CONST_BOOLEEN", "CONST_OBJET", "COPIE",
+            "AJOUT", "SOUSTRACTION", "PRODUIT", "DIVISION", "MODULO", "AJOUT_IMMEDIAT", "SOUSTRACTION_IMMEDIATE",
+            "NEGATION", "NON",
+            "EGAL", "DIFFERENT", "INFERIEUR", "INFERIEUR_EGAL", "SUPERIEUR", "SUPERIEUR_EGAL",
+            "SAUT", "SAUT_SI_VRAI", "SAUT_SI_FAUX", "SAUT_SI_EGAL", "TABLE_SAUTS", "RECHERCHE", "HACHAGE",
+            "LISTE", "INDICE", "LONGUEUR", "AFFICHER"
+    };
+
+    /**
+     * switch sur des entiers consécutifs : cibles[cle - bas]
+     */
+    static final class TableSauts {
+        final long bas;
+        final int[] cibles;
+        final int defaut;
+
+        TableSauts(long bas, int[] cibles, int defaut) {
+            this.bas = bas;
+            this.cibles = cibles;
+            this.defaut = defaut;
+        }
+    }
+
+    /**
+     * switch sur des entiers épars : recherche dichotomique dans cles (triées)
+     */
+    static final class Recherche {
+        final long[] cles;
+        final int[] cibles;
+        final int defaut;
+
+        Recherche(long[] cles, int[] cibles, int defaut) {
+            this.cles = cles;
+            this.cibles = cibles;
+            this.defaut = defaut;
+        }
+    }
+
+    /**
+     * switch sur des chaînes : table de hachage chaîne → cible
+     */
+    static final class Hachage {
+        final Map<String, Integer> cibles;
+        final int defaut;
+
+        Hachage(Map<String, Integer> cibles, int defaut) {
+            this.cibles = cibles;
+            this.defaut = defaut;
+        }
+    }
+
+    final int[] code;
+    final int[] lignes;        // ligne source de chaque instruction
+    final long[] entiers;
+    final double[] reels;
+    final Object[] objets;
+    final Object[] tables;     // TableSauts, Recherche ou Hachage
+    final String[] variables;  // nom des registres 0 .. variables.length - 1
+    final int nombreRegistres;
+
+    VmProgram(int[] code, int[] lignes, long[] entiers, double[] reels, Object[] objets, Object[] tables,
+              String[] variables, int nombreRegistres) {
+        this.code = code;
+        this.lignes = lignes;
+        this.entiers = entiers;
+        this.reels = reels;
+        this.objets = objets;
+        this.tables = tables;
+        this.variables = variables;
+        this.nombreRegistres = nombreRegistres;
+    }
+
+    public int size() {
+        return code.length / TAILLE_INSTRUCTION;
+    }
+
+    public int nombreRegistres() {
+        return nombreRegistres;
+    }
+
+    /**
+     * Registre de la variable, ou -1 si le programme ne l'utilise pas
+     */
+    public int registre(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Listing lisible du programme (une instruction par ligne)
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += TAILLE_INSTRUCTION) {
+            sb.append(String.format("%5d  %-15s %d, %d, %d%n",
+                    pc, NOMS[code[pc]], code[pc + 1], code[pc + 2], code[pc + 3]));
+        }
+        return sb.toString();
+    }
+}